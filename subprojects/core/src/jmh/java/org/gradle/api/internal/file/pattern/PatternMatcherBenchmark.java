@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern;
+
+import org.apache.tools.ant.DirectoryScanner;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class PatternMatcherBenchmark {
+    private static final List<String> SOURCE_INCLUDES = Arrays.asList("**/*.java", "**/*.groovy", "**/*.kt", "**/*.properties", "META-INF/**", "**/package-info.java");
+    private static final List<String> SOURCE_EXCLUDES = Arrays.asList("**/generated/**", "**/build/**", "**/*Test.java", "**/internal/**/*.groovy", "**/tmp*/**", "docs/**/*.html");
+    private static final int PATH_COUNT = 1024;
+
+    @Param({"defaultExcludes", "sourceIncludes", "sourceExcludes"})
+    String patternSet;
+
+    private Spec<RelativePath> perPattern;
+    private Spec<RelativePath> compiled;
+    private RelativePath[] paths;
+
+    @Setup
+    public void setup() {
+        List<String> patterns;
+        if (patternSet.equals("defaultExcludes")) {
+            patterns = Arrays.asList(DirectoryScanner.getDefaultExcludes());
+        } else if (patternSet.equals("sourceIncludes")) {
+            patterns = SOURCE_INCLUDES;
+        } else {
+            patterns = SOURCE_EXCLUDES;
+        }
+
+        List<Spec<RelativePath>> matchers = new ArrayList<Spec<RelativePath>>(patterns.size());
+        for (String pattern : patterns) {
+            matchers.add(PatternMatcherFactory.getPatternMatcher(false, true, pattern));
+        }
+        perPattern = Specs.union(matchers);
+        compiled = PatternMatcherFactory.getPatternsMatcher(false, true, patterns);
+
+        String[] extensions = {".java", ".groovy", ".properties", ".html", ".txt"};
+        paths = new RelativePath[PATH_COUNT];
+        for (int i = 0; i < PATH_COUNT; i++) {
+            String module = i % 7 == 0 ? "generated" : "module" + (i % 5);
+            paths[i] = RelativePath.parse(true, "src/main/java/org/gradle/" + module + "/pkg" + (i % 13) + "/File" + i + extensions[i % extensions.length]);
+        }
+    }
+
+    @Benchmark
+    public void perPatternMatchers(Blackhole bh) {
+        for (RelativePath path : paths) {
+            bh.consume(perPattern.isSatisfiedBy(path));
+        }
+    }
+
+    @Benchmark
+    public void compiledMatcher(Blackhole bh) {
+        for (RelativePath path : paths) {
+            bh.consume(compiled.isSatisfiedBy(path));
+        }
+    }
+}
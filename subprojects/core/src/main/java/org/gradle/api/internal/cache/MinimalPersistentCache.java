@@ -16,7 +16,9 @@
 
 package org.gradle.api.internal.cache;
 
+import org.gradle.api.Nullable;
 import org.gradle.cache.*;
+import org.gradle.cache.internal.CacheDecorator;
 import org.gradle.cache.internal.FileLockManager;
 import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.Stoppable;
@@ -39,6 +41,13 @@ public class MinimalPersistentCache<K, V> implements Cache<K, V>, Stoppable {
     private final String cacheName;
 
     public MinimalPersistentCache(CacheRepository cacheRepository, String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(cacheRepository, cacheName, keySerializer, valueSerializer, null);
+    }
+
+    /**
+     * @param cacheDecorator decorates the indexed cache, for example to keep recently used entries in memory across builds
+     */
+    public MinimalPersistentCache(CacheRepository cacheRepository, String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer, @Nullable CacheDecorator cacheDecorator) {
         this.cacheName = cacheName;
         String identifier = uncapitalize(toCamelCase(cacheName));
         cacheAccess = cacheRepository
@@ -49,6 +58,9 @@ public class MinimalPersistentCache<K, V> implements Cache<K, V>, Stoppable {
 
         PersistentIndexedCacheParameters<K, V> params =
                 new PersistentIndexedCacheParameters<K, V>(identifier, keySerializer, valueSerializer);
+        if (cacheDecorator != null) {
+            params.cacheDecorator(cacheDecorator);
+        }
         cache = cacheAccess.createCache(params);
     }
 
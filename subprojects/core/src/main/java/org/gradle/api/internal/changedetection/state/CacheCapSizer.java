@@ -29,6 +29,11 @@ class CacheCapSizer {
         DEFAULT_CAP_SIZES.put("taskArtifacts", 2000);
         DEFAULT_CAP_SIZES.put("fileHashes", 400000);
         DEFAULT_CAP_SIZES.put("compilationState", 1000);
+        DEFAULT_CAP_SIZES.put("jarSnapshots", 1000);
+        DEFAULT_CAP_SIZES.put("includeDirectives", 100000);
+        DEFAULT_CAP_SIZES.put("testHistory", 1000);
+        DEFAULT_CAP_SIZES.put("testClassDetection", 50000);
+        DEFAULT_CAP_SIZES.put("testClasspathSnapshot", 1000);
     }
 
     final HeapProportionalCacheSizer sizer;
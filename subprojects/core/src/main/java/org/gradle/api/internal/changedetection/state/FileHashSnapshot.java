@@ -19,7 +19,7 @@ package org.gradle.api.internal.changedetection.state;
 import com.google.common.base.Objects;
 import com.google.common.hash.HashCode;
 
-class FileHashSnapshot implements IncrementalFileSnapshot {
+public class FileHashSnapshot implements IncrementalFileSnapshot {
     private final HashCode hash;
     private final transient long lastModified; // Currently not persisted
 
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.file;
 
+import com.google.common.io.ByteStreams;
 import org.gradle.api.file.RelativePath;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
@@ -22,7 +23,11 @@ import org.gradle.internal.nativeintegration.filesystem.Stat;
 import org.gradle.util.GFileUtils;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 public class DefaultFileTreeElement extends AbstractFileTreeElement {
     private final File file;
@@ -65,6 +70,41 @@ public class DefaultFileTreeElement extends AbstractFileTreeElement {
         return GFileUtils.openInputStream(file);
     }
 
+    /**
+     * Copies the backing file using a channel transfer, which lets the OS move the bytes without
+     * copying them through a buffer on the Java heap. Falls back to a buffered copy for the rest of the file when the
+     * transfer stops early.
+     */
+    @Override
+    protected void copyFile(File target) throws IOException {
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            FileOutputStream outputStream = new FileOutputStream(target);
+            try {
+                FileChannel source = inputStream.getChannel();
+                FileChannel destination = outputStream.getChannel();
+                long size = source.size();
+                long position = 0;
+                while (position < size) {
+                    long transferred = source.transferTo(position, size - position, destination);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                }
+                if (position < size) {
+                    // The transfer can stop early on some platforms and file systems, so copy the rest through a buffer
+                    source.position(position);
+                    ByteStreams.copy(source, destination);
+                }
+            } finally {
+                outputStream.close();
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
     public RelativePath getRelativePath() {
         return relativePath;
     }
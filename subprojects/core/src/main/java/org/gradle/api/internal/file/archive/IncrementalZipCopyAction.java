@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.tools.zip.Zip64RequiredException;
+import org.apache.tools.zip.ZipOutputStream;
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.FileCopyDetails;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.internal.file.copy.CopyAction;
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream;
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
+import org.gradle.api.internal.tasks.SimpleWorkResult;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.bundling.Zip;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Creates a ZIP file, reusing the compressed data of entries of the previous version of the ZIP file whose content has not changed.
+ * Only entries whose content differs from the previous version are compressed again.
+ */
+public class IncrementalZipCopyAction implements CopyAction {
+    private final File zipFile;
+    private final int entryCompressionMethod;
+    private final DocumentationRegistry documentationRegistry;
+    private final String encoding;
+
+    public IncrementalZipCopyAction(File zipFile, int entryCompressionMethod, DocumentationRegistry documentationRegistry, String encoding) {
+        this.zipFile = zipFile;
+        this.entryCompressionMethod = entryCompressionMethod;
+        this.documentationRegistry = documentationRegistry;
+        this.encoding = encoding;
+    }
+
+    public WorkResult execute(CopyActionProcessingStream stream) {
+        Charset charset = encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        File tmpFile = new File(zipFile.getParentFile(), zipFile.getName() + ".tmp");
+        ZipCentralDirectory previous = zipFile.isFile() ? ZipCentralDirectory.open(zipFile, charset) : null;
+        try {
+            writeArchive(stream, tmpFile, charset, previous);
+        } catch (RuntimeException e) {
+            GFileUtils.deleteQuietly(tmpFile);
+            throw e;
+        } finally {
+            if (previous != null) {
+                try {
+                    previous.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+
+        GFileUtils.deleteQuietly(zipFile);
+        if (!tmpFile.renameTo(zipFile)) {
+            throw new GradleException(String.format("Could not move '%s' to '%s'.", tmpFile, zipFile));
+        }
+        return new SimpleWorkResult(true);
+    }
+
+    private void writeArchive(CopyActionProcessingStream stream, File tmpFile, Charset charset, ZipCentralDirectory previous) {
+        RawZipWriter writer;
+        try {
+            writer = new RawZipWriter(tmpFile, charset);
+        } catch (Exception e) {
+            throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
+        }
+        boolean finished = false;
+        try {
+            stream.process(new StreamAction(writer, previous));
+            finished = true;
+        } finally {
+            try {
+                writer.close();
+            } catch (Zip64RequiredException e) {
+                if (finished) {
+                    throw zip64Required(e);
+                }
+            } catch (IOException e) {
+                if (finished) {
+                    throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
+                }
+            }
+        }
+    }
+
+    private RuntimeException zip64Required(Zip64RequiredException e) {
+        return new org.gradle.api.tasks.bundling.internal.Zip64RequiredException(
+            String.format("%s\n\nTo build this archive, please enable the zip64 extension.\nSee: %s", e.getMessage(), documentationRegistry.getDslRefForProperty(Zip.class, "zip64"))
+        );
+    }
+
+    private class StreamAction implements CopyActionProcessingStreamAction {
+        private final RawZipWriter writer;
+        private final ZipCentralDirectory previous;
+
+        public StreamAction(RawZipWriter writer, ZipCentralDirectory previous) {
+            this.writer = writer;
+            this.previous = previous;
+        }
+
+        public void processFile(FileCopyDetailsInternal details) {
+            try {
+                if (details.isDirectory()) {
+                    writer.writeDirectory(details.getRelativePath().getPathString(), details.getLastModified(), details.getMode());
+                } else {
+                    visitFile(details);
+                }
+            } catch (Zip64RequiredException e) {
+                throw zip64Required(e);
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", details, zipFile), e);
+            }
+        }
+
+        private void visitFile(final FileCopyDetails fileDetails) throws IOException {
+            String path = fileDetails.getRelativePath().getPathString();
+            Action<OutputStream> content = new Action<OutputStream>() {
+                public void execute(OutputStream outputStream) {
+                    fileDetails.copyTo(outputStream);
+                }
+            };
+            ZipCentralDirectory.Entry previousEntry = previous == null ? null : previous.getEntry(path);
+            boolean reusable = previousEntry != null && previousEntry.getMethod() == entryCompressionMethod;
+            if (!reusable && entryCompressionMethod == ZipOutputStream.DEFLATED) {
+                writer.writeDeflated(path, fileDetails.getLastModified(), fileDetails.getMode(), content);
+                return;
+            }
+
+            // Reading the content to calculate its checksum is much cheaper than compressing it
+            CRC32 crc = new CRC32();
+            CountingOutputStream counter = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+            fileDetails.copyTo(new CheckedOutputStream(counter, crc));
+            if (reusable && previousEntry.getCrc() == crc.getValue() && previousEntry.getSize() == counter.getByteCount()) {
+                writer.writeRaw(path, fileDetails.getLastModified(), fileDetails.getMode(), previous, previousEntry);
+            } else if (entryCompressionMethod == ZipOutputStream.STORED) {
+                writer.writeStored(path, fileDetails.getLastModified(), fileDetails.getMode(), crc.getValue(), counter.getByteCount(), content);
+            } else {
+                writer.writeDeflated(path, fileDetails.getLastModified(), fileDetails.getMode(), content);
+            }
+        }
+    }
+}
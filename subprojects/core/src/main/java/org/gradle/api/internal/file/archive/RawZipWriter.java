@@ -0,0 +1,317 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.tools.zip.UnixStat;
+import org.apache.tools.zip.Zip64RequiredException;
+import org.apache.tools.zip.ZipOutputStream;
+import org.gradle.api.Action;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.gradle.api.internal.file.archive.ZipCentralDirectory.*;
+
+/**
+ * Writes a plain (non Zip64) ZIP file, where the data of an entry can either be compressed as it is written, or copied
+ * verbatim from the compressed data of an entry in another ZIP file.
+ */
+public class RawZipWriter implements Closeable {
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int DATA_DESCRIPTOR_FLAG = 1 << 3;
+    private static final int INITIAL_VERSION = 10;
+    private static final int DEFLATE_VERSION = 20;
+    private static final int PLATFORM_UNIX = 3;
+    private static final long MAX_VALUE = 0xFFFFFFFFL;
+    private static final int MAX_ENTRIES = 0xFFFF;
+    private static final long DOS_TIME_MIN = 0x00210000L;
+
+    private final FileOutputStream fileOutput;
+    private final CountingOutputStream output;
+    private final Charset charset;
+    private final int languageEncodingFlag;
+    private final List<CentralDirectoryRecord> records = new ArrayList<CentralDirectoryRecord>();
+    private final byte[] header = new byte[CENTRAL_FILE_HEADER_LENGTH];
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+    public RawZipWriter(File zipFile, Charset charset) throws IOException {
+        this.fileOutput = new FileOutputStream(zipFile);
+        this.output = new CountingOutputStream(new BufferedOutputStream(fileOutput, 64 * 1024));
+        this.charset = charset;
+        this.languageEncodingFlag = charset.name().equals("UTF-8") ? LANGUAGE_ENCODING_FLAG : 0;
+    }
+
+    public void writeDirectory(String name, long time, int unixMode) throws IOException {
+        CentralDirectoryRecord record = startEntry(name + '/', time, UnixStat.DIR_FLAG | unixMode, ZipOutputStream.STORED, 0);
+        writeLocalFileHeader(record);
+    }
+
+    /**
+     * Writes an entry whose content is stored without compression. The CRC and size of the content must be known up front.
+     */
+    public void writeStored(String name, long time, int unixMode, long crc, long size, Action<? super OutputStream> content) throws IOException {
+        CentralDirectoryRecord record = startEntry(name, time, UnixStat.FILE_FLAG | unixMode, ZipOutputStream.STORED, 0);
+        record.crc = crc;
+        record.compressedSize = size;
+        record.size = size;
+        writeLocalFileHeader(record);
+        long start = output.count;
+        content.execute(new NonClosingOutputStream(output));
+        if (output.count - start != size) {
+            throw new IOException(String.format("Unexpected content size for ZIP entry '%s'.", name));
+        }
+    }
+
+    /**
+     * Writes an entry whose content is compressed as it is written. The CRC and sizes are written in a data descriptor.
+     */
+    public void writeDeflated(String name, long time, int unixMode, Action<? super OutputStream> content) throws IOException {
+        CentralDirectoryRecord record = startEntry(name, time, UnixStat.FILE_FLAG | unixMode, ZipOutputStream.DEFLATED, DATA_DESCRIPTOR_FLAG);
+        writeLocalFileHeader(record);
+        long start = output.count;
+        deflater.reset();
+        CrcOutputStream crcOutput = new CrcOutputStream(new DeflaterOutputStream(new NonClosingOutputStream(output), deflater, 8192));
+        content.execute(crcOutput);
+        crcOutput.close();
+        record.crc = crcOutput.crc.getValue();
+        record.size = crcOutput.count;
+        record.compressedSize = output.count - start;
+        checkSize(record, record.size);
+        checkSize(record, record.compressedSize);
+        writeInt(header, 0, DATA_DESCRIPTOR_SIGNATURE);
+        writeInt(header, 4, record.crc);
+        writeInt(header, 8, record.compressedSize);
+        writeInt(header, 12, record.size);
+        output.write(header, 0, 16);
+    }
+
+    /**
+     * Writes an entry whose compressed content is copied verbatim from an entry of another ZIP file.
+     */
+    public void writeRaw(String name, long time, int unixMode, ZipCentralDirectory source, ZipCentralDirectory.Entry entry) throws IOException {
+        CentralDirectoryRecord record = startEntry(name, time, UnixStat.FILE_FLAG | unixMode, entry.getMethod(), 0);
+        record.crc = entry.getCrc();
+        record.compressedSize = entry.getCompressedSize();
+        record.size = entry.getSize();
+        writeLocalFileHeader(record);
+        output.flush();
+        source.transferRawData(entry, fileOutput.getChannel());
+        output.count += entry.getCompressedSize();
+    }
+
+    /**
+     * Writes the central directory and closes the file.
+     */
+    public void close() throws IOException {
+        try {
+            long centralDirectoryOffset = output.count;
+            for (CentralDirectoryRecord record : records) {
+                writeCentralFileHeader(record);
+            }
+            long centralDirectorySize = output.count - centralDirectoryOffset;
+            if (output.count > MAX_VALUE) {
+                throw new Zip64RequiredException("archive's size exceeds the limit of 4GByte.");
+            }
+            writeInt(header, 0, END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+            writeShort(header, 4, 0);
+            writeShort(header, 6, 0);
+            writeShort(header, 8, records.size());
+            writeShort(header, 10, records.size());
+            writeInt(header, 12, centralDirectorySize);
+            writeInt(header, 16, centralDirectoryOffset);
+            writeShort(header, 20, 0);
+            output.write(header, 0, END_OF_CENTRAL_DIRECTORY_LENGTH);
+            output.flush();
+        } finally {
+            deflater.end();
+            output.close();
+        }
+    }
+
+    private CentralDirectoryRecord startEntry(String name, long time, int unixMode, int method, int flags) throws IOException {
+        if (records.size() >= MAX_ENTRIES) {
+            throw new Zip64RequiredException("archive contains more than 65535 entries.");
+        }
+        if (output.count > MAX_VALUE) {
+            throw new Zip64RequiredException("archive's size exceeds the limit of 4GByte.");
+        }
+        CentralDirectoryRecord record = new CentralDirectoryRecord();
+        record.name = name.getBytes(charset.name());
+        record.flags = flags | languageEncodingFlag;
+        record.method = method;
+        record.dosTime = toDosTime(time);
+        record.externalAttributes = (unixMode << 16) | ((unixMode & 0200) == 0 ? 1 : 0) | ((unixMode & UnixStat.DIR_FLAG) == UnixStat.DIR_FLAG ? 0x10 : 0);
+        record.versionNeeded = method == ZipOutputStream.DEFLATED || (flags & DATA_DESCRIPTOR_FLAG) != 0 ? DEFLATE_VERSION : INITIAL_VERSION;
+        record.localHeaderOffset = output.count;
+        records.add(record);
+        return record;
+    }
+
+    private void writeLocalFileHeader(CentralDirectoryRecord record) throws IOException {
+        boolean dataDescriptor = (record.flags & DATA_DESCRIPTOR_FLAG) != 0;
+        writeInt(header, 0, LOCAL_FILE_HEADER_SIGNATURE);
+        writeShort(header, 4, record.versionNeeded);
+        writeShort(header, 6, record.flags);
+        writeShort(header, 8, record.method);
+        writeInt(header, 10, record.dosTime);
+        writeInt(header, 14, dataDescriptor ? 0 : record.crc);
+        writeInt(header, 18, dataDescriptor ? 0 : record.compressedSize);
+        writeInt(header, 22, dataDescriptor ? 0 : record.size);
+        writeShort(header, 26, record.name.length);
+        writeShort(header, 28, 0);
+        output.write(header, 0, LOCAL_FILE_HEADER_LENGTH);
+        output.write(record.name);
+    }
+
+    private void writeCentralFileHeader(CentralDirectoryRecord record) throws IOException {
+        writeInt(header, 0, CENTRAL_FILE_HEADER_SIGNATURE);
+        writeShort(header, 4, (PLATFORM_UNIX << 8) | DEFLATE_VERSION);
+        writeShort(header, 6, record.versionNeeded);
+        writeShort(header, 8, record.flags);
+        writeShort(header, 10, record.method);
+        writeInt(header, 12, record.dosTime);
+        writeInt(header, 16, record.crc);
+        writeInt(header, 20, record.compressedSize);
+        writeInt(header, 24, record.size);
+        writeShort(header, 28, record.name.length);
+        writeShort(header, 30, 0);
+        writeShort(header, 32, 0);
+        writeShort(header, 34, 0);
+        writeShort(header, 36, 0);
+        writeInt(header, 38, record.externalAttributes & MAX_VALUE);
+        writeInt(header, 42, record.localHeaderOffset);
+        output.write(header, 0, CENTRAL_FILE_HEADER_LENGTH);
+        output.write(record.name);
+    }
+
+    private static void checkSize(CentralDirectoryRecord record, long size) throws Zip64RequiredException {
+        if (size > MAX_VALUE) {
+            throw new Zip64RequiredException(String.format("%s's size exceeds the limit of 4GByte.", new String(record.name)));
+        }
+    }
+
+    private static void writeShort(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, long value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+        buffer[offset + 2] = (byte) (value >> 16);
+        buffer[offset + 3] = (byte) (value >> 24);
+    }
+
+    static long toDosTime(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return DOS_TIME_MIN;
+        }
+        return ((long) (year - 1980) << 25)
+            | (calendar.get(Calendar.MONTH) + 1) << 21
+            | calendar.get(Calendar.DAY_OF_MONTH) << 16
+            | calendar.get(Calendar.HOUR_OF_DAY) << 11
+            | calendar.get(Calendar.MINUTE) << 5
+            | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    private static class CentralDirectoryRecord {
+        byte[] name;
+        int flags;
+        int method;
+        int versionNeeded;
+        long dosTime;
+        long crc;
+        long compressedSize;
+        long size;
+        int externalAttributes;
+        long localHeaderOffset;
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static class CrcOutputStream extends FilterOutputStream {
+        final CRC32 crc = new CRC32();
+        long count;
+
+        CrcOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            crc.update(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            crc.update(b, off, len);
+            count += len;
+        }
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
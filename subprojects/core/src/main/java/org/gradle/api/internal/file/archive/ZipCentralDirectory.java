@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only view of the entries of an existing ZIP file, as recorded in its central directory. Provides access to the raw,
+ * still compressed, data of each entry so that it can be copied into another archive without inflating and deflating it again.
+ *
+ * <p>Only the plain ZIP format is supported. Archives using the Zip64 extension, spanning multiple disks or containing
+ * encrypted entries are rejected by {@link #open(File, Charset)}.</p>
+ */
+public class ZipCentralDirectory implements Closeable {
+    static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+    static final int CENTRAL_FILE_HEADER_SIGNATURE = 0x02014b50;
+    static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    static final int LOCAL_FILE_HEADER_LENGTH = 30;
+    static final int CENTRAL_FILE_HEADER_LENGTH = 46;
+    static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+    static final int ENCRYPTED_FLAG = 1;
+    static final int LANGUAGE_ENCODING_FLAG = 1 << 11;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final Map<String, Entry> entries;
+
+    private ZipCentralDirectory(RandomAccessFile file, Map<String, Entry> entries) {
+        this.file = file;
+        this.channel = file.getChannel();
+        this.entries = entries;
+    }
+
+    /**
+     * Reads the central directory of the given ZIP file.
+     *
+     * @return the central directory, or null if the file cannot be read as a plain ZIP file.
+     */
+    public static ZipCentralDirectory open(File zipFile, Charset charset) {
+        RandomAccessFile file;
+        try {
+            file = new RandomAccessFile(zipFile, "r");
+        } catch (IOException e) {
+            return null;
+        }
+        try {
+            Map<String, Entry> entries = readEntries(file.getChannel(), charset);
+            if (entries != null) {
+                return new ZipCentralDirectory(file, entries);
+            }
+        } catch (IOException e) {
+            // Not a ZIP file we can reuse entries from
+        }
+        closeQuietly(file);
+        return null;
+    }
+
+    public Entry getEntry(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Transfers the compressed data of the given entry to the target channel.
+     */
+    public void transferRawData(Entry entry, WritableByteChannel target) throws IOException {
+        ByteBuffer header = read(channel, entry.localHeaderOffset, LOCAL_FILE_HEADER_LENGTH);
+        if (header.getInt(0) != LOCAL_FILE_HEADER_SIGNATURE) {
+            throw new IOException(String.format("Unexpected local file header for ZIP entry '%s'.", entry.name));
+        }
+        long dataOffset = entry.localHeaderOffset + LOCAL_FILE_HEADER_LENGTH + unsignedShort(header, 26) + unsignedShort(header, 28);
+        long position = 0;
+        while (position < entry.compressedSize) {
+            long transferred = channel.transferTo(dataOffset + position, entry.compressedSize - position, target);
+            if (transferred <= 0) {
+                throw new IOException(String.format("Unexpected end of data for ZIP entry '%s'.", entry.name));
+            }
+            position += transferred;
+        }
+    }
+
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private static Map<String, Entry> readEntries(FileChannel channel, Charset charset) throws IOException {
+        long length = channel.size();
+        if (length < END_OF_CENTRAL_DIRECTORY_LENGTH) {
+            return null;
+        }
+        int tailLength = (int) Math.min(length, END_OF_CENTRAL_DIRECTORY_LENGTH + MAX_COMMENT_LENGTH);
+        ByteBuffer tail = read(channel, length - tailLength, tailLength);
+        int endOfCentralDirectory = -1;
+        for (int pos = tailLength - END_OF_CENTRAL_DIRECTORY_LENGTH; pos >= 0; pos--) {
+            if (tail.getInt(pos) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                endOfCentralDirectory = pos;
+                break;
+            }
+        }
+        if (endOfCentralDirectory < 0) {
+            return null;
+        }
+        int diskNumber = unsignedShort(tail, endOfCentralDirectory + 4);
+        int centralDirectoryDisk = unsignedShort(tail, endOfCentralDirectory + 6);
+        int entryCount = unsignedShort(tail, endOfCentralDirectory + 10);
+        long centralDirectorySize = unsignedInt(tail, endOfCentralDirectory + 12);
+        long centralDirectoryOffset = unsignedInt(tail, endOfCentralDirectory + 16);
+        if (diskNumber != 0 || centralDirectoryDisk != 0 || entryCount == 0xFFFF || centralDirectoryOffset == 0xFFFFFFFFL
+            || centralDirectoryOffset + centralDirectorySize > length) {
+            return null;
+        }
+
+        ByteBuffer centralDirectory = read(channel, centralDirectoryOffset, (int) centralDirectorySize);
+        Map<String, Entry> entries = new HashMap<String, Entry>(entryCount * 2);
+        int pos = 0;
+        for (int i = 0; i < entryCount; i++) {
+            if (pos + CENTRAL_FILE_HEADER_LENGTH > centralDirectory.limit() || centralDirectory.getInt(pos) != CENTRAL_FILE_HEADER_SIGNATURE) {
+                return null;
+            }
+            int flags = unsignedShort(centralDirectory, pos + 8);
+            int method = unsignedShort(centralDirectory, pos + 10);
+            long crc = unsignedInt(centralDirectory, pos + 16);
+            long compressedSize = unsignedInt(centralDirectory, pos + 20);
+            long size = unsignedInt(centralDirectory, pos + 24);
+            int nameLength = unsignedShort(centralDirectory, pos + 28);
+            int extraLength = unsignedShort(centralDirectory, pos + 30);
+            int commentLength = unsignedShort(centralDirectory, pos + 32);
+            long localHeaderOffset = unsignedInt(centralDirectory, pos + 42);
+            if ((flags & ENCRYPTED_FLAG) != 0 || compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL
+                || pos + CENTRAL_FILE_HEADER_LENGTH + nameLength > centralDirectory.limit()) {
+                return null;
+            }
+            byte[] nameBytes = new byte[nameLength];
+            centralDirectory.position(pos + CENTRAL_FILE_HEADER_LENGTH);
+            centralDirectory.get(nameBytes);
+            String name = new String(nameBytes, (flags & LANGUAGE_ENCODING_FLAG) != 0 ? UTF_8 : charset);
+            entries.put(name, new Entry(name, method, crc, compressedSize, size, localHeaderOffset));
+            pos += CENTRAL_FILE_HEADER_LENGTH + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of ZIP file.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int unsignedShort(ByteBuffer buffer, int index) {
+        return buffer.getShort(index) & 0xFFFF;
+    }
+
+    private static long unsignedInt(ByteBuffer buffer, int index) {
+        return buffer.getInt(index) & 0xFFFFFFFFL;
+    }
+
+    private static void closeQuietly(RandomAccessFile file) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    public static class Entry {
+        private final String name;
+        private final int method;
+        private final long crc;
+        private final long compressedSize;
+        private final long size;
+        private final long localHeaderOffset;
+
+        Entry(String name, int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getMethod() {
+            return method;
+        }
+
+        public long getCrc() {
+            return crc;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+}
@@ -20,12 +20,16 @@ import org.apache.tools.zip.ZipFile;
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
 import org.gradle.api.internal.file.FileSystemSubset;
 import org.gradle.api.internal.file.collections.*;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.util.PatternFilterable;
+import org.gradle.api.tasks.util.PatternSet;
 import org.gradle.internal.hash.HashUtil;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
@@ -39,18 +43,27 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree {
+/**
+ * A file tree containing the entries of a ZIP file. Entries are read directly from the ZIP file, and are only
+ * extracted to a temporary directory when {@link FileVisitDetails#getFile()} is called for them.
+ */
+public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree, PatternFilterableFileTree {
     private final File zipFile;
     private final Chmod chmod;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final File tmpDir;
+    private final PatternSet patternSet;
 
     public ZipFileTree(File zipFile, File tmpDir, Chmod chmod, DirectoryFileTreeFactory directoryFileTreeFactory) {
+        this(zipFile, new File(tmpDir, zipFile.getName() + "_" + HashUtil.createCompactMD5(zipFile.getAbsolutePath())), chmod, directoryFileTreeFactory, new PatternSet());
+    }
+
+    private ZipFileTree(File zipFile, File expandDir, Chmod chmod, DirectoryFileTreeFactory directoryFileTreeFactory, PatternSet patternSet) {
         this.zipFile = zipFile;
         this.chmod = chmod;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
-        String expandDirName = zipFile.getName() + "_" + HashUtil.createCompactMD5(zipFile.getAbsolutePath());
-        this.tmpDir = new File(tmpDir, expandDirName);
+        this.tmpDir = expandDir;
+        this.patternSet = patternSet;
     }
 
     public String getDisplayName() {
@@ -58,7 +71,18 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
     }
 
     public DirectoryFileTree getMirror() {
-        return directoryFileTreeFactory.create(tmpDir);
+        return directoryFileTreeFactory.create(tmpDir, patternSet);
+    }
+
+    /**
+     * Returns a view of this tree containing only the entries that match the given patterns. The patterns are
+     * matched against the entries of the ZIP file as they are visited, so that entries that do not match are neither
+     * visited nor extracted.
+     */
+    public ZipFileTree filter(PatternFilterable patterns) {
+        PatternSet patternSet = this.patternSet.intersect();
+        patternSet.copyFrom(patterns);
+        return new ZipFileTree(zipFile, tmpDir, chmod, directoryFileTreeFactory, patternSet);
     }
 
     public void visit(FileVisitor visitor) {
@@ -70,6 +94,7 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         }
 
         AtomicBoolean stopFlag = new AtomicBoolean();
+        Spec<FileTreeElement> spec = patternSet.isEmpty() ? null : patternSet.getAsSpec();
 
         try {
             ZipFile zip = new ZipFile(zipFile);
@@ -85,10 +110,14 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
                 Iterator<ZipEntry> sortedEntries = entriesByName.values().iterator();
                 while (!stopFlag.get() && sortedEntries.hasNext()) {
                     ZipEntry entry = sortedEntries.next();
+                    DetailsImpl details = new DetailsImpl(entry, zip, stopFlag, chmod);
+                    if (spec != null && !spec.isSatisfiedBy(details)) {
+                        continue;
+                    }
                     if (entry.isDirectory()) {
-                        visitor.visitDir(new DetailsImpl(entry, zip, stopFlag, chmod));
+                        visitor.visitDir(details);
                     } else {
-                        visitor.visitFile(new DetailsImpl(entry, zip, stopFlag, chmod));
+                        visitor.visitFile(details);
                     }
                 }
             } finally {
@@ -107,6 +136,7 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         private final ZipEntry entry;
         private final ZipFile zip;
         private final AtomicBoolean stopFlag;
+        private RelativePath relativePath;
         private File file;
 
         public DetailsImpl(ZipEntry entry, ZipFile zip, AtomicBoolean stopFlag, Chmod chmod) {
@@ -153,7 +183,10 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         }
 
         public RelativePath getRelativePath() {
-            return new RelativePath(!entry.isDirectory(), entry.getName().split("/"));
+            if (relativePath == null) {
+                relativePath = new RelativePath(!entry.isDirectory(), entry.getName().split("/"));
+            }
+            return relativePath;
         }
 
         public int getMode() {
@@ -16,6 +16,7 @@
 package org.gradle.api.internal.file.copy;
 
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.internal.reflect.Instantiator;
 
@@ -23,10 +24,16 @@ public class CopyActionExecuter {
 
     private final Instantiator instantiator;
     private final FileSystem fileSystem;
+    private final ExecutorFactory executorFactory;
 
     public CopyActionExecuter(Instantiator instantiator, FileSystem fileSystem) {
+        this(instantiator, fileSystem, null);
+    }
+
+    public CopyActionExecuter(Instantiator instantiator, FileSystem fileSystem, ExecutorFactory executorFactory) {
         this.instantiator = instantiator;
         this.fileSystem = fileSystem;
+        this.executorFactory = executorFactory;
     }
 
     public WorkResult execute(final CopySpecInternal spec, CopyAction action) {
@@ -34,7 +41,7 @@ public class CopyActionExecuter {
                 new NormalizingCopyActionDecorator(action, fileSystem)
         );
 
-        CopyActionProcessingStream processingStream = new CopySpecBackedCopyActionProcessingStream(spec, instantiator, fileSystem);
+        CopyActionProcessingStream processingStream = new CopySpecBackedCopyActionProcessingStream(spec, instantiator, fileSystem, executorFactory);
         return effectiveVisitor.execute(processingStream);
     }
 
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.file.copy;
 
 import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.internal.reflect.Instantiator;
 
@@ -25,14 +26,27 @@ public class CopySpecBackedCopyActionProcessingStream implements CopyActionProce
     private final CopySpecInternal spec;
     private final Instantiator instantiator;
     private final FileSystem fileSystem;
+    private final ExecutorFactory executorFactory;
 
     public CopySpecBackedCopyActionProcessingStream(CopySpecInternal spec, Instantiator instantiator, FileSystem fileSystem) {
+        this(spec, instantiator, fileSystem, null);
+    }
+
+    /**
+     * @param executorFactory used to walk the directory trees of the source of a spec concurrently. When null, all source trees are walked on the calling thread.
+     */
+    public CopySpecBackedCopyActionProcessingStream(CopySpecInternal spec, Instantiator instantiator, FileSystem fileSystem, ExecutorFactory executorFactory) {
         this.spec = spec;
         this.instantiator = instantiator;
         this.fileSystem = fileSystem;
+        this.executorFactory = executorFactory;
     }
 
     public void process(final CopyActionProcessingStreamAction action) {
-        spec.walk(new CopySpecActionImpl(action, instantiator, fileSystem));
+        if (executorFactory != null) {
+            new ParallelCopySpecWalker(instantiator, fileSystem, executorFactory).walk(spec, action);
+        } else {
+            spec.walk(new CopySpecActionImpl(action, instantiator, fileSystem));
+        }
     }
 }
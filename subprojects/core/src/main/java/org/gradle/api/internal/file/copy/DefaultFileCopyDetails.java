@@ -23,12 +23,15 @@ import org.gradle.api.file.DuplicatesStrategy;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
 
 import java.io.*;
 import java.util.Map;
 
 public class DefaultFileCopyDetails extends AbstractFileTreeElement implements FileVisitDetails, FileCopyDetailsInternal {
+    private static final Logger LOGGER = Logging.getLogger(DefaultFileCopyDetails.class);
     private final FileVisitDetails fileDetails;
     private final CopySpecResolver specResolver;
     private final FilterChain filterChain;
@@ -109,6 +112,23 @@ public class DefaultFileCopyDetails extends AbstractFileTreeElement implements F
         }
     }
 
+    public boolean copyToIfChanged(File target) {
+        if (filterChain.hasFilters() || fileDetails.isDirectory()) {
+            return copyTo(target);
+        }
+        long lastModified = fileDetails.getLastModified();
+        if (target.isFile() && target.length() == fileDetails.getSize() && target.lastModified() == lastModified) {
+            adaptPermissions(target);
+            return false;
+        }
+        copyTo(target);
+        if (!target.setLastModified(lastModified)) {
+            // The file is copied again by the next sync, which is all that is lost
+            LOGGER.info("Could not set modification time for '{}'.", target);
+        }
+        return true;
+    }
+
     private void adaptPermissions(File target) {
         int specMode = getMode();
         getChmod().chmod(target, specMode);
@@ -25,9 +25,15 @@ import java.io.File;
 public class FileCopyAction implements CopyAction {
 
     private final PathToFileResolver fileResolver;
+    private final boolean skipUnchangedFiles;
 
     public FileCopyAction(PathToFileResolver fileResolver) {
+        this(fileResolver, false);
+    }
+
+    public FileCopyAction(PathToFileResolver fileResolver, boolean skipUnchangedFiles) {
         this.fileResolver = fileResolver;
+        this.skipUnchangedFiles = skipUnchangedFiles;
     }
 
     public WorkResult execute(CopyActionProcessingStream stream) {
@@ -41,7 +47,7 @@ public class FileCopyAction implements CopyAction {
 
         public void processFile(FileCopyDetailsInternal details) {
             File target = fileResolver.resolve(details.getRelativePath().getPathString());
-            boolean copied = details.copyTo(target);
+            boolean copied = skipUnchangedFiles ? details.copyToIfChanged(target) : details.copyTo(target);
             if (copied) {
                 didWork = true;
             }
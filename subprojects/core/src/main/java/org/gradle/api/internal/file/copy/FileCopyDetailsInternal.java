@@ -18,8 +18,19 @@ package org.gradle.api.internal.file.copy;
 
 import org.gradle.api.file.FileCopyDetails;
 
+import java.io.File;
+
 public interface FileCopyDetailsInternal extends FileCopyDetails {
 
     boolean isIncludeEmptyDirs();
 
+    /**
+     * Copies this file to the given target, unless the target already has the same size and timestamp as this file
+     * and no content filters apply. The target's timestamp is set to this file's timestamp, so that a later copy can
+     * detect that it is unchanged.
+     *
+     * @return true if the target was written, false if it was found to be unchanged.
+     */
+    boolean copyToIfChanged(File target);
+
 }
@@ -127,6 +127,10 @@ public class NormalizingCopyActionDecorator implements CopyAction {
             throw new UnsupportedOperationException();
         }
 
+        public boolean copyToIfChanged(File target) {
+            return copyTo(target);
+        }
+
         public boolean isDirectory() {
             return !path.isFile();
         }
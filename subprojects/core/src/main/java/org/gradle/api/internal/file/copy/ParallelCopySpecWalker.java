@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy;
+
+import org.gradle.api.Action;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.internal.file.FileCollectionInternal;
+import org.gradle.api.internal.file.FileCollectionVisitor;
+import org.gradle.api.internal.file.FileTreeInternal;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.internal.reflect.Instantiator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Walks the specs of a copy spec hierarchy one at a time, in the same way as a sequential walk, but walks the directory trees that make
+ * up the source of a single spec concurrently. The files found are handed to the {@link CopyActionProcessingStreamAction} on the calling
+ * thread, in the same order as a sequential walk, so that copy actions and duplicate handling behave the same.
+ *
+ * <p>The source of each spec is resolved when its turn comes, and the next spec is only walked once all files of the previous spec have been
+ * handed on. The directory trees of a spec are only walked concurrently when neither the spec nor the trees use include or exclude specs
+ * and the spec has no copy actions, so that no build logic runs on another thread. All other sources are visited on the calling thread.</p>
+ */
+public class ParallelCopySpecWalker {
+    private static final int MAX_THREADS = 4;
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Object END_OF_WALK = new Object();
+
+    private final Instantiator instantiator;
+    private final FileSystem fileSystem;
+    private final ExecutorFactory executorFactory;
+
+    public ParallelCopySpecWalker(Instantiator instantiator, FileSystem fileSystem, ExecutorFactory executorFactory) {
+        this.instantiator = instantiator;
+        this.fileSystem = fileSystem;
+        this.executorFactory = executorFactory;
+    }
+
+    public void walk(CopySpecInternal spec, final CopyActionProcessingStreamAction action) {
+        spec.walk(new Action<CopySpecResolver>() {
+            public void execute(CopySpecResolver resolver) {
+                FileTree source = resolver.getSource();
+                FileVisitor visitor = new CopyFileVisitorImpl(resolver, action, instantiator, fileSystem);
+                List<DirectoryFileTree> trees = usesBuildLogic(resolver) ? null : getDirectoryTrees(source);
+                if (trees == null || trees.size() < 2) {
+                    source.visit(visitor);
+                } else {
+                    walkConcurrently(trees, visitor);
+                }
+            }
+        });
+    }
+
+    private void walkConcurrently(List<DirectoryFileTree> trees, FileVisitor visitor) {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        StoppableExecutor executor = executorFactory.create("copy source walker", Math.min(trees.size(), MAX_THREADS));
+        try {
+            List<DirectoryWalk> walks = new ArrayList<DirectoryWalk>(trees.size());
+            for (DirectoryFileTree tree : trees) {
+                DirectoryWalk walk = new DirectoryWalk(tree, cancelled);
+                executor.execute(walk);
+                walks.add(walk);
+            }
+            for (DirectoryWalk walk : walks) {
+                walk.replay(visitor);
+            }
+        } finally {
+            cancelled.set(true);
+            executor.stop();
+        }
+    }
+
+    private static boolean usesBuildLogic(CopySpecResolver resolver) {
+        return !resolver.getAllCopyActions().isEmpty() || !resolver.getAllIncludeSpecs().isEmpty() || !resolver.getAllExcludeSpecs().isEmpty();
+    }
+
+    /**
+     * Returns the directory trees that make up the given source, or null if the source contains anything other than directory trees
+     * or any of the directory trees uses include or exclude specs.
+     */
+    private static List<DirectoryFileTree> getDirectoryTrees(FileTree source) {
+        if (!(source instanceof FileCollectionInternal)) {
+            return null;
+        }
+        final List<DirectoryFileTree> trees = new ArrayList<DirectoryFileTree>();
+        final AtomicBoolean directoriesOnly = new AtomicBoolean(true);
+        ((FileCollectionInternal) source).visitRootElements(new FileCollectionVisitor() {
+            public void visitCollection(FileCollectionInternal fileCollection) {
+                directoriesOnly.set(false);
+            }
+
+            public void visitTree(FileTreeInternal fileTree) {
+                directoriesOnly.set(false);
+            }
+
+            public void visitDirectoryTree(DirectoryFileTree directoryTree) {
+                PatternSet patterns = directoryTree.getPatterns();
+                if (!patterns.getIncludeSpecs().isEmpty() || !patterns.getExcludeSpecs().isEmpty()) {
+                    directoriesOnly.set(false);
+                }
+                trees.add(directoryTree);
+            }
+        });
+        return directoriesOnly.get() ? trees : null;
+    }
+
+    private static class DirectoryWalk implements Runnable, FileVisitor {
+        private final DirectoryFileTree tree;
+        private final AtomicBoolean cancelled;
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<Object>(QUEUE_CAPACITY);
+
+        DirectoryWalk(DirectoryFileTree tree, AtomicBoolean cancelled) {
+            this.tree = tree;
+            this.cancelled = cancelled;
+        }
+
+        public void run() {
+            Object result = END_OF_WALK;
+            try {
+                tree.visit(this);
+            } catch (WalkCancelledException e) {
+                return;
+            } catch (Throwable t) {
+                result = t;
+            }
+            try {
+                put(result);
+            } catch (WalkCancelledException e) {
+                // Consumer has gone away
+            }
+        }
+
+        public void visitDir(FileVisitDetails dirDetails) {
+            put(dirDetails);
+        }
+
+        public void visitFile(FileVisitDetails fileDetails) {
+            put(fileDetails);
+        }
+
+        private void put(Object element) {
+            try {
+                while (!queue.offer(element, 100, TimeUnit.MILLISECONDS)) {
+                    if (cancelled.get()) {
+                        throw new WalkCancelledException();
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        void replay(FileVisitor visitor) {
+            while (true) {
+                Object next;
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+                if (next == END_OF_WALK) {
+                    return;
+                }
+                if (next instanceof Throwable) {
+                    throw UncheckedException.throwAsUncheckedException((Throwable) next);
+                }
+                FileVisitDetails details = (FileVisitDetails) next;
+                if (details.isDirectory()) {
+                    visitor.visitDir(details);
+                } else {
+                    visitor.visitFile(details);
+                }
+            }
+        }
+    }
+
+    private static class WalkCancelledException extends RuntimeException {
+    }
+}
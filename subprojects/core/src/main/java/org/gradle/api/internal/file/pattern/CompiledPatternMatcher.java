@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern;
+
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.specs.Spec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches a path against a set of patterns at once, with the same result as the union of the matchers returned by
+ * {@link PatternMatcherFactory#getPatternMatcher(boolean, boolean, String)} for each of the patterns.
+ *
+ * <p>The patterns are merged into a tree of steps, which is matched as a non-deterministic automaton one segment at a time.
+ * Patterns that share a prefix share the steps for that prefix, fixed segments are looked up rather than compared
+ * against each pattern in turn, and matching stops as soon as no pattern can match the path anymore.</p>
+ */
+public class CompiledPatternMatcher implements Spec<RelativePath> {
+    private final boolean partialMatchDirs;
+    private final Node root = new Node(false);
+    private boolean matchesEmptyPath;
+    private boolean hasNonEmptyPatterns;
+
+    public CompiledPatternMatcher(boolean partialMatchDirs, boolean caseSensitive, Collection<String> patterns) {
+        this.partialMatchDirs = partialMatchDirs;
+        for (String pattern : patterns) {
+            add(PatternMatcherFactory.split(pattern), caseSensitive);
+        }
+    }
+
+    private void add(String[] parts, boolean caseSensitive) {
+        if (parts.length == 0) {
+            // Only matches the empty path, and is never a prefix
+            matchesEmptyPath = true;
+            return;
+        }
+        hasNonEmptyPatterns = true;
+        Node node = root;
+        int pos = 0;
+        while (pos < parts.length) {
+            if (parts[pos].equals("**")) {
+                while (pos < parts.length && parts[pos].equals("**")) {
+                    pos++;
+                }
+                node = node.anySegments();
+            } else {
+                node = node.step(parts[pos], caseSensitive);
+                pos++;
+            }
+        }
+        node.terminal = true;
+    }
+
+    public boolean isSatisfiedBy(RelativePath element) {
+        String[] segments = element.getSegments();
+        boolean prefix = partialMatchDirs && !element.isFile();
+        if (segments.length == 0) {
+            if (prefix) {
+                return hasNonEmptyPatterns;
+            }
+            if (matchesEmptyPath) {
+                return true;
+            }
+        }
+
+        List<Node> current = new ArrayList<Node>(4);
+        List<Node> next = new ArrayList<Node>(4);
+        add(current, root);
+        for (String segment : segments) {
+            for (int i = 0; i < current.size(); i++) {
+                current.get(i).advance(segment, next);
+            }
+            if (next.isEmpty()) {
+                return false;
+            }
+            List<Node> tmp = current;
+            current = next;
+            next = tmp;
+            next.clear();
+        }
+
+        if (prefix) {
+            return true;
+        }
+        for (int i = 0; i < current.size(); i++) {
+            if (current.get(i).terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void add(List<Node> nodes, Node node) {
+        while (node != null && !nodes.contains(node)) {
+            nodes.add(node);
+            node = node.anySegments;
+        }
+    }
+
+    private static class Node {
+        private final boolean greedy;
+        private boolean terminal;
+        private Node anySegments;
+        private Map<String, Node> fixedSteps;
+        private Map<String, StepTransition> steps;
+
+        Node(boolean greedy) {
+            this.greedy = greedy;
+        }
+
+        Node anySegments() {
+            if (greedy) {
+                return this;
+            }
+            if (anySegments == null) {
+                anySegments = new Node(true);
+            }
+            return anySegments;
+        }
+
+        Node step(String source, boolean caseSensitive) {
+            if (caseSensitive && source.indexOf('*') < 0 && source.indexOf('?') < 0) {
+                if (fixedSteps == null) {
+                    fixedSteps = new HashMap<String, Node>();
+                }
+                Node target = fixedSteps.get(source);
+                if (target == null) {
+                    target = new Node(false);
+                    fixedSteps.put(source, target);
+                }
+                return target;
+            }
+            if (steps == null) {
+                steps = new LinkedHashMap<String, StepTransition>();
+            }
+            StepTransition transition = steps.get(source);
+            if (transition == null) {
+                transition = new StepTransition(PatternStepFactory.getStep(source, caseSensitive), new Node(false));
+                steps.put(source, transition);
+            }
+            return transition.target;
+        }
+
+        void advance(String segment, List<Node> next) {
+            if (greedy) {
+                add(next, this);
+            }
+            if (fixedSteps != null) {
+                Node target = fixedSteps.get(segment);
+                if (target != null) {
+                    add(next, target);
+                }
+            }
+            if (steps != null) {
+                for (StepTransition transition : steps.values()) {
+                    if (transition.step.matches(segment)) {
+                        add(next, transition.target);
+                    }
+                }
+            }
+        }
+    }
+
+    private static class StepTransition {
+        private final PatternStep step;
+        private final Node target;
+
+        StepTransition(PatternStep step, Node target) {
+            this.step = step;
+            this.target = target;
+        }
+    }
+}
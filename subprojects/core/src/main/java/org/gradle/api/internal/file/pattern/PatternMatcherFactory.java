@@ -20,6 +20,7 @@ import org.gradle.api.file.RelativePath;
 import org.gradle.api.specs.Spec;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class PatternMatcherFactory {
@@ -32,17 +33,27 @@ public class PatternMatcherFactory {
         return new PathMatcherBackedSpec(partialMatchDirs, pathMatcher);
     }
 
+    /**
+     * Returns a matcher for the given patterns, which is satisfied by a path when any of the patterns matches it.
+     */
+    public static Spec<RelativePath> getPatternsMatcher(boolean partialMatchDirs, boolean caseSensitive, Collection<String> patterns) {
+        return new CompiledPatternMatcher(partialMatchDirs, caseSensitive, patterns);
+    }
+
     private static PathMatcher compile(boolean caseSensitive, String pattern) {
+        return compile(split(pattern), 0, caseSensitive);
+    }
+
+    static String[] split(String pattern) {
         if (pattern.length() == 0) {
-            return END_OF_PATH_MATCHER;
+            return new String[0];
         }
 
         // trailing / or \ assumes **
         if (pattern.endsWith("/") || pattern.endsWith("\\")) {
             pattern = pattern + "**";
         }
-        String[] parts = StringUtils.split(pattern, PATH_SEPARATORS);
-        return compile(parts, 0, caseSensitive);
+        return StringUtils.split(pattern, PATH_SEPARATORS);
     }
 
     private static PathMatcher compile(String[] parts, int startIndex, boolean caseSensitive) {
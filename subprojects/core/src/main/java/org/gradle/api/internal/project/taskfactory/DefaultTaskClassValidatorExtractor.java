@@ -98,8 +98,12 @@ public class DefaultTaskClassValidatorExtractor implements TaskClassValidatorExt
     private <T> void parseProperties(final TaskPropertyInfo parent, Class<T> type, ImmutableSet.Builder<TaskPropertyInfo> validatedPropertiesBuilder, ImmutableSet.Builder<String> nonAnnotatedPropertiesBuilder, Queue<TypeEntry> queue) {
         final Map<String, DefaultTaskPropertyActionContext> propertyContexts = Maps.newHashMap();
         Types.walkTypeHierarchy(type, IGNORED_SUPER_CLASSES, new Types.TypeVisitor<T>() {
+            // The types are visited starting with the most specific one
+            private int depth;
+
             @Override
             public void visitType(Class<? super T> type) {
+                depth++;
                 Map<String, Field> fields = getFields(type);
                 Method[] methods = type.getDeclaredMethods();
                 for (Method method : methods) {
@@ -117,10 +121,10 @@ public class DefaultTaskClassValidatorExtractor implements TaskClassValidatorExt
                         propertyContext = new DefaultTaskPropertyActionContext(parent, propertyName, method);
                         propertyContexts.put(propertyName, propertyContext);
                     }
-                    propertyContext.addAnnotations(method.getDeclaredAnnotations());
+                    propertyContext.addAnnotations(method.getDeclaredAnnotations(), depth);
                     if (field != null) {
                         propertyContext.setInstanceVariableField(field);
-                        propertyContext.addAnnotations(field.getDeclaredAnnotations());
+                        propertyContext.addAnnotations(field.getDeclaredAnnotations(), depth);
                     }
                 }
             }
@@ -148,11 +152,19 @@ public class DefaultTaskClassValidatorExtractor implements TaskClassValidatorExt
     }
 
     private TaskPropertyInfo createProperty(DefaultTaskPropertyActionContext propertyContext, ImmutableSet.Builder<String> nonAnnotatedProperties) {
+        // An annotation declared by an overriding method takes precedence over the annotations declared by the overridden method
+        PropertyAnnotationHandler selected = null;
+        int selectedDepth = Integer.MAX_VALUE;
         for (PropertyAnnotationHandler handler : annotationHandlers) {
-            if (handleProperty(handler, propertyContext)) {
-                return propertyContext.createProperty();
+            int depth = propertyContext.getAnnotationDepth(handler.getAnnotationType());
+            if (depth < selectedDepth) {
+                selected = handler;
+                selectedDepth = depth;
             }
         }
+        if (selected != null && handleProperty(selected, propertyContext)) {
+            return propertyContext.createProperty();
+        }
 
         nonAnnotatedProperties.add(propertyContext.getName());
 
@@ -188,6 +200,7 @@ public class DefaultTaskClassValidatorExtractor implements TaskClassValidatorExt
         private final String name;
         private final Method method;
         private final List<Annotation> annotations = Lists.newArrayList();
+        private final List<Integer> annotationDepths = Lists.newArrayList();
         private Field instanceVariableField;
         private ValidationAction validationAction;
         private UpdateAction configureAction;
@@ -214,11 +227,29 @@ public class DefaultTaskClassValidatorExtractor implements TaskClassValidatorExt
 
         @Override
         public void addAnnotations(Annotation[] declaredAnnotations) {
+            addAnnotations(declaredAnnotations, Integer.MAX_VALUE - 1);
+        }
+
+        public void addAnnotations(Annotation[] declaredAnnotations, int depth) {
             for (Annotation annotation : declaredAnnotations) {
                 if (!isAnnotationPresent(annotation.getClass())) {
                     annotations.add(annotation);
+                    annotationDepths.add(depth);
+                }
+            }
+        }
+
+        /**
+         * Returns the depth in the type hierarchy of the most specific type that declares the given annotation, or {@link Integer#MAX_VALUE} when the annotation is not present.
+         */
+        public int getAnnotationDepth(Class<? extends Annotation> annotationType) {
+            int depth = Integer.MAX_VALUE;
+            for (int i = 0; i < annotations.size(); i++) {
+                if (annotationType.isAssignableFrom(annotations.get(i).getClass())) {
+                    depth = Math.min(depth, annotationDepths.get(i));
                 }
             }
+            return depth;
         }
 
         @Override
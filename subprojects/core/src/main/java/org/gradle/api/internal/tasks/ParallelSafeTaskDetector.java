@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks;
+
+import org.gradle.api.internal.TaskInternal;
+
+/**
+ * Decides whether a task can run at the same time as other tasks of the same project, depending on how the task is configured.
+ * Implementations are registered as global services, so that the task types themselves do not need to expose this.
+ *
+ * <p>When tasks are executed in parallel, a parallel safe task can run alongside the other tasks of its project that are also safe to run
+ * in parallel, even when intra project parallelization is not enabled. Dependencies between tasks and overlapping outputs still keep tasks apart,
+ * and a task with custom actions is never run in parallel with other tasks of its project.</p>
+ */
+public interface ParallelSafeTaskDetector {
+    /**
+     * Returns true when the actions of the given task, as currently configured, do not change any state shared with other tasks.
+     */
+    boolean isParallelSafe(TaskInternal task);
+}
@@ -36,6 +36,7 @@ import org.gradle.api.internal.file.copy.CopySpecResolver;
 import org.gradle.api.internal.file.copy.CopySpecSource;
 import org.gradle.api.internal.file.copy.DefaultCopySpec;
 import org.gradle.api.specs.Spec;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.nativeplatform.filesystem.FileSystem;
 import org.gradle.internal.reflect.Instantiator;
 
@@ -154,7 +155,9 @@ public abstract class AbstractCopyTask extends ConventionTask implements CopySpe
         Instantiator instantiator = getInstantiator();
         FileSystem fileSystem = getFileSystem();
 
-        CopyActionExecuter copyActionExecuter = new CopyActionExecuter(instantiator, fileSystem);
+        ExecutorFactory executorFactory = getServices().get(ExecutorFactory.class);
+
+        CopyActionExecuter copyActionExecuter = new CopyActionExecuter(instantiator, fileSystem, executorFactory);
         CopyAction copyAction = createCopyAction();
         WorkResult didWork = copyActionExecuter.execute(rootSpec, copyAction);
         setDidWork(didWork.getDidWork());
@@ -67,6 +67,7 @@ import java.io.File;
 public class Sync extends AbstractCopyTask {
 
     private final PatternFilterable preserveInDestination = new PatternSet();
+    private boolean skipUnchangedFiles;
 
     @Override
     protected CopyAction createCopyAction() {
@@ -74,7 +75,7 @@ public class Sync extends AbstractCopyTask {
         if (destinationDir == null) {
             throw new InvalidUserDataException("No copy destination directory has been specified, use 'into' to specify a target directory.");
         }
-        return new SyncCopyActionDecorator(destinationDir, new FileCopyAction(getFileLookup().getFileResolver(destinationDir)), preserveInDestination);
+        return new SyncCopyActionDecorator(destinationDir, new FileCopyAction(getFileLookup().getFileResolver(destinationDir), skipUnchangedFiles), preserveInDestination);
     }
 
     @Override
@@ -136,4 +137,29 @@ public class Sync extends AbstractCopyTask {
         return this;
     }
 
+    /**
+     * Returns whether files that already exist in the destination directory with the same size and modification time
+     * as the source file are left untouched. When enabled, copied files are given the modification time of their
+     * source file. Files with content filters applied are always copied. Defaults to false.
+     *
+     * @return true if unchanged files are not copied again.
+     * @since 3.2
+     */
+    @Incubating
+    @Input
+    public boolean isSkipUnchangedFiles() {
+        return skipUnchangedFiles;
+    }
+
+    /**
+     * Sets whether files that already exist in the destination directory with the same size and modification time
+     * as the source file are left untouched.
+     *
+     * @param skipUnchangedFiles true if unchanged files should not be copied again.
+     * @since 3.2
+     */
+    @Incubating
+    public void setSkipUnchangedFiles(boolean skipUnchangedFiles) {
+        this.skipUnchangedFiles = skipUnchangedFiles;
+    }
 }
@@ -19,6 +19,7 @@ import org.apache.tools.zip.ZipOutputStream;
 import org.gradle.api.Incubating;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.archive.IncrementalZipCopyAction;
 import org.gradle.api.internal.file.archive.ZipCopyAction;
 import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.DefaultZipCompressor;
@@ -39,6 +40,7 @@ public class Zip extends AbstractArchiveTask {
     private ZipEntryCompression entryCompression = ZipEntryCompression.DEFLATED;
     private boolean allowZip64;
     private String metadataCharset;
+    private boolean reuseUnchangedEntries;
 
     public Zip() {
         setExtension(ZIP_EXTENSION);
@@ -60,6 +62,10 @@ public class Zip extends AbstractArchiveTask {
     @Override
     protected CopyAction createCopyAction() {
         DocumentationRegistry documentationRegistry = getServices().get(DocumentationRegistry.class);
+        if (reuseUnchangedEntries && !allowZip64) {
+            int entryCompressionMethod = entryCompression == ZipEntryCompression.STORED ? ZipOutputStream.STORED : ZipOutputStream.DEFLATED;
+            return new IncrementalZipCopyAction(getArchivePath(), entryCompressionMethod, documentationRegistry, metadataCharset);
+        }
         return new ZipCopyAction(getArchivePath(), getCompressor(), documentationRegistry, metadataCharset);
     }
 
@@ -141,4 +147,30 @@ public class Zip extends AbstractArchiveTask {
         }
         this.metadataCharset = metadataCharset;
     }
+
+    /**
+     * Returns whether the compressed content of entries of the previous version of the archive is reused for entries
+     * whose content has not changed. When enabled, only new and changed entries are compressed when the archive is rebuilt.
+     * This option has no effect when the zip64 extension is enabled. Defaults to false.
+     *
+     * @return true if unchanged entries are reused.
+     * @since 3.2
+     */
+    @Incubating
+    @Input
+    public boolean isReuseUnchangedEntries() {
+        return reuseUnchangedEntries;
+    }
+
+    /**
+     * Sets whether the compressed content of entries of the previous version of the archive is reused for entries
+     * whose content has not changed.
+     *
+     * @param reuseUnchangedEntries true if unchanged entries should be reused.
+     * @since 3.2
+     */
+    @Incubating
+    public void setReuseUnchangedEntries(boolean reuseUnchangedEntries) {
+        this.reuseUnchangedEntries = reuseUnchangedEntries;
+    }
 }
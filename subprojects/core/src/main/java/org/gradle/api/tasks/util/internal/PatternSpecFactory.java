@@ -18,7 +18,6 @@ package org.gradle.api.tasks.util.internal;
 
 import org.apache.tools.ant.DirectoryScanner;
 import org.gradle.api.file.FileTreeElement;
-import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.RelativePathSpec;
 import org.gradle.api.internal.file.pattern.PatternMatcherFactory;
 import org.gradle.api.specs.Spec;
@@ -75,12 +74,6 @@ public class PatternSpecFactory {
             return include ? Specs.<FileTreeElement>satisfyAll() : Specs.<FileTreeElement>satisfyNone();
         }
 
-        List<Spec<RelativePath>> matchers = new ArrayList<Spec<RelativePath>>(patterns.size());
-        for (String pattern : patterns) {
-            Spec<RelativePath> patternMatcher = PatternMatcherFactory.getPatternMatcher(include, caseSensitive, pattern);
-            matchers.add(patternMatcher);
-        }
-
-        return new RelativePathSpec(Specs.union(matchers));
+        return new RelativePathSpec(PatternMatcherFactory.getPatternsMatcher(include, caseSensitive, patterns));
     }
 }
@@ -23,6 +23,7 @@ import com.google.common.collect.*;
 import org.gradle.api.*;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.tasks.CachingTaskDependencyResolveContext;
+import org.gradle.api.internal.tasks.ParallelSafeTaskDetector;
 import org.gradle.api.internal.tasks.TaskContainerInternal;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
@@ -80,18 +81,28 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private boolean tasksCancelled;
 
     private final boolean intraProjectParallelization;
+    private final List<ParallelSafeTaskDetector> parallelSafeTaskDetectors;
 
-    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization, List<ParallelSafeTaskDetector> parallelSafeTaskDetectors) {
         this.cancellationToken = cancellationToken;
         this.intraProjectParallelization = intraProjectParallelization;
+        this.parallelSafeTaskDetectors = parallelSafeTaskDetectors;
 
         if (intraProjectParallelization) {
             LOGGER.info("intra project task parallelization is enabled");
         }
     }
 
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+        this(cancellationToken, intraProjectParallelization, Collections.<ParallelSafeTaskDetector>emptyList());
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, List<ParallelSafeTaskDetector> parallelSafeTaskDetectors) {
+        this(cancellationToken, Boolean.getBoolean(INTRA_PROJECT_TOGGLE), parallelSafeTaskDetectors);
+    }
+
     public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken) {
-        this(cancellationToken, Boolean.getBoolean(INTRA_PROJECT_TOGGLE));
+        this(cancellationToken, Collections.<ParallelSafeTaskDetector>emptyList());
     }
 
     public void addToTaskGraph(Collection<? extends Task> tasks) {
@@ -581,7 +592,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     }
 
     boolean isParallelizable(TaskInternal task) {
-        if (intraProjectParallelization) {
+        if (intraProjectParallelization || !parallelSafeTaskDetectors.isEmpty()) {
             Boolean safe = isParallelSafeCache.get(task);
             if (safe == null) {
                 safe = detectIsParallelizable(task);
@@ -595,7 +606,16 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     }
 
     private boolean detectIsParallelizable(TaskInternal task) {
-        if (task.getClass().isAnnotationPresent(ParallelizableTask.class)) {
+        boolean declaredSafe = intraProjectParallelization && task.getClass().isAnnotationPresent(ParallelizableTask.class);
+        if (!declaredSafe) {
+            for (ParallelSafeTaskDetector detector : parallelSafeTaskDetectors) {
+                if (detector.isParallelSafe(task)) {
+                    declaredSafe = true;
+                    break;
+                }
+            }
+        }
+        if (declaredSafe) {
             if (task.isHasCustomActions()) {
                 LOGGER.info("Unable to parallelize task {} due to presence of custom actions (e.g. doFirst()/doLast())", task.getPath());
             } else {
@@ -37,12 +37,12 @@ class CacheCapSizerTest extends Specification {
 
         where:
         maxHeapMB | expectedCaps
-        100       | [taskArtifacts:400, compilationState:200, fileHashes:80000, fileSnapshots:2000]
-        200       | [taskArtifacts:400, compilationState:200, fileHashes:80000, fileSnapshots:2000]
-        768       | [taskArtifacts: 1600, compilationState: 800, fileHashes: 325200, fileSnapshots: 8100]
-        1024      | [taskArtifacts: 2300, fileHashes: 459900, compilationState: 1100, fileSnapshots: 11500]
-        1536      | [taskArtifacts: 3600, fileHashes: 729400, compilationState: 1800, fileSnapshots: 18200]
-        2048      | [taskArtifacts: 4900, fileHashes: 998900, compilationState: 2400, fileSnapshots: 24900]
+        100       | [taskArtifacts:400, compilationState:200, fileHashes:80000, fileSnapshots:2000, jarSnapshots:200, includeDirectives:20000, testHistory:200, testClassDetection:10000, testClasspathSnapshot:200]
+        200       | [taskArtifacts:400, compilationState:200, fileHashes:80000, fileSnapshots:2000, jarSnapshots:200, includeDirectives:20000, testHistory:200, testClassDetection:10000, testClasspathSnapshot:200]
+        768       | [taskArtifacts: 1600, compilationState: 800, fileHashes: 325200, fileSnapshots: 8100, jarSnapshots: 800, includeDirectives: 81300, testHistory: 800, testClassDetection: 40600, testClasspathSnapshot: 800]
+        1024      | [taskArtifacts: 2300, fileHashes: 459900, compilationState: 1100, fileSnapshots: 11500, jarSnapshots: 1100, includeDirectives: 114900, testHistory: 1100, testClassDetection: 57400, testClasspathSnapshot: 1100]
+        1536      | [taskArtifacts: 3600, fileHashes: 729400, compilationState: 1800, fileSnapshots: 18200, jarSnapshots: 1800, includeDirectives: 182300, testHistory: 1800, testClassDetection: 91100, testClasspathSnapshot: 1800]
+        2048      | [taskArtifacts: 4900, fileHashes: 998900, compilationState: 2400, fileSnapshots: 24900, jarSnapshots: 2400, includeDirectives: 249700, testHistory: 2400, testClassDetection: 124800, testClasspathSnapshot: 2400]
     }
 
     def "cache cap sizer honors reserved space when specified"() {
@@ -58,11 +58,19 @@ class CacheCapSizerTest extends Specification {
 
         where:
         maxHeapMB | reserved | expectedCaps
-        100       | 50       | [taskArtifacts: 400, compilationState: 200, fileHashes: 80000, fileSnapshots: 2000]
-        200       | 200      | [taskArtifacts: 400, compilationState: 200, fileHashes: 80000, fileSnapshots: 2000]
-        968       | 200      | [taskArtifacts: 1600, compilationState: 800, fileHashes: 325200, fileSnapshots: 8100]
-        1224      | 200      | [taskArtifacts: 2300, fileHashes: 459900, compilationState: 1100, fileSnapshots: 11500]
-        2036      | 500      | [taskArtifacts: 3600, fileHashes: 729400, compilationState: 1800, fileSnapshots: 18200]
-        4096      | 2048     | [taskArtifacts: 4900, fileHashes: 998900, compilationState: 2400, fileSnapshots: 24900]
+        100       | 50       | [taskArtifacts: 400, compilationState: 200, fileHashes: 80000, fileSnapshots: 2000, jarSnapshots: 200, includeDirectives: 20000, testHistory: 200, testClassDetection: 10000, testClasspathSnapshot: 200]
+        200       | 200      | [taskArtifacts: 400, compilationState: 200, fileHashes: 80000, fileSnapshots: 2000, jarSnapshots: 200, includeDirectives: 20000, testHistory: 200, testClassDetection: 10000, testClasspathSnapshot: 200]
+        968       | 200      | [taskArtifacts: 1600, compilationState: 800, fileHashes: 325200, fileSnapshots: 8100, jarSnapshots: 800, includeDirectives: 81300, testHistory: 800, testClassDetection: 40600, testClasspathSnapshot: 800]
+        1224      | 200      | [taskArtifacts: 2300, fileHashes: 459900, compilationState: 1100, fileSnapshots: 11500, jarSnapshots: 1100, includeDirectives: 114900, testHistory: 1100, testClassDetection: 57400, testClasspathSnapshot: 1100]
+        2036      | 500      | [taskArtifacts: 3600, fileHashes: 729400, compilationState: 1800, fileSnapshots: 18200, jarSnapshots: 1800, includeDirectives: 182300, testHistory: 1800, testClassDetection: 91100, testClasspathSnapshot: 1800]
+        4096      | 2048     | [taskArtifacts: 4900, fileHashes: 998900, compilationState: 2400, fileSnapshots: 24900, jarSnapshots: 2400, includeDirectives: 249700, testHistory: 2400, testClassDetection: 124800, testClasspathSnapshot: 2400]
+    }
+
+    def "provides a cap size for every cache of the test task"() {
+        expect:
+        new CacheCapSizer(1024).getMaxSize(cacheName) > 0
+
+        where:
+        cacheName << ["testHistory", "testClassDetection", "testClasspathSnapshot"]
     }
 }
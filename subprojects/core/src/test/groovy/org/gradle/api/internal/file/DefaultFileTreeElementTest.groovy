@@ -36,4 +36,17 @@ class DefaultFileTreeElementTest extends Specification {
         expect:
         e.mode == 0644
     }
+
+    def "copies file content to target file"() {
+        def f = tmpDir.createFile("f")
+        f.text = "some content"
+        def target = tmpDir.file("dest/f")
+        def e = new DefaultFileTreeElement(f, null, Stub(Chmod), Stub(Stat))
+
+        when:
+        e.copyTo(target)
+
+        then:
+        target.text == "some content"
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive
+
+import org.apache.tools.zip.ZipOutputStream
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static org.gradle.api.file.FileVisitorUtil.assertVisitsPermissions
+import static org.gradle.api.internal.file.TestFiles.directoryFileTreeFactory
+import static org.gradle.api.internal.file.TestFiles.fileSystem
+import static org.hamcrest.Matchers.equalTo
+
+class IncrementalZipCopyActionTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    TestFile zipFile
+
+    def setup() {
+        zipFile = tmpDir.getTestDirectory().file("test.zip")
+    }
+
+    @Unroll
+    def "creates zip file using compression method #method"() {
+        given:
+        zip(method, dir("dir"), file("dir/file1"), file("file2"))
+
+        when:
+        TestFile expandDir = tmpDir.getTestDirectory().file("expanded")
+        zipFile.unzipTo(expandDir)
+
+        then:
+        expandDir.file("dir/file1").assertContents(equalTo("contents of dir/file1"))
+        expandDir.file("file2").assertContents(equalTo("contents of file2"))
+        !tmpDir.getTestDirectory().file("test.zip.tmp").exists()
+
+        where:
+        method << [ZipOutputStream.DEFLATED, ZipOutputStream.STORED]
+    }
+
+    def "zip file contains expected permissions"() {
+        given:
+        zip(ZipOutputStream.DEFLATED, dir("dir"), file("file"))
+
+        expect:
+        assertVisitsPermissions(new ZipFileTree(zipFile, null, fileSystem(), directoryFileTreeFactory()), [dir: 2, file: 1])
+    }
+
+    @Unroll
+    def "reuses compressed content of unchanged entries using compression method #method"() {
+        given:
+        zip(method, file("unchanged"), file("changed"))
+        def unchanged = Mock(FileCopyDetailsInternal)
+        def changed = Mock(FileCopyDetailsInternal)
+
+        when:
+        zip(method, unchanged, changed)
+
+        then:
+        _ * unchanged.getRelativePath() >> RelativePath.parse(true, "unchanged")
+        _ * unchanged.getLastModified() >> 1000L
+        _ * unchanged.getMode() >> 1
+        1 * unchanged.copyTo(_ as OutputStream) >> { OutputStream out -> out << "contents of unchanged" }
+        _ * changed.getRelativePath() >> RelativePath.parse(true, "changed")
+        _ * changed.getLastModified() >> 1000L
+        _ * changed.getMode() >> 1
+        2 * changed.copyTo(_ as OutputStream) >> { OutputStream out -> out << "new contents" }
+
+        and:
+        TestFile expandDir = tmpDir.getTestDirectory().file("expanded")
+        zipFile.unzipTo(expandDir)
+        expandDir.file("unchanged").assertContents(equalTo("contents of unchanged"))
+        expandDir.file("changed").assertContents(equalTo("new contents"))
+
+        where:
+        method << [ZipOutputStream.DEFLATED, ZipOutputStream.STORED]
+    }
+
+    def "compresses entries again when the previous archive is not a zip file"() {
+        given:
+        zipFile.text = "not a zip"
+
+        when:
+        zip(ZipOutputStream.DEFLATED, file("file"))
+
+        then:
+        TestFile expandDir = tmpDir.getTestDirectory().file("expanded")
+        zipFile.unzipTo(expandDir)
+        expandDir.file("file").assertContents(equalTo("contents of file"))
+    }
+
+    def "wraps failure to add element"() {
+        given:
+        Throwable failure = new RuntimeException("broken")
+        def brokenFile = Mock(FileCopyDetailsInternal)
+        brokenFile.getRelativePath() >> RelativePath.parse(true, "dir/file1")
+        brokenFile.copyTo(_ as OutputStream) >> { OutputStream out -> throw failure }
+
+        when:
+        zip(ZipOutputStream.DEFLATED, brokenFile)
+
+        then:
+        def e = thrown(Exception)
+        e.message == String.format("Could not add $brokenFile to ZIP '%s'.", zipFile)
+        e.cause.is(failure)
+        !tmpDir.getTestDirectory().file("test.zip.tmp").exists()
+    }
+
+    private void zip(int method, final FileCopyDetailsInternal... files) {
+        new IncrementalZipCopyAction(zipFile, method, new DocumentationRegistry(), "UTF-8").execute(new CopyActionProcessingStream() {
+            public void process(CopyActionProcessingStreamAction action) {
+                for (FileCopyDetailsInternal f : files) {
+                    action.processFile(f);
+                }
+            }
+        })
+    }
+
+    private FileCopyDetailsInternal file(final String path) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(true, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> false
+        mock.getMode() >> 1
+        mock.copyTo(_ as OutputStream) >> { OutputStream out ->
+            out << "contents of $path"
+        }
+        mock
+    }
+
+    private FileCopyDetailsInternal dir(final String path) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> true
+        mock.getMode() >> 2
+        mock
+    }
+}
@@ -17,12 +17,16 @@ package org.gradle.api.internal.file.archive;
 
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.EmptyFileVisitor;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.tasks.util.PatternSet;
 import org.gradle.test.fixtures.file.TestFile;
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider;
 import org.gradle.util.Resources;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -58,6 +62,29 @@ public class ZipFileTreeTest {
         assertSetContainsForAllTypes(tree, toList("subdir/file1.txt", "subdir2/file2.txt"));
     }
 
+    @Test
+    public void visitsAndExtractsOnlyEntriesMatchingPatterns() {
+        rootDir.file("subdir/file1.txt").write("content");
+        rootDir.file("subdir/file2.class").write("content");
+        rootDir.file("subdir2/file3.txt").write("content");
+        rootDir.zipTo(zipFile);
+
+        ZipFileTree filtered = tree.filter(new PatternSet().include("**/*.txt"));
+
+        assertVisits(filtered, toList("subdir/file1.txt", "subdir2/file3.txt"), Collections.<String>emptyList());
+
+        filtered.visit(new EmptyFileVisitor() {
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                fileDetails.getFile();
+            }
+        });
+        TestFile extracted = new TestFile(filtered.getMirror().getDir());
+        extracted.file("subdir/file1.txt").assertIsFile();
+        extracted.file("subdir2/file3.txt").assertIsFile();
+        extracted.file("subdir/file2.class").assertDoesNotExist();
+    }
+
     @Test
     public void canStopVisitingFiles() {
         rootDir.file("subdir/file1.txt").write("content");
@@ -54,6 +54,25 @@ public class FileCopyActionTest {
         );
     }
 
+    @Test
+    public void copyOnlyChangedFiles() {
+        FileCopyAction visitor = new FileCopyAction(TestFiles.resolver(destDir), true);
+        visit(visitor,
+                changedFile(new RelativePath(true, "rootfile.txt"), new File(destDir, "rootfile.txt")),
+                changedFile(new RelativePath(true, "subdir", "anotherfile.txt"), new File(destDir, "subdir/anotherfile.txt"))
+        );
+    }
+
+    private FileCopyDetailsInternal changedFile(final RelativePath relativePath, final File targetFile) {
+        final FileCopyDetailsInternal details = context.mock(FileCopyDetailsInternal.class, relativePath.getPathString());
+        context.checking(new Expectations() {{
+            allowing(details).getRelativePath();
+            will(returnValue(relativePath));
+            one(details).copyToIfChanged(targetFile);
+        }});
+        return details;
+    }
+
     private FileCopyDetailsInternal file(final RelativePath relativePath, final File targetFile) {
         final FileCopyDetailsInternal details = context.mock(FileCopyDetailsInternal.class, relativePath.getPathString());
         context.checking(new Expectations() {{
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy
+
+import org.gradle.api.Action
+import org.gradle.api.file.EmptyFileVisitor
+import org.gradle.api.file.FileTree
+import org.gradle.api.file.FileTreeElement
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction
+import org.gradle.api.internal.file.FileTreeInternal
+import org.gradle.api.internal.file.UnionFileTree
+import org.gradle.api.internal.file.collections.FileTreeAdapter
+import org.gradle.api.internal.file.collections.MapFileTree
+import org.gradle.api.specs.Spec
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.reflect.DirectInstantiator
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.api.internal.file.TestFiles.directoryFileTreeFactory
+import static org.gradle.api.internal.file.TestFiles.fileSystem
+
+class ParallelCopySpecWalkerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def executorFactory = new DefaultExecutorFactory()
+    def walker = new ParallelCopySpecWalker(DirectInstantiator.INSTANCE, fileSystem(), executorFactory)
+    def visited = []
+    def action = { FileCopyDetailsInternal details -> visited << details.relativePath.pathString } as CopyActionProcessingStreamAction
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "visits files of all specs in the same order as a sequential walk"() {
+        given:
+        def trees = (1..5).collect { i ->
+            def dir = tmpDir.createDir("dir$i")
+            (1..20).each { j ->
+                dir.createFile("sub$j/file${i}_${j}.txt")
+            }
+            new FileTreeAdapter(directoryFileTreeFactory().create(dir))
+        }
+        def sources = [new UnionFileTree(trees[0..2] as FileTreeInternal[]), trees[3], new UnionFileTree(trees[4])]
+
+        when:
+        walker.walk(spec(sources), action)
+
+        then:
+        visited == sequentialOrder(sources)
+    }
+
+    def "visits sources that are not directory trees on the calling thread"() {
+        given:
+        def dir1 = tmpDir.createDir("dir1")
+        dir1.createFile("a.txt")
+        def dir2 = tmpDir.createDir("dir2")
+        dir2.createFile("b.txt")
+        def mapTree = new MapFileTree(tmpDir.createDir("tmp"), fileSystem())
+        mapTree.add("c.txt") { OutputStream out -> out << "content" }
+        def sources = [
+            new UnionFileTree(new FileTreeAdapter(directoryFileTreeFactory().create(dir1)), new FileTreeAdapter(mapTree),
+                new FileTreeAdapter(directoryFileTreeFactory().create(dir2)))
+        ]
+
+        when:
+        walker.walk(spec(sources), action)
+
+        then:
+        visited == ["a.txt", "c.txt", "b.txt"]
+    }
+
+    def "evaluates include specs of a spec on the calling thread"() {
+        given:
+        def trees = (1..2).collect { i ->
+            def dir = tmpDir.createDir("dir$i")
+            dir.createFile("file${i}.txt")
+            new FileTreeAdapter(directoryFileTreeFactory().create(dir))
+        }
+        def threads = [] as Set
+        def includeSpec = { threads << Thread.currentThread(); true } as Spec<FileTreeElement>
+        def filtered = new UnionFileTree(trees as FileTreeInternal[]).matching(new PatternSet().include(includeSpec))
+
+        when:
+        walker.walk(spec([filtered], [includeSpec]), action)
+
+        then:
+        visited == ["file1.txt", "file2.txt"]
+        threads == [Thread.currentThread()] as Set
+    }
+
+    def "resolves the source of each spec when its turn comes"() {
+        given:
+        def dir = tmpDir.createDir("dir")
+        dir.createFile("a.txt")
+        def tree = new FileTreeAdapter(directoryFileTreeFactory().create(dir))
+        def resolved = []
+        def resolver1 = resolver { resolved << "1:" + visited.size(); tree }
+        def resolver2 = resolver { resolved << "2:" + visited.size(); tree }
+        def spec = Stub(CopySpecInternal) {
+            walk(_) >> { Action<? super CopySpecResolver> visitor -> [resolver1, resolver2].each { visitor.execute(it) } }
+        }
+
+        when:
+        walker.walk(spec, action)
+
+        then:
+        resolved == ["1:0", "2:1"]
+    }
+
+    private CopySpecInternal spec(List<FileTree> sources, List<Spec<FileTreeElement>> includeSpecs = []) {
+        def resolvers = sources.collect { source -> resolver({ source }, includeSpecs) }
+        Stub(CopySpecInternal) {
+            walk(_) >> { Action<? super CopySpecResolver> visitor -> resolvers.each { visitor.execute(it) } }
+        }
+    }
+
+    private CopySpecResolver resolver(Closure<FileTree> source, List<Spec<FileTreeElement>> includeSpecs = []) {
+        Stub(CopySpecResolver) {
+            getSource() >> { source.call() }
+            getAllCopyActions() >> []
+            getAllIncludeSpecs() >> includeSpecs
+            getDestPath() >> new RelativePath(false)
+            getFilteringCharset() >> "UTF-8"
+        }
+    }
+
+    private static List<String> sequentialOrder(List<FileTree> sources) {
+        def paths = []
+        sources.each { source ->
+            source.visit(new EmptyFileVisitor() {
+                @Override
+                void visitDir(FileVisitDetails dirDetails) {
+                    paths << dirDetails.relativePath.pathString
+                }
+
+                @Override
+                void visitFile(FileVisitDetails fileDetails) {
+                    paths << fileDetails.relativePath.pathString
+                }
+            })
+        }
+        paths
+    }
+}
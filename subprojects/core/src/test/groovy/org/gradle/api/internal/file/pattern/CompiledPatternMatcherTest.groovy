@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern
+
+import org.apache.tools.ant.DirectoryScanner
+import org.gradle.api.file.RelativePath
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CompiledPatternMatcherTest extends Specification {
+    def "matches files against any of the patterns"() {
+        def matcher = new CompiledPatternMatcher(false, true, ["**/*.java", "a/b", "src/**/test/*.groovy"])
+
+        expect:
+        matcher.isSatisfiedBy(file("A.java"))
+        matcher.isSatisfiedBy(file("x/y/A.java"))
+        matcher.isSatisfiedBy(file("a/b"))
+        matcher.isSatisfiedBy(file("src/test/A.groovy"))
+        matcher.isSatisfiedBy(file("src/main/test/A.groovy"))
+
+        !matcher.isSatisfiedBy(file("A.groovy"))
+        !matcher.isSatisfiedBy(file("a/b/c"))
+        !matcher.isSatisfiedBy(file("src/test/x/A.groovy"))
+    }
+
+    def "matches directories that may contain matching files when partially matching directories"() {
+        def matcher = new CompiledPatternMatcher(true, true, ["a/b/c", "src/**/*.java"])
+
+        expect:
+        matcher.isSatisfiedBy(dir("a"))
+        matcher.isSatisfiedBy(dir("a/b"))
+        matcher.isSatisfiedBy(dir("a/b/c"))
+        matcher.isSatisfiedBy(dir("src"))
+        matcher.isSatisfiedBy(dir("src/x/y"))
+
+        !matcher.isSatisfiedBy(dir("b"))
+        !matcher.isSatisfiedBy(dir("a/c"))
+        !matcher.isSatisfiedBy(dir("a/b/c/d"))
+    }
+
+    def "matches fixed segments ignoring case"() {
+        def matcher = new CompiledPatternMatcher(false, false, ["**/CVS/**", "a/B"])
+
+        expect:
+        matcher.isSatisfiedBy(file("x/cvs/y"))
+        matcher.isSatisfiedBy(file("A/b"))
+        !matcher.isSatisfiedBy(file("x/cvsy"))
+    }
+
+    def "empty pattern matches empty path only"() {
+        expect:
+        new CompiledPatternMatcher(false, true, [""]).isSatisfiedBy(new RelativePath(false))
+        !new CompiledPatternMatcher(true, true, [""]).isSatisfiedBy(new RelativePath(false))
+        !new CompiledPatternMatcher(false, true, [""]).isSatisfiedBy(file("a"))
+        !new CompiledPatternMatcher(false, true, []).isSatisfiedBy(file("a"))
+    }
+
+    @Unroll
+    def "matches the same paths as a matcher per pattern for #patterns"() {
+        expect:
+        [true, false].each { partialMatchDirs ->
+            [true, false].each { caseSensitive ->
+                def matcher = new CompiledPatternMatcher(partialMatchDirs, caseSensitive, patterns)
+                def perPattern = patterns.collect { PatternMatcherFactory.getPatternMatcher(partialMatchDirs, caseSensitive, it) }
+                paths.each { path ->
+                    [file(path), dir(path)].each { relativePath ->
+                        assert matcher.isSatisfiedBy(relativePath) == perPattern.any { it.isSatisfiedBy(relativePath) }
+                    }
+                }
+            }
+        }
+
+        where:
+        patterns << [
+            ["**"],
+            ["/"],
+            ["a/"],
+            ["*", "a/b"],
+            ["a/**/b", "a/*/b", "a/b/**"],
+            ["**/a?/**", "**/*.txt", "**/**/c"],
+            ["a", "A", "a/**/**/b"],
+            DirectoryScanner.defaultExcludes as List
+        ]
+        paths = ["a", "A", "b", "a/b", "a/B", "a/x/b", "a/x/y/b", "a/b/c", "ab/c", "x.txt", "c/d/x.txt", "CVS", "x/.git/y", "x/.gitignore", "a~"]
+    }
+
+    private static RelativePath file(String path) {
+        return RelativePath.parse(true, path)
+    }
+
+    private static RelativePath dir(String path) {
+        return RelativePath.parse(false, path)
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.api.internal.project.taskfactory
 
 import org.gradle.api.DefaultTask
 import org.gradle.api.file.FileCollection
+import org.gradle.api.tasks.InputFiles
 import spock.lang.Specification
 
 import java.lang.annotation.Annotation
@@ -27,6 +28,14 @@ class DefaultTaskClassValidatorExtractorTest extends Specification {
         @SearchPath FileCollection searchPath;
     }
 
+    class TaskWithInputFiles extends DefaultTask {
+        @InputFiles FileCollection getSearchPath() { null }
+    }
+
+    class TaskOverridingInputFiles extends TaskWithInputFiles {
+        @Override @SearchPath FileCollection getSearchPath() { null }
+    }
+
     class SearchPathAnnotationHandler implements PropertyAnnotationHandler {
         private final UpdateAction configureAction
 
@@ -56,4 +65,18 @@ class DefaultTaskClassValidatorExtractorTest extends Specification {
         validator.validatedProperties*.name as List == ["searchPath"]
         validator.validatedProperties[0].configureAction == configureAction
     }
+
+    def "annotation on overriding method takes precedence"() {
+        def configureAction = Mock(UpdateAction)
+        def annotationHandler = new SearchPathAnnotationHandler(configureAction)
+        def extractor = new DefaultTaskClassValidatorExtractor(annotationHandler)
+
+        expect:
+        def validator = extractor.extractValidator(TaskOverridingInputFiles)
+        validator.validatedProperties*.name as List == ["searchPath"]
+        validator.validatedProperties[0].configureAction == configureAction
+
+        def baseValidator = extractor.extractValidator(TaskWithInputFiles)
+        baseValidator.validatedProperties[0].configureAction != configureAction
+    }
 }
@@ -19,7 +19,9 @@ package org.gradle.execution.taskgraph
 import org.gradle.api.DefaultTask
 import org.gradle.api.Project
 import org.gradle.api.Task
+import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.tasks.ParallelSafeTaskDetector
 import org.gradle.api.tasks.Delete
 import org.gradle.api.tasks.OutputDirectory
 import org.gradle.api.tasks.OutputFile
@@ -83,6 +85,17 @@ class DefaultTaskExecutionPlanParallelTaskHandlingTest extends AbstractProjectBu
 
     static class ParallelChild extends Parallel {}
 
+    static class ParallelSafe extends DefaultTask {
+        boolean parallelSafe = true
+    }
+
+    static class ParallelSafeDetector implements ParallelSafeTaskDetector {
+        @Override
+        boolean isParallelSafe(TaskInternal task) {
+            return task instanceof ParallelSafe && task.parallelSafe
+        }
+    }
+
     Thread blockedThread(Runnable target) {
         def thread = new Thread(target)
 
@@ -99,7 +112,7 @@ class DefaultTaskExecutionPlanParallelTaskHandlingTest extends AbstractProjectBu
 
     def "tasks arent parallelized unless toggle is on"() {
         given:
-        executionPlan = new DefaultTaskExecutionPlan(Stub(BuildCancellationToken), false)
+        executionPlan = new DefaultTaskExecutionPlan(Stub(BuildCancellationToken), false, [new ParallelSafeDetector()])
         Task a = root.task("a")
         Task b = root.task("b")
 
@@ -113,6 +126,49 @@ class DefaultTaskExecutionPlanParallelTaskHandlingTest extends AbstractProjectBu
         noMoreTasksCurrentlyAvailableForExecution()
     }
 
+    def "parallel safe tasks are parallelized when toggle is off"() {
+        given:
+        executionPlan = new DefaultTaskExecutionPlan(Stub(BuildCancellationToken), false, [new ParallelSafeDetector()])
+        Task a = root.task("a", type: ParallelSafe)
+        Task b = root.task("b", type: ParallelSafe)
+
+        when:
+        addToGraphAndPopulate(a, b)
+
+        then:
+        startTasks(2)
+    }
+
+    def "parallel safe tasks are not parallelized with other tasks of the project when toggle is off"() {
+        given:
+        executionPlan = new DefaultTaskExecutionPlan(Stub(BuildCancellationToken), false, [new ParallelSafeDetector()])
+        Task a = root.task("a", type: ParallelSafe)
+        Task b = root.task("b")
+
+        when:
+        addToGraphAndPopulate(a, b)
+        startTasks(1)
+
+        then:
+        noMoreTasksCurrentlyAvailableForExecution()
+    }
+
+    def "parallel safe tasks are not parallelized when configured to be unsafe or with custom actions"() {
+        given:
+        executionPlan = new DefaultTaskExecutionPlan(Stub(BuildCancellationToken), false, [new ParallelSafeDetector()])
+        Task a = root.task("a", type: ParallelSafe)
+        Task b = root.task("b", type: ParallelSafe).doLast {}
+        Task c = root.task("c", type: ParallelSafe)
+        c.parallelSafe = false
+
+        when:
+        addToGraphAndPopulate(a, b, c)
+        startTasks(1)
+
+        then:
+        noMoreTasksCurrentlyAvailableForExecution()
+    }
+
     def "two dependent parallelizable tasks are not executed in parallel"() {
         given:
         Task a = root.task("a", type: Parallel)
@@ -299,6 +299,33 @@ class SyncTaskIntegrationTest extends AbstractIntegrationSpec {
         !file('dest/nonPreservedDir').isDirectory()
     }
 
+    def 'unchanged files are not copied again when skipUnchangedFiles is enabled'() {
+        given:
+        defaultSourceFileTree()
+        buildScript '''
+            task sync(type: Sync) {
+                into 'dest'
+                from 'source'
+                skipUnchangedFiles = true
+            }
+        '''.stripIndent()
+
+        when:
+        run 'sync'
+
+        then:
+        file('dest/dir1/file1.txt').lastModified() == file('source/dir1/file1.txt').lastModified()
+
+        when:
+        def unchanged = file('dest/dir2/file3.txt').snapshot()
+        file('source/dir1/file1.txt').text = 'new content'
+        run 'sync'
+
+        then:
+        file('dest/dir1/file1.txt').text == 'new content'
+        file('dest/dir2/file3.txt').assertHasNotChangedSince(unchanged)
+    }
+
     def defaultSourceFileTree() {
         file('source').create {
             dir1 { file 'file1.txt' }
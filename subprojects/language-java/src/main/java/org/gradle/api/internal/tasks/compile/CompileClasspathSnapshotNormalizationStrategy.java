@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.FileDetails;
+import org.gradle.api.internal.changedetection.state.FileHashSnapshot;
+import org.gradle.api.internal.changedetection.state.IgnoredPathFileSnapshot;
+import org.gradle.api.internal.changedetection.state.IncrementalFileSnapshot;
+import org.gradle.api.internal.changedetection.state.NormalizedFileSnapshot;
+import org.gradle.api.internal.changedetection.state.SnapshotNormalizationStrategy;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.gradle.api.internal.changedetection.state.TaskFilePropertySnapshotNormalizationStrategy.getRelativeSnapshot;
+
+/**
+ * Normalizes a Java compile classpath, so that only changes to the ABI of the classes on the classpath are detected. Paths are
+ * normalized in the same way as for any other classpath, while the content of class files and jars is replaced by a hash of
+ * the ABI of the classes they contain.
+ *
+ * <p>Jars and class directories that declare an annotation processor are snapshot using their full content, as the
+ * implementation of an annotation processor affects the result of the compilation. Other files are also snapshot using
+ * their full content.</p>
+ *
+ * <p>The ABI hashes are cached in memory by the content hash of the jar or class file.</p>
+ */
+public class CompileClasspathSnapshotNormalizationStrategy implements SnapshotNormalizationStrategy {
+    private static final Logger LOGGER = Logging.getLogger(CompileClasspathSnapshotNormalizationStrategy.class);
+    private static final String PROCESSOR_DECLARATION = "META-INF/services/javax.annotation.processing.Processor";
+    private static final int MAX_CACHED_HASHES = 100000;
+
+    private final DefaultClassDependenciesAnalyzer analyzer = new DefaultClassDependenciesAnalyzer();
+    private final Cache<HashCode, HashCode> abiHashes = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_HASHES).build();
+
+    @Override
+    public boolean isPathAbsolute() {
+        return false;
+    }
+
+    @Override
+    public NormalizedFileSnapshot getNormalizedSnapshot(FileDetails fileDetails, IncrementalFileSnapshot snapshot, StringInterner stringInterner) {
+        IncrementalFileSnapshot abiSnapshot = fileDetails.getType() == FileDetails.FileType.RegularFile ? getAbiSnapshot(fileDetails, snapshot) : snapshot;
+        // Ignore path of root files and directories
+        if (fileDetails.isRoot()) {
+            return new IgnoredPathFileSnapshot(abiSnapshot);
+        }
+        return getRelativeSnapshot(fileDetails, abiSnapshot, stringInterner);
+    }
+
+    private IncrementalFileSnapshot getAbiSnapshot(FileDetails fileDetails, IncrementalFileSnapshot snapshot) {
+        final File file = new File(fileDetails.getPath());
+        final HashCode contentHash = snapshot.getHash();
+        if (fileDetails.isRoot() && fileDetails.getName().endsWith(".jar")) {
+            return new FileHashSnapshot(getAbiHash(contentHash, new Callable<HashCode>() {
+                @Override
+                public HashCode call() {
+                    return hashJar(file, contentHash);
+                }
+            }));
+        }
+        if (!fileDetails.isRoot() && fileDetails.getName().endsWith(".class") && !declaresProcessor(file, fileDetails.getRelativePath().getSegments().length)) {
+            final String className = fileDetails.getRelativePath().getPathString().replace('/', '.').replaceAll("\\.class$", "");
+            return new FileHashSnapshot(getAbiHash(contentHash, new Callable<HashCode>() {
+                @Override
+                public HashCode call() {
+                    return hashClassFile(file, className, contentHash);
+                }
+            }));
+        }
+        return snapshot;
+    }
+
+    private HashCode getAbiHash(HashCode contentHash, Callable<HashCode> hasher) {
+        try {
+            return abiHashes.get(contentHash, hasher);
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
+    private static boolean declaresProcessor(File classFile, int depth) {
+        File root = classFile;
+        for (int i = 0; i < depth; i++) {
+            root = root.getParentFile();
+        }
+        return new File(root, PROCESSOR_DECLARATION).isFile();
+    }
+
+    private HashCode hashClassFile(File file, String className, HashCode contentHash) {
+        try {
+            return analyzer.getClassAnalysis(className, file).getAbiHash();
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not calculate the ABI of class file {}, using its full content instead.", file, e);
+            return contentHash;
+        }
+    }
+
+    private HashCode hashJar(File jar, HashCode contentHash) {
+        try {
+            ZipFile zipFile = new ZipFile(jar);
+            try {
+                if (zipFile.getEntry(PROCESSOR_DECLARATION) != null) {
+                    return contentHash;
+                }
+                List<ZipEntry> classEntries = Lists.newArrayList();
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && entry.getName().endsWith(".class")) {
+                        classEntries.add(entry);
+                    }
+                }
+                Collections.sort(classEntries, new Comparator<ZipEntry>() {
+                    @Override
+                    public int compare(ZipEntry o1, ZipEntry o2) {
+                        return o1.getName().compareTo(o2.getName());
+                    }
+                });
+
+                Hasher hasher = Hashing.md5().newHasher();
+                for (ZipEntry entry : classEntries) {
+                    String className = entry.getName().replace('/', '.').replaceAll("\\.class$", "");
+                    InputStream inputStream = zipFile.getInputStream(entry);
+                    try {
+                        hasher.putString(entry.getName(), Charsets.UTF_8);
+                        hasher.putBytes(analyzer.getClassAnalysis(className, inputStream).getAbiHash().asBytes());
+                    } finally {
+                        inputStream.close();
+                    }
+                }
+                return hasher.hash();
+            } finally {
+                zipFile.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not calculate the ABI of jar {}, using its full content instead.", jar, e);
+            return contentHash;
+        }
+    }
+}
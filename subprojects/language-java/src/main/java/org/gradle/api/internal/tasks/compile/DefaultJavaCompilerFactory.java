@@ -24,14 +24,22 @@ import javax.tools.JavaCompiler;
 import java.io.File;
 
 public class DefaultJavaCompilerFactory implements JavaCompilerFactory {
+    public static final String REUSE_FILE_MANAGER_TOGGLE = "org.gradle.java.compile.reuseFileManager";
+
     private final File daemonWorkingDir;
     private final CompilerDaemonFactory compilerDaemonFactory;
     private final Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory;
+    private final boolean reuseFileManager;
 
     public DefaultJavaCompilerFactory(File daemonWorkingDir, CompilerDaemonFactory compilerDaemonFactory, Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory) {
+        this(daemonWorkingDir, compilerDaemonFactory, javaHomeBasedJavaCompilerFactory, Boolean.getBoolean(REUSE_FILE_MANAGER_TOGGLE));
+    }
+
+    public DefaultJavaCompilerFactory(File daemonWorkingDir, CompilerDaemonFactory compilerDaemonFactory, Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory, boolean reuseFileManager) {
         this.daemonWorkingDir = daemonWorkingDir;
         this.compilerDaemonFactory = compilerDaemonFactory;
         this.javaHomeBasedJavaCompilerFactory = javaHomeBasedJavaCompilerFactory;
+        this.reuseFileManager = reuseFileManager;
     }
 
     @Override
@@ -54,7 +62,7 @@ public class DefaultJavaCompilerFactory implements JavaCompilerFactory {
             return new CommandLineJavaCompiler();
         }
 
-        Compiler<JavaCompileSpec> compiler = new JdkJavaCompiler(javaHomeBasedJavaCompilerFactory);
+        Compiler<JavaCompileSpec> compiler = new JdkJavaCompiler(javaHomeBasedJavaCompilerFactory, reuseFileManager);
         if (ForkingJavaCompileSpec.class.isAssignableFrom(type) && !jointCompilation) {
             return new DaemonJavaCompiler(daemonWorkingDir, compiler, compilerDaemonFactory);
         }
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.base.Objects;
+import org.gradle.api.Nullable;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the file managers of finished compilations, so that later compilations in the same process can start with a warm file
+ * manager rather than opening and indexing the platform classes and the classpath jars again.
+ *
+ * <p>A file manager is only handed to one compilation at a time, and only to compilations with the same compiler, encoding and
+ * compiler options, ignoring the values of the options that each compilation sets anyway. A file manager is discarded when a jar that
+ * was on the classpath of one of its compilations has changed since.</p>
+ *
+ * <p>At most {@value #MAX_IDLE} idle file managers are kept, and at most {@value #MAX_IDLE_PER_KEY} for the same compiler, encoding and
+ * options. When there are more, the least recently used ones are closed.</p>
+ */
+class JavaFileManagerCache implements Stoppable {
+    private static final int MAX_IDLE = 8;
+    private static final int MAX_IDLE_PER_KEY = 4;
+    private static final Set<String> PER_COMPILATION_OPTIONS = new HashSet<String>(Arrays.asList("-classpath", "-cp", "-sourcepath", "-d", "-s", "-h"));
+
+    // Most recently released first
+    private final Deque<CachedFileManager> idle = new ArrayDeque<CachedFileManager>();
+
+    /**
+     * Returns a file manager for a compilation with the given options and classpath. The file manager must be returned using
+     * {@link CachedFileManager#release()} or {@link CachedFileManager#discard()} once the compilation has finished.
+     */
+    public CachedFileManager acquire(JavaCompiler compiler, @Nullable Charset charset, List<String> options, Iterable<File> classpath) {
+        Key key = new Key(compiler.getClass(), charset, normalize(options));
+        CachedFileManager fileManager;
+        while ((fileManager = takeIdle(key)) != null) {
+            if (fileManager.isUpToDate()) {
+                break;
+            }
+            fileManager.discard();
+        }
+        if (fileManager == null) {
+            fileManager = new CachedFileManager(key, compiler.getStandardFileManager(null, null, charset));
+        }
+        fileManager.track(classpath);
+        return fileManager;
+    }
+
+    /**
+     * Closes all idle file managers. File managers that are in use are kept until they are released.
+     */
+    @Override
+    public void stop() {
+        List<CachedFileManager> discarded;
+        synchronized (idle) {
+            discarded = new ArrayList<CachedFileManager>(idle);
+            idle.clear();
+        }
+        for (CachedFileManager fileManager : discarded) {
+            fileManager.discard();
+        }
+    }
+
+    private CachedFileManager takeIdle(Key key) {
+        synchronized (idle) {
+            Iterator<CachedFileManager> iterator = idle.iterator();
+            while (iterator.hasNext()) {
+                CachedFileManager fileManager = iterator.next();
+                if (fileManager.key.equals(key)) {
+                    iterator.remove();
+                    return fileManager;
+                }
+            }
+            return null;
+        }
+    }
+
+    private void release(CachedFileManager fileManager) {
+        List<CachedFileManager> discarded = new ArrayList<CachedFileManager>();
+        synchronized (idle) {
+            idle.addFirst(fileManager);
+            int sameKey = 0;
+            Iterator<CachedFileManager> iterator = idle.iterator();
+            while (iterator.hasNext()) {
+                CachedFileManager candidate = iterator.next();
+                if (candidate.key.equals(fileManager.key) && ++sameKey > MAX_IDLE_PER_KEY) {
+                    iterator.remove();
+                    discarded.add(candidate);
+                }
+            }
+            while (idle.size() > MAX_IDLE) {
+                discarded.add(idle.removeLast());
+            }
+        }
+        for (CachedFileManager candidate : discarded) {
+            candidate.discard();
+        }
+    }
+
+    private static List<String> normalize(List<String> options) {
+        List<String> normalized = new ArrayList<String>(options.size());
+        for (int i = 0; i < options.size(); i++) {
+            String option = options.get(i);
+            normalized.add(option);
+            if (PER_COMPILATION_OPTIONS.contains(option) && i + 1 < options.size()) {
+                // Keep the option, as its absence would leave the file manager with the value of an earlier compilation
+                normalized.add("");
+                i++;
+            }
+        }
+        return normalized;
+    }
+
+    public class CachedFileManager {
+        private final Key key;
+        private final StandardJavaFileManager fileManager;
+        private final Map<File, JarState> jars = new HashMap<File, JarState>();
+
+        private CachedFileManager(Key key, StandardJavaFileManager fileManager) {
+            this.key = key;
+            this.fileManager = fileManager;
+        }
+
+        public StandardJavaFileManager getFileManager() {
+            return fileManager;
+        }
+
+        /**
+         * Makes this file manager available to later compilations.
+         */
+        public void release() {
+            JavaFileManagerCache.this.release(this);
+        }
+
+        /**
+         * Closes this file manager, for example when a compilation has failed unexpectedly and the file manager may be in a bad state.
+         */
+        public void discard() {
+            CompositeStoppable.stoppable(fileManager).stop();
+        }
+
+        private void track(Iterable<File> classpath) {
+            for (File file : classpath) {
+                if (!jars.containsKey(file) && file.isFile()) {
+                    jars.put(file, JarState.of(file));
+                }
+            }
+        }
+
+        private boolean isUpToDate() {
+            // Classes in directories are not cached by the file manager, so only the jars need to be checked
+            for (Map.Entry<File, JarState> entry : jars.entrySet()) {
+                if (!entry.getValue().equals(JarState.of(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class JarState {
+        private final long lastModified;
+        private final long length;
+
+        private JarState(long lastModified, long length) {
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        static JarState of(File file) {
+            return new JarState(file.lastModified(), file.length());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof JarState)) {
+                return false;
+            }
+            JarState other = (JarState) obj;
+            return lastModified == other.lastModified && length == other.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (lastModified ^ length);
+        }
+    }
+
+    private static class Key {
+        private final Class<?> compilerType;
+        private final Charset charset;
+        private final List<String> options;
+
+        Key(Class<?> compilerType, @Nullable Charset charset, List<String> options) {
+            this.compilerType = compilerType;
+            this.charset = charset;
+            this.options = options;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return compilerType.equals(other.compilerType) && Objects.equal(charset, other.charset) && options.equals(other.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(compilerType, charset, options);
+        }
+    }
+}
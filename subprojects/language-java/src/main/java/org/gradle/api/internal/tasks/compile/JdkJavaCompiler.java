@@ -32,18 +32,36 @@ import java.util.List;
 
 public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(JdkJavaCompiler.class);
+    // Shared by all compilations in this process, which may be a build process or a compiler daemon
+    private static final JavaFileManagerCache FILE_MANAGERS = new JavaFileManagerCache();
     private final Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory;
+    private final boolean reuseFileManager;
 
     public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory) {
+        this(javaHomeBasedJavaCompilerFactory, false);
+    }
+
+    /**
+     * @param reuseFileManager whether to keep the file manager of each compilation, with its cached platform classes and classpath jars,
+     * for later compilations in the same process.
+     */
+    public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory, boolean reuseFileManager) {
         this.javaHomeBasedJavaCompilerFactory = javaHomeBasedJavaCompilerFactory;
+        this.reuseFileManager = reuseFileManager;
+    }
+
+    /**
+     * Closes the file managers that compilations in this process keep for later compilations.
+     */
+    public static void closeIdleFileManagers() {
+        FILE_MANAGERS.stop();
     }
 
     @Override
     public WorkResult execute(JavaCompileSpec spec) {
         LOGGER.info("Compiling with JDK Java compiler API.");
 
-        JavaCompiler.CompilationTask task = createCompileTask(spec);
-        boolean success = task.call();
+        boolean success = reuseFileManager ? compileWithCachedFileManager(spec) : createCompileTask(spec).call();
         if (!success) {
             throw new CompilationFailedException();
         }
@@ -55,8 +73,32 @@ public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable
         List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
         JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
         CompileOptions compileOptions = spec.getCompileOptions();
-        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null);
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, charsetOf(compileOptions));
         Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(spec.getSource());
         return compiler.getTask(null, null, null, options, null, compilationUnits);
     }
+
+    private boolean compileWithCachedFileManager(JavaCompileSpec spec) {
+        List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
+        JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
+        JavaFileManagerCache.CachedFileManager cachedFileManager = FILE_MANAGERS.acquire(compiler, charsetOf(spec.getCompileOptions()), options, spec.getClasspath());
+        boolean success;
+        try {
+            StandardJavaFileManager fileManager = cachedFileManager.getFileManager();
+            Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(spec.getSource());
+            success = compiler.getTask(null, fileManager, null, options, null, compilationUnits).call();
+        } catch (RuntimeException e) {
+            cachedFileManager.discard();
+            throw e;
+        } catch (Error e) {
+            cachedFileManager.discard();
+            throw e;
+        }
+        cachedFileManager.release();
+        return success;
+    }
+
+    private static Charset charsetOf(CompileOptions compileOptions) {
+        return compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null;
+    }
 }
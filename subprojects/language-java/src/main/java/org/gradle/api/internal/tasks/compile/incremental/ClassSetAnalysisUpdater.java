@@ -25,6 +25,8 @@ import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassFilesAnal
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.util.Clock;
 
 public class ClassSetAnalysisUpdater {
@@ -33,20 +35,28 @@ public class ClassSetAnalysisUpdater {
 
     private final Stash<ClassSetAnalysisData> stash;
     private final FileOperations fileOperations;
+    private final ExecutorFactory executorFactory;
     private ClassDependenciesAnalyzer analyzer;
 
-    public ClassSetAnalysisUpdater(Stash<ClassSetAnalysisData> stash, FileOperations fileOperations, ClassDependenciesAnalyzer analyzer) {
+    public ClassSetAnalysisUpdater(Stash<ClassSetAnalysisData> stash, FileOperations fileOperations, ClassDependenciesAnalyzer analyzer, ExecutorFactory executorFactory) {
         this.stash = stash;
         this.fileOperations = fileOperations;
         this.analyzer = analyzer;
+        this.executorFactory = executorFactory;
     }
 
     public void updateAnalysis(JavaCompileSpec spec) {
         Clock clock = new Clock();
         FileTree tree = fileOperations.fileTree(spec.getDestinationDir());
-        ClassFilesAnalyzer analyzer = new ClassFilesAnalyzer(this.analyzer);
-        tree.visit(analyzer);
-        ClassSetAnalysisData data = analyzer.getAnalysis();
+        ClassSetAnalysisData data;
+        StoppableExecutor executor = executorFactory.create("class file analysis", Runtime.getRuntime().availableProcessors());
+        try {
+            ClassFilesAnalyzer analyzer = new ClassFilesAnalyzer(this.analyzer, executor);
+            tree.visit(analyzer);
+            data = analyzer.getAnalysis();
+        } finally {
+            executor.stop();
+        }
         stash.put(data);
         LOG.info("Class dependency analysis for incremental compilation took {}.", clock.getTime());
     }
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental.analyzer;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.TypePath;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Calculates a hash of the parts of a class that other classes can be compiled against: the class declaration, the non-private
+ * fields, methods and member classes along with their annotations, and the values of constants. Method bodies, private members and
+ * debug information do not contribute to the hash, and neither does the order of the members.
+ */
+class ClassAbiHashingVisitor extends ClassVisitor {
+    private final static int API = Opcodes.ASM5;
+
+    private final StringBuilder header = new StringBuilder();
+    private final Set<String> members = new TreeSet<String>();
+    private String className;
+    private HashCode hash;
+
+    ClassAbiHashingVisitor(ClassVisitor delegate) {
+        super(API, delegate);
+    }
+
+    public HashCode getHash() {
+        return hash;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        className = name;
+        String[] sortedInterfaces = interfaces.clone();
+        Arrays.sort(sortedInterfaces);
+        header.append("class ").append(version).append(' ').append(access).append(' ').append(name).append(' ').append(signature)
+            .append(' ').append(superName).append(' ').append(Arrays.toString(sortedInterfaces));
+        super.visit(version, access, name, signature, superName, interfaces);
+    }
+
+    @Override
+    public void visitOuterClass(String owner, String name, String desc) {
+        header.append(" outer ").append(owner).append(' ').append(name).append(' ').append(desc);
+        super.visitOuterClass(owner, name, desc);
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+        return new AnnotationHashingVisitor(header.append(" @").append(desc), super.visitAnnotation(desc, visible));
+    }
+
+    @Override
+    public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+        return new AnnotationHashingVisitor(header.append(" @").append(typeRef).append(' ').append(typePath).append(' ').append(desc),
+            super.visitTypeAnnotation(typeRef, typePath, desc, visible));
+    }
+
+    @Override
+    public void visitInnerClass(String name, String outerName, String innerName, int access) {
+        // Also lists the nested classes that this class merely uses, which are not part of its ABI
+        boolean declaredByThisClass = name.equals(className) || className.equals(outerName);
+        if (declaredByThisClass && !isPrivate(access)) {
+            members.add("inner " + access + ' ' + name + ' ' + outerName + ' ' + innerName);
+        }
+        super.visitInnerClass(name, outerName, innerName, access);
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+        FieldVisitor delegate = super.visitField(access, name, desc, signature, value);
+        if (isPrivate(access) || isSynthetic(access)) {
+            return delegate;
+        }
+        final StringBuilder member = new StringBuilder("field ").append(access).append(' ').append(name).append(' ').append(desc)
+            .append(' ').append(signature).append(' ').append(value);
+        return new FieldVisitor(API, delegate) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                return new AnnotationHashingVisitor(member.append(" @").append(desc), super.visitAnnotation(desc, visible));
+            }
+
+            @Override
+            public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+                return new AnnotationHashingVisitor(member.append(" @").append(typeRef).append(' ').append(typePath).append(' ').append(desc),
+                    super.visitTypeAnnotation(typeRef, typePath, desc, visible));
+            }
+
+            @Override
+            public void visitEnd() {
+                members.add(member.toString());
+                super.visitEnd();
+            }
+        };
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+        MethodVisitor delegate = super.visitMethod(access, name, desc, signature, exceptions);
+        if (isPrivate(access) || (isSynthetic(access) && (access & Opcodes.ACC_BRIDGE) == 0) || name.equals("<clinit>")) {
+            return delegate;
+        }
+        String[] sortedExceptions = exceptions == null ? new String[0] : exceptions.clone();
+        Arrays.sort(sortedExceptions);
+        final StringBuilder member = new StringBuilder("method ").append(access).append(' ').append(name).append(' ').append(desc)
+            .append(' ').append(signature).append(' ').append(Arrays.toString(sortedExceptions));
+        return new MethodVisitor(API, delegate) {
+            @Override
+            public AnnotationVisitor visitAnnotationDefault() {
+                return new AnnotationHashingVisitor(member.append(" default"), super.visitAnnotationDefault());
+            }
+
+            @Override
+            public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                return new AnnotationHashingVisitor(member.append(" @").append(desc), super.visitAnnotation(desc, visible));
+            }
+
+            @Override
+            public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+                return new AnnotationHashingVisitor(member.append(" @").append(typeRef).append(' ').append(typePath).append(' ').append(desc),
+                    super.visitTypeAnnotation(typeRef, typePath, desc, visible));
+            }
+
+            @Override
+            public AnnotationVisitor visitParameterAnnotation(int parameter, String desc, boolean visible) {
+                return new AnnotationHashingVisitor(member.append(" @").append(parameter).append(' ').append(desc),
+                    super.visitParameterAnnotation(parameter, desc, visible));
+            }
+
+            @Override
+            public void visitEnd() {
+                members.add(member.toString());
+                super.visitEnd();
+            }
+        };
+    }
+
+    @Override
+    public void visitEnd() {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(header, Charsets.UTF_8);
+        for (String member : members) {
+            hasher.putString(member, Charsets.UTF_8);
+        }
+        hash = hasher.hash();
+        super.visitEnd();
+    }
+
+    private static boolean isPrivate(int access) {
+        return (access & Opcodes.ACC_PRIVATE) != 0;
+    }
+
+    private static boolean isSynthetic(int access) {
+        return (access & Opcodes.ACC_SYNTHETIC) != 0;
+    }
+
+    /**
+     * Appends the values of an annotation to the description of the annotated element.
+     */
+    private static class AnnotationHashingVisitor extends AnnotationVisitor {
+        private final StringBuilder target;
+
+        AnnotationHashingVisitor(StringBuilder target, AnnotationVisitor delegate) {
+            super(API, delegate);
+            this.target = target.append('(');
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            target.append(name).append('=').append(valueToString(value)).append(',');
+            super.visit(name, value);
+        }
+
+        @Override
+        public void visitEnum(String name, String desc, String value) {
+            target.append(name).append('=').append(desc).append('.').append(value).append(',');
+            super.visitEnum(name, desc, value);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String desc) {
+            return new AnnotationHashingVisitor(target.append(name).append("=@").append(desc), super.visitAnnotation(name, desc));
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            return new AnnotationHashingVisitor(target.append(name).append('='), super.visitArray(name));
+        }
+
+        @Override
+        public void visitEnd() {
+            target.append("),");
+            super.visitEnd();
+        }
+
+        private static String valueToString(Object value) {
+            if (value instanceof Type) {
+                return ((Type) value).getDescriptor();
+            }
+            if (value instanceof Object[]) {
+                return Arrays.toString((Object[]) value);
+            }
+            if (value != null && value.getClass().isArray()) {
+                StringBuilder builder = new StringBuilder("[");
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    builder.append(Array.get(value, i)).append(',');
+                }
+                return builder.append(']').toString();
+            }
+            return String.valueOf(value);
+        }
+    }
+}
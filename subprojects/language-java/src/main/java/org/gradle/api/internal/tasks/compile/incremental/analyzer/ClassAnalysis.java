@@ -16,16 +16,20 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.analyzer;
 
+import com.google.common.hash.HashCode;
+
 import java.util.Set;
 
 public class ClassAnalysis {
 
     private final Set<String> classDependencies;
     private final boolean dependencyToAll;
+    private final HashCode abiHash;
 
-    public ClassAnalysis(Set<String> classDependencies, boolean dependencyToAll) {
+    public ClassAnalysis(Set<String> classDependencies, boolean dependencyToAll, HashCode abiHash) {
         this.classDependencies = classDependencies;
         this.dependencyToAll = dependencyToAll;
+        this.abiHash = abiHash;
     }
 
     public Set<String> getClassDependencies() {
@@ -35,4 +39,12 @@ public class ClassAnalysis {
     public boolean isDependencyToAll() {
         return dependencyToAll;
     }
+
+    /**
+     * Returns a hash of the parts of the class that other classes are compiled against. Changes that leave this hash unchanged,
+     * such as changes to method bodies or private members, do not require the dependents of the class to be recompiled.
+     */
+    public HashCode getAbiHash() {
+        return abiHash;
+    }
 }
@@ -16,8 +16,10 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.analyzer;
 
+import com.google.common.hash.HashCode;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.serialize.SetSerializer;
 
@@ -28,17 +30,20 @@ import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALI
 public class ClassAnalysisSerializer implements Serializer<ClassAnalysis> {
 
     private SetSerializer<String> setSerializer = new SetSerializer<String>(STRING_SERIALIZER, false);
+    private HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
 
     @Override
     public ClassAnalysis read(Decoder decoder) throws Exception {
         boolean relatedToAll = decoder.readBoolean();
         Set<String> classes = setSerializer.read(decoder);
-        return new ClassAnalysis(classes, relatedToAll);
+        HashCode abiHash = hashCodeSerializer.read(decoder);
+        return new ClassAnalysis(classes, relatedToAll, abiHash);
     }
 
     @Override
     public void write(Encoder encoder, ClassAnalysis value) throws Exception {
         encoder.writeBoolean(value.isDependencyToAll());
         setSerializer.write(encoder, value.getClassDependencies());
+        hashCodeSerializer.write(encoder, value.getAbiHash());
     }
 }
@@ -16,29 +16,56 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.analyzer;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAccumulator;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.internal.UncheckedException;
 
 import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
+/**
+ * Analyzes the visited class files. When given an executor, the class files are analyzed concurrently using that executor,
+ * and the results are accumulated in the order the class files were visited once the analysis is requested.
+ */
 public class ClassFilesAnalyzer implements FileVisitor {
 
     private final ClassDependenciesAnalyzer analyzer;
     private final String packagePrefix;
     private final ClassDependentsAccumulator accumulator;
+    private final Executor executor;
+    private final List<PendingAnalysis> pending = Lists.newArrayList();
+    private final Map<String, HashCode> abiHashes = Maps.newHashMap();
 
     public ClassFilesAnalyzer(ClassDependenciesAnalyzer analyzer) {
-        this(analyzer, "", new ClassDependentsAccumulator(""));
+        this(analyzer, null);
+    }
+
+    public ClassFilesAnalyzer(ClassDependenciesAnalyzer analyzer, @Nullable Executor executor) {
+        this(analyzer, "", new ClassDependentsAccumulator(""), executor);
     }
 
     ClassFilesAnalyzer(ClassDependenciesAnalyzer analyzer, String packagePrefix, ClassDependentsAccumulator accumulator) {
+        this(analyzer, packagePrefix, accumulator, null);
+    }
+
+    ClassFilesAnalyzer(ClassDependenciesAnalyzer analyzer, String packagePrefix, ClassDependentsAccumulator accumulator, @Nullable Executor executor) {
         this.analyzer = analyzer;
         this.packagePrefix = packagePrefix;
         this.accumulator = accumulator;
+        this.executor = executor;
     }
 
     @Override
@@ -46,20 +73,71 @@ public class ClassFilesAnalyzer implements FileVisitor {
 
     @Override
     public void visitFile(FileVisitDetails fileDetails) {
-        File file = fileDetails.getFile();
+        final File file = fileDetails.getFile();
         if (!hasExtension(file, ".class")) {
             return;
         }
-        String className = fileDetails.getPath().replaceAll("/", ".").replaceAll("\\.class$", "");
+        final String className = fileDetails.getPath().replaceAll("/", ".").replaceAll("\\.class$", "");
         if (!className.startsWith(packagePrefix)) {
             return;
         }
 
-        ClassAnalysis analysis = analyzer.getClassAnalysis(className, file);
+        if (executor == null) {
+            addClass(className, analyzer.getClassAnalysis(className, file));
+            return;
+        }
+        FutureTask<ClassAnalysis> task = new FutureTask<ClassAnalysis>(new Callable<ClassAnalysis>() {
+            @Override
+            public ClassAnalysis call() {
+                return analyzer.getClassAnalysis(className, file);
+            }
+        });
+        pending.add(new PendingAnalysis(className, task));
+        executor.execute(task);
+    }
+
+    private void addClass(String className, ClassAnalysis analysis) {
         accumulator.addClass(className, analysis.isDependencyToAll(), analysis.getClassDependencies());
+        abiHashes.put(className, analysis.getAbiHash());
+    }
+
+    private void completePending() {
+        try {
+            for (PendingAnalysis analysis : pending) {
+                addClass(analysis.className, analysis.task.get());
+            }
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            for (PendingAnalysis analysis : pending) {
+                analysis.task.cancel(false);
+            }
+            pending.clear();
+        }
     }
 
     public ClassSetAnalysisData getAnalysis() {
+        completePending();
         return new ClassSetAnalysisData(accumulator.getDependentsMap());
     }
+
+    /**
+     * Returns the ABI hashes of the visited classes.
+     */
+    public Map<String, HashCode> getAbiHashes() {
+        completePending();
+        return abiHashes;
+    }
+
+    private static class PendingAnalysis {
+        private final String className;
+        private final FutureTask<ClassAnalysis> task;
+
+        PendingAnalysis(String className, FutureTask<ClassAnalysis> task) {
+            this.className = className;
+            this.task = task;
+        }
+    }
 }
@@ -35,10 +35,11 @@ public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyz
         ClassRelevancyFilter filter = new ClassRelevancyFilter(className);
         ClassReader reader = new Java9ClassReader(ByteStreams.toByteArray(input));
         ClassDependenciesVisitor visitor = new ClassDependenciesVisitor();
-        reader.accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        ClassAbiHashingVisitor abiVisitor = new ClassAbiHashingVisitor(visitor);
+        reader.accept(abiVisitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
 
         Set<String> classDependencies = getClassDependencies(filter, reader);
-        return new ClassAnalysis(classDependencies, visitor.dependentToAll);
+        return new ClassAnalysis(classDependencies, visitor.dependentToAll, abiVisitor.getHash());
     }
 
     private Set<String> getClassDependencies(ClassRelevancyFilter filter, ClassReader reader) {
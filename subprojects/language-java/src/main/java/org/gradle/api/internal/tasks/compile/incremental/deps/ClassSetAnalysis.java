@@ -16,6 +16,8 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -42,34 +44,48 @@ public class ClassSetAnalysis {
     }
 
     public DependentsSet getRelevantDependents(String className) {
-        DependentsSet deps = data.getDependents(className);
-        if (deps == null) {
+        int index = data.indexOf(className);
+        if (index < 0 || !data.hasDependents(index)) {
             return new DefaultDependentsSet();
         }
-        if (deps.isDependencyToAll()) {
+        if (data.isDependencyToAll(index)) {
             return new DependencyToAll();
         }
         Set<String> result = new HashSet<String>();
-        recurseDependents(new HashSet<String>(), result, deps.getDependentClasses());
+        collectDependents(index, result);
         result.remove(className);
         return new DefaultDependentsSet(result);
     }
 
     public boolean isDependencyToAll(String className) {
-        DependentsSet deps = data.getDependents(className);
-        return deps != null && deps.isDependencyToAll();
+        int index = data.indexOf(className);
+        return index >= 0 && data.isDependencyToAll(index);
     }
 
-    private void recurseDependents(Set<String> visited, Set<String> result, Set<String> dependentClasses) {
-        for (String d : dependentClasses) {
-            if (!visited.add(d)) {
-                continue;
+    private void collectDependents(int index, Set<String> result) {
+        BitSet visited = new BitSet(data.getClassCount());
+        int[] pending = new int[16];
+        int pendingCount = 0;
+        int current = index;
+        while (true) {
+            for (int i = data.dependentsOffsets[current]; i < data.dependentsOffsets[current + 1]; i++) {
+                int dependent = data.dependents[i];
+                if (!visited.get(dependent)) {
+                    visited.set(dependent);
+                    if (pendingCount == pending.length) {
+                        pending = Arrays.copyOf(pending, pendingCount * 2);
+                    }
+                    pending[pendingCount++] = dependent;
+                }
             }
-            if (!d.contains("$")) { //filter out the inner classes
-                result.add(d);
+            if (pendingCount == 0) {
+                return;
+            }
+            current = pending[--pendingCount];
+            String dependentClass = data.getClassName(current);
+            if (!dependentClass.contains("$")) { //filter out the inner classes
+                result.add(dependentClass);
             }
-            DependentsSet currentDependents = data.getDependents(d);
-            recurseDependents(visited, result, currentDependents.getDependentClasses());
         }
     }
 
@@ -18,69 +18,206 @@ package org.gradle.api.internal.tasks.compile.incremental.deps;
 
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
-import org.gradle.internal.serialize.MapSerializer;
-import org.gradle.internal.serialize.SetSerializer;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
-import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
-
+/**
+ * The dependents of a set of classes, kept as a graph over class indexes.
+ *
+ * <p>Each class name is stored once, in a sorted table, and the dependents of all classes are stored in a single
+ * array, with the dependents of class {@code i} found between {@code dependentsOffsets[i]} and
+ * {@code dependentsOffsets[i + 1]}. Looking up and traversing dependents does not create any objects.</p>
+ */
 public class ClassSetAnalysisData {
 
-    final Map<String, DependentsSet> dependents;
+    // A class that is only known as a dependent of another class
+    static final byte UNKNOWN = 0;
+    static final byte DEPENDENCY_TO_ALL = 1;
+    static final byte DEPENDENTS_WITH_DEPENDENCY_TO_ALL = 2;
+    static final byte DEPENDENTS = 3;
+
+    final String[] classNames;
+    final byte[] kinds;
+    final int[] dependentsOffsets;
+    final int[] dependents;
 
     public ClassSetAnalysisData(Map<String, DependentsSet> dependents) {
+        Set<String> names = new TreeSet<String>(dependents.keySet());
+        int edgeCount = 0;
+        for (DependentsSet dependentsSet : dependents.values()) {
+            if (!(dependentsSet instanceof DependencyToAll)) {
+                names.addAll(dependentsSet.getDependentClasses());
+                edgeCount += dependentsSet.getDependentClasses().size();
+            }
+        }
+        this.classNames = names.toArray(new String[0]);
+        this.kinds = new byte[classNames.length];
+        this.dependentsOffsets = new int[classNames.length + 1];
+        this.dependents = new int[edgeCount];
+
+        int edge = 0;
+        for (int i = 0; i < classNames.length; i++) {
+            dependentsOffsets[i] = edge;
+            DependentsSet dependentsSet = dependents.get(classNames[i]);
+            kinds[i] = kindOf(dependentsSet);
+            if (kinds[i] == DEPENDENTS || kinds[i] == DEPENDENTS_WITH_DEPENDENCY_TO_ALL) {
+                int start = edge;
+                for (String dependent : dependentsSet.getDependentClasses()) {
+                    this.dependents[edge++] = Arrays.binarySearch(classNames, dependent);
+                }
+                Arrays.sort(this.dependents, start, edge);
+            }
+        }
+        dependentsOffsets[classNames.length] = edge;
+    }
+
+    private ClassSetAnalysisData(String[] classNames, byte[] kinds, int[] dependentsOffsets, int[] dependents) {
+        this.classNames = classNames;
+        this.kinds = kinds;
+        this.dependentsOffsets = dependentsOffsets;
         this.dependents = dependents;
     }
 
-    public DependentsSet getDependents(String className) {
-        return dependents.get(className);
+    private static byte kindOf(DependentsSet dependentsSet) {
+        if (dependentsSet == null) {
+            return UNKNOWN;
+        }
+        if (dependentsSet instanceof DependencyToAll) {
+            return DEPENDENCY_TO_ALL;
+        }
+        if (dependentsSet instanceof DefaultDependentsSet) {
+            return dependentsSet.isDependencyToAll() ? DEPENDENTS_WITH_DEPENDENCY_TO_ALL : DEPENDENTS;
+        }
+        throw new IllegalArgumentException("Don't know how to store value of type: " + dependentsSet.getClass() + ", value: " + dependentsSet);
     }
 
-    public static class Serializer implements org.gradle.internal.serialize.Serializer<ClassSetAnalysisData> {
+    /**
+     * Returns the number of class names in this analysis, including classes that are only known as dependents.
+     */
+    public int getClassCount() {
+        return classNames.length;
+    }
 
-        private final MapSerializer<String, DependentsSet> serializer = new MapSerializer<String, DependentsSet>(
-                STRING_SERIALIZER, new DependentsSetSerializer());
+    /**
+     * Returns the index of the given class, or -1 when the class is not known.
+     */
+    public int indexOf(String className) {
+        int index = Arrays.binarySearch(classNames, className);
+        return index < 0 ? -1 : index;
+    }
 
-        @Override
-        public ClassSetAnalysisData read(Decoder decoder) throws Exception {
-            //we only support one kind of data
-            return new ClassSetAnalysisData(serializer.read(decoder));
+    public String getClassName(int index) {
+        return classNames[index];
+    }
+
+    boolean hasDependents(int index) {
+        return kinds[index] != UNKNOWN;
+    }
+
+    boolean isDependencyToAll(int index) {
+        return kinds[index] == DEPENDENCY_TO_ALL || kinds[index] == DEPENDENTS_WITH_DEPENDENCY_TO_ALL;
+    }
+
+    public DependentsSet getDependents(String className) {
+        int index = indexOf(className);
+        if (index < 0) {
+            return null;
         }
+        return toDependentsSet(index);
+    }
 
-        @Override
-        public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
-            //we only support one kind of data
-            serializer.write(encoder, value.dependents);
+    private DependentsSet toDependentsSet(int index) {
+        switch (kinds[index]) {
+            case UNKNOWN:
+                return null;
+            case DEPENDENCY_TO_ALL:
+                return new DependencyToAll();
+            default:
+                List<String> classes = new ArrayList<String>(dependentsOffsets[index + 1] - dependentsOffsets[index]);
+                for (int i = dependentsOffsets[index]; i < dependentsOffsets[index + 1]; i++) {
+                    classes.add(classNames[dependents[i]]);
+                }
+                return new DefaultDependentsSet(kinds[index] == DEPENDENTS_WITH_DEPENDENCY_TO_ALL, classes);
         }
+    }
 
-        private static class DependentsSetSerializer implements org.gradle.internal.serialize.Serializer<DependentsSet> {
+    /**
+     * Creates a map containing the dependents of each class. Prefer {@link #getDependents(String)} for lookups.
+     */
+    public Map<String, DependentsSet> getDependentsMap() {
+        Map<String, DependentsSet> result = new HashMap<String, DependentsSet>(classNames.length * 2);
+        for (int i = 0; i < classNames.length; i++) {
+            DependentsSet dependentsSet = toDependentsSet(i);
+            if (dependentsSet != null) {
+                result.put(classNames[i], dependentsSet);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
 
-            private SetSerializer<String> setSerializer = new SetSerializer<String>(STRING_SERIALIZER, false);
+    /**
+     * Writes the class name table followed by the dependents of each class. The dependents of a class are sorted, so are written
+     * as the difference to the previous dependent, which keeps most of them to a single byte.
+     */
+    public static class Serializer implements org.gradle.internal.serialize.Serializer<ClassSetAnalysisData> {
 
-            @Override
-            public DependentsSet read(Decoder decoder) throws Exception {
-                int control = decoder.readSmallInt();
-                if (control == 0) {
-                    return new DependencyToAll();
+        @Override
+        public ClassSetAnalysisData read(Decoder decoder) throws Exception {
+            int count = decoder.readSmallInt();
+            String[] classNames = new String[count];
+            for (int i = 0; i < count; i++) {
+                classNames[i] = decoder.readString();
+            }
+            byte[] kinds = new byte[count];
+            int[] dependentsOffsets = new int[count + 1];
+            int[] dependents = new int[decoder.readSmallInt()];
+            int edge = 0;
+            for (int i = 0; i < count; i++) {
+                dependentsOffsets[i] = edge;
+                kinds[i] = decoder.readByte();
+                if (kinds[i] < UNKNOWN || kinds[i] > DEPENDENTS) {
+                    throw new IllegalArgumentException("Unable to read the data. Unexpected control value: " + kinds[i]);
                 }
-                if (control != 1 && control != 2) {
-                    throw new IllegalArgumentException("Unable to read the data. Unexpected control value: " + control);
+                if (kinds[i] == DEPENDENTS || kinds[i] == DEPENDENTS_WITH_DEPENDENCY_TO_ALL) {
+                    int dependentCount = decoder.readSmallInt();
+                    int previous = 0;
+                    for (int j = 0; j < dependentCount; j++) {
+                        previous += decoder.readSmallInt();
+                        dependents[edge++] = previous;
+                    }
                 }
-                Set<String> classes = setSerializer.read(decoder);
-                return new DefaultDependentsSet(control == 1, classes);
             }
+            dependentsOffsets[count] = edge;
+            return new ClassSetAnalysisData(classNames, kinds, dependentsOffsets, dependents);
+        }
 
-            @Override
-            public void write(Encoder encoder, DependentsSet value) throws Exception {
-                if (value instanceof DependencyToAll) {
-                    encoder.writeSmallInt(0);
-                } else if (value instanceof DefaultDependentsSet) {
-                    encoder.writeSmallInt(value.isDependencyToAll() ? 1 : 2);
-                    setSerializer.write(encoder, value.getDependentClasses());
-                } else {
-                    throw new IllegalArgumentException("Don't know how to serialize value of type: " + value.getClass() + ", value: " + value);
+        @Override
+        public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
+            int count = value.classNames.length;
+            encoder.writeSmallInt(count);
+            for (String className : value.classNames) {
+                encoder.writeString(className);
+            }
+            encoder.writeSmallInt(value.dependents.length);
+            for (int i = 0; i < count; i++) {
+                byte kind = value.kinds[i];
+                encoder.writeByte(kind);
+                if (kind == DEPENDENTS || kind == DEPENDENTS_WITH_DEPENDENCY_TO_ALL) {
+                    int start = value.dependentsOffsets[i];
+                    int end = value.dependentsOffsets[i + 1];
+                    encoder.writeSmallInt(end - start);
+                    int previous = 0;
+                    for (int j = start; j < end; j++) {
+                        encoder.writeSmallInt(value.dependents[j] - previous);
+                        previous = value.dependents[j];
+                    }
                 }
             }
         }
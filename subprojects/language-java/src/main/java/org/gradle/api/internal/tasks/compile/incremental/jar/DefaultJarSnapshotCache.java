@@ -19,6 +19,7 @@ package org.gradle.api.internal.tasks.compile.incremental.jar;
 import com.google.common.hash.HashCode;
 import org.gradle.api.internal.cache.MinimalPersistentCache;
 import org.gradle.cache.CacheRepository;
+import org.gradle.cache.internal.CacheDecorator;
 import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.HashCodeSerializer;
 
@@ -34,8 +35,11 @@ public class DefaultJarSnapshotCache implements JarSnapshotCache {
 
     private final MinimalPersistentCache<HashCode, JarSnapshotData> cache;
 
-    public DefaultJarSnapshotCache(CacheRepository cacheRepository) {
-        cache = new MinimalPersistentCache<HashCode, JarSnapshotData>(cacheRepository, "jar snapshots", new HashCodeSerializer(), new JarSnapshotDataSerializer());
+    /**
+     * @param inMemoryCache keeps the recently used jar snapshots in memory across builds, so that a jar used by many projects or builds is read only once
+     */
+    public DefaultJarSnapshotCache(CacheRepository cacheRepository, CacheDecorator inMemoryCache) {
+        cache = new MinimalPersistentCache<HashCode, JarSnapshotData>(cacheRepository, "jar snapshots", new HashCodeSerializer(), new JarSnapshotDataSerializer(), inMemoryCache);
     }
 
     @Override
@@ -54,6 +54,6 @@ class DefaultJarSnapshotter {
             }
         });
 
-        return new JarSnapshot(new JarSnapshotData(hash, hashes, analyzer.getAnalysis()));
+        return new JarSnapshot(new JarSnapshotData(hash, hashes, analyzer.getAbiHashes(), analyzer.getAnalysis()));
     }
 }
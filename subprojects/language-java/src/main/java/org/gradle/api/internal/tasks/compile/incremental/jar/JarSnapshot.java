@@ -55,12 +55,12 @@ public class JarSnapshot {
 
     private DependentsSet affectedSince(JarSnapshot other) {
         final Set<String> affected = new HashSet<String>();
-        for (Map.Entry<String, HashCode> otherClass : other.getHashes().entrySet()) {
+        for (Map.Entry<String, HashCode> otherClass : other.getAbiHashes().entrySet()) {
             String otherClassName = otherClass.getKey();
-            HashCode otherClassBytes = otherClass.getValue();
-            HashCode thisClsBytes = getHashes().get(otherClassName);
-            if (thisClsBytes == null || !thisClsBytes.equals(otherClassBytes)) {
-                //removed since or changed since
+            HashCode otherClassAbi = otherClass.getValue();
+            HashCode thisClsAbi = getAbiHashes().get(otherClassName);
+            if (thisClsAbi == null || !thisClsAbi.equals(otherClassAbi)) {
+                //removed since or ABI changed since, changes that keep the ABI do not affect the dependents
                 affected.add(otherClassName);
                 DependentsSet dependents = other.getAnalysis().getRelevantDependents(otherClassName);
                 if (dependents.isDependencyToAll()) {
@@ -86,6 +86,13 @@ public class JarSnapshot {
         return data.hashes;
     }
 
+    /**
+     * Returns the ABI hashes of all classes from the jar.
+     */
+    public Map<String, HashCode> getAbiHashes() {
+        return data.abiHashes;
+    }
+
     public ClassSetAnalysis getAnalysis() {
         return new ClassSetAnalysis(data.data);
     }
@@ -21,37 +21,76 @@ import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisDa
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.HashCodeSerializer;
-import org.gradle.internal.serialize.MapSerializer;
 import org.gradle.internal.serialize.Serializer;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
-import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
-
+/**
+ * Writes jar snapshots in a compact form. The class set analysis is written first, including its class name table. The hashes
+ * of the classes refer to the class names by their index in that table, followed by any class names that the analysis does
+ * not contain. Reading a snapshot creates a single String instance per class name.
+ */
 public class JarSnapshotDataSerializer implements Serializer<JarSnapshotData> {
 
-    private final MapSerializer<String, HashCode> mapSerializer;
-    private final Serializer<ClassSetAnalysisData> analysisSerializer;
-    private final HashCodeSerializer hashCodeSerializer;
-
-    public JarSnapshotDataSerializer() {
-        hashCodeSerializer = new HashCodeSerializer();
-        mapSerializer = new MapSerializer<String, HashCode>(STRING_SERIALIZER, hashCodeSerializer);
-        analysisSerializer = new ClassSetAnalysisData.Serializer();
-    }
+    private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+    private final ClassSetAnalysisData.Serializer analysisSerializer = new ClassSetAnalysisData.Serializer();
 
     @Override
     public JarSnapshotData read(Decoder decoder) throws Exception {
         HashCode hash = hashCodeSerializer.read(decoder);
-        Map<String, HashCode> hashes = mapSerializer.read(decoder);
         ClassSetAnalysisData data = analysisSerializer.read(decoder);
-        return new JarSnapshotData(hash, hashes, data);
+        String[] otherClassNames = new String[decoder.readSmallInt()];
+        for (int i = 0; i < otherClassNames.length; i++) {
+            otherClassNames[i] = decoder.readString();
+        }
+        Map<String, HashCode> hashes = readHashes(decoder, data, otherClassNames);
+        Map<String, HashCode> abiHashes = readHashes(decoder, data, otherClassNames);
+        return new JarSnapshotData(hash, hashes, abiHashes, data);
+    }
+
+    private Map<String, HashCode> readHashes(Decoder decoder, ClassSetAnalysisData data, String[] otherClassNames) throws Exception {
+        int count = decoder.readSmallInt();
+        Map<String, HashCode> hashes = new HashMap<String, HashCode>(count * 2);
+        for (int i = 0; i < count; i++) {
+            int index = decoder.readSmallInt();
+            String className = index < data.getClassCount() ? data.getClassName(index) : otherClassNames[index - data.getClassCount()];
+            hashes.put(className, hashCodeSerializer.read(decoder));
+        }
+        return hashes;
     }
 
     @Override
     public void write(Encoder encoder, JarSnapshotData value) throws Exception {
+        Map<String, Integer> otherClassIndexes = new LinkedHashMap<String, Integer>();
+        addOtherClassNames(otherClassIndexes, value.hashes, value.data);
+        addOtherClassNames(otherClassIndexes, value.abiHashes, value.data);
+
         hashCodeSerializer.write(encoder, value.hash);
-        mapSerializer.write(encoder, value.hashes);
         analysisSerializer.write(encoder, value.data);
+        encoder.writeSmallInt(otherClassIndexes.size());
+        for (String className : otherClassIndexes.keySet()) {
+            encoder.writeString(className);
+        }
+        writeHashes(encoder, value.hashes, value.data, otherClassIndexes);
+        writeHashes(encoder, value.abiHashes, value.data, otherClassIndexes);
+    }
+
+    private void writeHashes(Encoder encoder, Map<String, HashCode> hashes, ClassSetAnalysisData data, Map<String, Integer> otherClassIndexes) throws Exception {
+        encoder.writeSmallInt(hashes.size());
+        for (Map.Entry<String, HashCode> entry : hashes.entrySet()) {
+            int index = data.indexOf(entry.getKey());
+            encoder.writeSmallInt(index >= 0 ? index : data.getClassCount() + otherClassIndexes.get(entry.getKey()));
+            hashCodeSerializer.write(encoder, entry.getValue());
+        }
+    }
+
+    private static void addOtherClassNames(Map<String, Integer> otherClassIndexes, Map<String, HashCode> hashes, ClassSetAnalysisData data) {
+        for (String className : hashes.keySet()) {
+            if (data.indexOf(className) < 0 && !otherClassIndexes.containsKey(className)) {
+                otherClassIndexes.put(className, otherClassIndexes.size());
+            }
+        }
     }
 }
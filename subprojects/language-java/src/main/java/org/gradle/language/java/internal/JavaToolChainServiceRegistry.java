@@ -16,16 +16,24 @@
 
 package org.gradle.language.java.internal;
 
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
 import org.gradle.StartParameter;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.tasks.DefaultJavaToolChain;
+import org.gradle.api.internal.tasks.compile.CompileClasspathPropertyAnnotationHandler;
+import org.gradle.api.internal.tasks.compile.CompileClasspathSnapshotNormalizationStrategy;
 import org.gradle.api.internal.tasks.compile.DefaultJavaCompilerFactory;
 import org.gradle.api.internal.tasks.compile.JavaCompilerFactory;
 import org.gradle.api.internal.tasks.compile.JavaHomeBasedJavaCompilerFactory;
+import org.gradle.api.internal.tasks.compile.JdkJavaCompiler;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerClientsManager;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonPool;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonStarter;
 import org.gradle.internal.Factory;
+import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
 import org.gradle.jvm.internal.toolchain.JavaToolChainInternal;
@@ -37,6 +45,7 @@ import javax.tools.JavaCompiler;
 public class JavaToolChainServiceRegistry implements PluginServiceRegistry {
     @Override
     public void registerGlobalServices(ServiceRegistration registration) {
+        registration.addProvider(new GlobalScopeCompileServices());
     }
 
     @Override
@@ -57,9 +66,24 @@ public class JavaToolChainServiceRegistry implements PluginServiceRegistry {
         registration.addProvider(new ProjectScopeCompileServices());
     }
 
+    private static class GlobalScopeCompileServices {
+        void configure(ServiceRegistration registration, ListenerManager listenerManager) {
+            // Registered once, as the build session uses the global listener manager
+            listenerManager.addListener(new IdleFileManagerCloser());
+        }
+
+        CompilerDaemonPool createCompilerDaemonPool() {
+            return new CompilerDaemonPool(new TrueTimeProvider());
+        }
+
+        CompileClasspathPropertyAnnotationHandler createCompileClasspathPropertyAnnotationHandler() {
+            return new CompileClasspathPropertyAnnotationHandler(new CompileClasspathSnapshotNormalizationStrategy());
+        }
+    }
+
     private static class BuildSessionScopeCompileServices {
-        CompilerDaemonManager createCompilerDaemonManager(WorkerProcessFactory workerFactory, StartParameter startParameter) {
-            return new CompilerDaemonManager(new CompilerClientsManager(new CompilerDaemonStarter(workerFactory, startParameter)));
+        CompilerDaemonManager createCompilerDaemonManager(WorkerProcessFactory workerFactory, StartParameter startParameter, CompilerDaemonPool compilerDaemonPool) {
+            return new CompilerDaemonManager(new CompilerClientsManager(new CompilerDaemonStarter(workerFactory, startParameter), compilerDaemonPool));
         }
 
         Factory<JavaCompiler> createJavaHomeBasedJavaCompilerFactory() {
@@ -67,6 +91,16 @@ public class JavaToolChainServiceRegistry implements PluginServiceRegistry {
         }
     }
 
+    /**
+     * Closes the file managers kept by in-process compilations when a build finishes, so that they do not keep the classpath jars open.
+     */
+    private static class IdleFileManagerCloser extends BuildAdapter {
+        @Override
+        public void buildFinished(BuildResult result) {
+            JdkJavaCompiler.closeIdleFileManagers();
+        }
+    }
+
     private static class ProjectScopeCompileServices {
         JavaCompilerFactory createJavaCompilerFactory(GradleInternal gradle, CompilerDaemonManager compilerDaemonManager, Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory) {
             return new DefaultJavaCompilerFactory(gradle.getRootProject().getProjectDir(), compilerDaemonManager, javaHomeBasedJavaCompilerFactory);
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile
+
+import com.google.common.hash.Hashing
+import com.google.common.io.Files
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.changedetection.state.FileDetails
+import org.gradle.api.internal.changedetection.state.FileHashSnapshot
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class CompileClasspathSnapshotNormalizationStrategyTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def strategy = new CompileClasspathSnapshotNormalizationStrategy()
+    def interner = new StringInterner()
+
+    def "jars with the same ABI have the same snapshot"() {
+        def original = jar("a.jar", ["Foo": generateClass(1, "foo")])
+        def changedBody = jar("b.jar", ["Foo": generateClass(2, "foo")])
+        def changedAbi = jar("c.jar", ["Foo": generateClass(1, "bar")])
+
+        expect:
+        rootSnapshot(original) == rootSnapshot(changedBody)
+        rootSnapshot(original) != rootSnapshot(changedAbi)
+    }
+
+    def "ignores resources in jars"() {
+        def original = jar("a.jar", ["Foo": generateClass(1, "foo")], ["some.properties": "a"])
+        def changedResource = jar("b.jar", ["Foo": generateClass(1, "foo")], ["some.properties": "b"])
+
+        expect:
+        rootSnapshot(original) == rootSnapshot(changedResource)
+    }
+
+    def "uses full content of jars that declare an annotation processor"() {
+        def processor = "META-INF/services/javax.annotation.processing.Processor"
+        def original = jar("a.jar", ["Foo": generateClass(1, "foo")], [(processor): "Foo"])
+        def changedBody = jar("b.jar", ["Foo": generateClass(2, "foo")], [(processor): "Foo"])
+
+        expect:
+        rootSnapshot(original) != rootSnapshot(changedBody)
+    }
+
+    def "class files with the same ABI have the same snapshot"() {
+        def dir1 = tmpDir.createDir("dir1")
+        def dir2 = tmpDir.createDir("dir2")
+        def dir3 = tmpDir.createDir("dir3")
+        dir1.createFile("org/Foo.class").bytes = generateClass(1, "foo")
+        dir2.createFile("org/Foo.class").bytes = generateClass(2, "foo")
+        dir3.createFile("org/Foo.class").bytes = generateClass(1, "bar")
+
+        expect:
+        classSnapshot(dir1, "org/Foo.class") == classSnapshot(dir2, "org/Foo.class")
+        classSnapshot(dir1, "org/Foo.class") != classSnapshot(dir3, "org/Foo.class")
+    }
+
+    def "uses full content of class files in directories that declare an annotation processor"() {
+        def dir1 = tmpDir.createDir("dir1")
+        def dir2 = tmpDir.createDir("dir2")
+        [dir1, dir2].each { it.createFile("META-INF/services/javax.annotation.processing.Processor").text = "org.Foo" }
+        dir1.createFile("org/Foo.class").bytes = generateClass(1, "foo")
+        dir2.createFile("org/Foo.class").bytes = generateClass(2, "foo")
+
+        expect:
+        classSnapshot(dir1, "org/Foo.class") != classSnapshot(dir2, "org/Foo.class")
+    }
+
+    def "normalizes paths like a classpath"() {
+        def dir = tmpDir.createDir("dir")
+        dir.createFile("org/Foo.class").bytes = generateClass(1, "foo")
+
+        expect:
+        normalize(dir.file("org/Foo.class"), false, RelativePath.parse(true, "org/Foo.class")).normalizedPath == "org/Foo.class"
+        normalize(jar("a.jar", [:]), true, RelativePath.parse(true, "a.jar")).normalizedPath == ""
+    }
+
+    private def rootSnapshot(TestFile jar) {
+        normalize(jar, true, RelativePath.parse(true, jar.name)).snapshot
+    }
+
+    private def classSnapshot(TestFile dir, String path) {
+        normalize(dir.file(path), false, RelativePath.parse(true, path)).snapshot
+    }
+
+    private def normalize(TestFile file, boolean root, RelativePath relativePath) {
+        def details = Stub(FileDetails) {
+            getPath() >> file.absolutePath
+            getName() >> file.name
+            getType() >> FileDetails.FileType.RegularFile
+            isRoot() >> root
+            getRelativePath() >> relativePath
+        }
+        strategy.getNormalizedSnapshot(details, new FileHashSnapshot(Files.hash(file, Hashing.md5())), interner)
+    }
+
+    private TestFile jar(String name, Map<String, byte[]> classes, Map<String, String> resources = [:]) {
+        def jar = tmpDir.file(name)
+        def out = new ZipOutputStream(new FileOutputStream(jar))
+        try {
+            classes.each { className, bytes ->
+                out.putNextEntry(new ZipEntry(className.replace('.', '/') + ".class"))
+                out.write(bytes)
+            }
+            resources.each { path, text ->
+                out.putNextEntry(new ZipEntry(path))
+                out.write(text.bytes)
+            }
+        } finally {
+            out.close()
+        }
+        jar
+    }
+
+    private static byte[] generateClass(int returnValue, String publicMethodName) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, "Foo", null, "java/lang/Object", [] as String[])
+        def method = writer.visitMethod(Opcodes.ACC_PUBLIC, publicMethodName, "()I", null, null)
+        method.visitCode()
+        method.visitLdcInsn(returnValue)
+        method.visitInsn(Opcodes.IRETURN)
+        method.visitMaxs(1, 1)
+        method.visitEnd()
+        writer.visitEnd()
+        writer.toByteArray()
+    }
+}
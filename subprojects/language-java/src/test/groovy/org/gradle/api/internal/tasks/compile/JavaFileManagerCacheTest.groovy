@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import java.nio.charset.Charset
+
+class JavaFileManagerCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def compiler = Mock(JavaCompiler)
+    def cache = new JavaFileManagerCache()
+
+    def "reuses released file manager for compilation with same options"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def jar = tmpDir.createFile("lib.jar")
+        def dir = tmpDir.createDir("classes")
+
+        when:
+        def first = cache.acquire(compiler, null, ["-g", "-classpath", "a.jar", "-d", "out1"], [jar, dir])
+        first.release()
+        def second = cache.acquire(compiler, null, ["-g", "-classpath", "b.jar", "-d", "out2"], [jar])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        0 * compiler._
+        first.fileManager == fileManager
+        second.fileManager == fileManager
+    }
+
+    def "does not share file manager between concurrent compilations"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+
+        when:
+        def first = cache.acquire(compiler, null, [], [])
+        def second = cache.acquire(compiler, null, [], [])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+        first.fileManager == fileManager1
+        second.fileManager == fileManager2
+    }
+
+    def "uses separate file managers for different options and encodings"() {
+        def charset = Charset.forName("UTF-8")
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        def fileManager3 = Mock(StandardJavaFileManager)
+        def fileManager4 = Mock(StandardJavaFileManager)
+
+        when:
+        cache.acquire(compiler, null, ["-bootclasspath", "rt.jar"], []).release()
+        def differentOptions = cache.acquire(compiler, null, ["-bootclasspath", "other.jar"], [])
+        def differentCharset = cache.acquire(compiler, charset, ["-bootclasspath", "rt.jar"], [])
+        def withClasspath = cache.acquire(compiler, null, ["-bootclasspath", "rt.jar", "-classpath", "a.jar"], [])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager1
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager2
+        1 * compiler.getStandardFileManager(null, null, charset) >> fileManager3
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager4
+        differentOptions.fileManager == fileManager2
+        differentCharset.fileManager == fileManager3
+        withClasspath.fileManager == fileManager4
+    }
+
+    def "discards file manager when a jar on the classpath of an earlier compilation has changed"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        def jar = tmpDir.createFile("lib.jar")
+        jar.text = "original"
+
+        given:
+        compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+        cache.acquire(compiler, null, [], [jar]).release()
+
+        when:
+        jar.text = "changed content"
+        def fileManager = cache.acquire(compiler, null, [], [])
+
+        then:
+        fileManager.fileManager == fileManager2
+        1 * fileManager1.close()
+    }
+
+    def "closes file manager that is discarded"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+
+        when:
+        cache.acquire(compiler, null, [], []).discard()
+
+        then:
+        1 * fileManager.close()
+    }
+
+    def "closes least recently released file manager when too many are idle"() {
+        def fileManagers = (0..8).collect { Mock(StandardJavaFileManager) }
+        compiler.getStandardFileManager(null, null, null) >>> fileManagers
+
+        given:
+        def acquired = (0..8).collect { cache.acquire(compiler, null, ["-source", "1.$it".toString()], []) }
+
+        when:
+        acquired.each { it.release() }
+
+        then:
+        1 * fileManagers[0].close()
+        0 * _.close()
+    }
+
+    def "closes least recently released file manager when too many with the same options are idle"() {
+        def fileManagers = (0..4).collect { Mock(StandardJavaFileManager) }
+        compiler.getStandardFileManager(null, null, null) >>> fileManagers
+
+        given:
+        def acquired = (0..4).collect { cache.acquire(compiler, null, [], []) }
+
+        when:
+        acquired.each { it.release() }
+
+        then:
+        1 * fileManagers[0].close()
+        0 * _.close()
+    }
+
+    def "closes idle file managers when stopped"() {
+        def idleFileManager = Mock(StandardJavaFileManager)
+        def busyFileManager = Mock(StandardJavaFileManager)
+        def newFileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >>> [idleFileManager, busyFileManager]
+
+        given:
+        def idle = cache.acquire(compiler, null, [], [])
+        cache.acquire(compiler, null, [], [])
+        idle.release()
+
+        when:
+        cache.stop()
+
+        then:
+        1 * idleFileManager.close()
+        0 * busyFileManager.close()
+
+        when:
+        def next = cache.acquire(compiler, null, [], [])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> newFileManager
+        next.fileManager == newFileManager
+    }
+}
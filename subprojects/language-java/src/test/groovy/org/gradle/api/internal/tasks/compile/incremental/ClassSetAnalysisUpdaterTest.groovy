@@ -21,6 +21,7 @@ import org.gradle.api.internal.cache.Stash
 import org.gradle.api.internal.file.FileOperations
 import org.gradle.api.internal.tasks.compile.JavaCompileSpec
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -29,8 +30,13 @@ class ClassSetAnalysisUpdaterTest extends Specification {
     def stash = Mock(Stash)
     def operations = Mock(FileOperations)
     def analyzer = Mock(ClassDependenciesAnalyzer)
+    def executorFactory = new DefaultExecutorFactory()
 
-    @Subject updater = new ClassSetAnalysisUpdater(stash, operations, analyzer)
+    @Subject updater = new ClassSetAnalysisUpdater(stash, operations, analyzer, executorFactory)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
 
     def "updates"() {
         when: updater.updateAnalysis(Stub(JavaCompileSpec))
@@ -20,6 +20,8 @@ package org.gradle.api.internal.tasks.compile.incremental.analyzer
 
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.annotations.*
 import org.gradle.api.internal.tasks.compile.incremental.test.*
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -71,6 +73,39 @@ class DefaultClassDependenciesAnalyzerTest extends Specification {
         analyze(SomeSourceAnnotation).dependencyToAll
     }
 
+    def "ABI hash ignores method bodies and private members"() {
+        def original = abiHash(generateClass(1, false, "foo"))
+
+        expect:
+        abiHash(generateClass(2, false, "foo")) == original
+        abiHash(generateClass(1, true, "foo")) == original
+        abiHash(generateClass(1, false, "bar")) != original
+    }
+
+    private def abiHash(byte[] bytes) {
+        analyzer.getClassAnalysis("Foo", new ByteArrayInputStream(bytes)).abiHash
+    }
+
+    private static byte[] generateClass(int returnValue, boolean withPrivateMethod, String publicMethodName) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, "Foo", null, "java/lang/Object", [] as String[])
+        def method = writer.visitMethod(Opcodes.ACC_PUBLIC, publicMethodName, "()I", null, null)
+        method.visitCode()
+        method.visitLdcInsn(returnValue)
+        method.visitInsn(Opcodes.IRETURN)
+        method.visitMaxs(1, 1)
+        method.visitEnd()
+        if (withPrivateMethod) {
+            def privateMethod = writer.visitMethod(Opcodes.ACC_PRIVATE, "helper", "()V", null, null)
+            privateMethod.visitCode()
+            privateMethod.visitInsn(Opcodes.RETURN)
+            privateMethod.visitMaxs(0, 1)
+            privateMethod.visitEnd()
+        }
+        writer.visitEnd()
+        writer.toByteArray()
+    }
+
     InputStream classStream(Class aClass) {
         aClass.getResourceAsStream(aClass.getSimpleName() + ".class")
     }
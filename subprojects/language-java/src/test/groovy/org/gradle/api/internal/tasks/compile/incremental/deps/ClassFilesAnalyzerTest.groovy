@@ -18,10 +18,12 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps
 
+import com.google.common.hash.HashCode
 import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysis
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassFilesAnalyzer
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -55,8 +57,67 @@ class ClassFilesAnalyzerTest extends Specification {
         }
         when: analyzer.visitFile(details)
         then:
-        1 * classAnalyzer.getClassAnalysis("org.foo.Foo", new File("Foo.class")) >> new ClassAnalysis(new HashSet(["A"]), true)
+        1 * classAnalyzer.getClassAnalysis("org.foo.Foo", new File("Foo.class")) >> new ClassAnalysis(new HashSet(["A"]), true, HashCode.fromString("abcd"))
         1 * accumulator.addClass("org.foo.Foo", true, new HashSet(["A"]))
         0 * _
+
+        and:
+        analyzer.abiHashes == ["org.foo.Foo": HashCode.fromString("abcd")]
+    }
+
+    def "analyzes class files concurrently and accumulates them in visit order"() {
+        def executorFactory = new DefaultExecutorFactory()
+        def executor = executorFactory.create("test", 4)
+        def analyzer = new ClassFilesAnalyzer(classAnalyzer, "org.foo", accumulator, executor)
+        def classes = (1..20).collect { "org.foo.Foo$it" }
+        def accumulated = []
+
+        when:
+        classes.each { className ->
+            analyzer.visitFile(Stub(FileVisitDetails) {
+                getPath() >> className.replace('.', '/') + ".class"
+                getFile() >> new File(className)
+            })
+        }
+        def abiHashes = analyzer.abiHashes
+
+        then:
+        20 * classAnalyzer.getClassAnalysis(_, _) >> { String className, File file ->
+            Thread.sleep(Math.abs(className.hashCode() % 10))
+            new ClassAnalysis(new HashSet([className + "Dep"]), false, HashCode.fromString("abcd"))
+        }
+        20 * accumulator.addClass(_, false, _) >> { String className, boolean dependencyToAll, Set<String> dependencies ->
+            assert dependencies == [className + "Dep"] as Set
+            accumulated << className
+        }
+        accumulated == classes
+        abiHashes.keySet() == classes as Set
+
+        cleanup:
+        executor.stop()
+        executorFactory.stop()
+    }
+
+    def "rethrows failure to analyze a class file"() {
+        def executorFactory = new DefaultExecutorFactory()
+        def executor = executorFactory.create("test", 2)
+        def analyzer = new ClassFilesAnalyzer(classAnalyzer, "org.foo", accumulator, executor)
+        def failure = new RuntimeException("broken")
+        classAnalyzer.getClassAnalysis(_, _) >> { throw failure }
+
+        when:
+        analyzer.visitFile(Stub(FileVisitDetails) {
+            getPath() >> "org/foo/Foo.class"
+            getFile() >> new File("Foo.class")
+        })
+        analyzer.getAnalysis()
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+
+        cleanup:
+        executor.stop()
+        executorFactory.stop()
     }
 }
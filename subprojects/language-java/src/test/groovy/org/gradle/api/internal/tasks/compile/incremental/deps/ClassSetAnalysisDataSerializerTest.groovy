@@ -38,13 +38,29 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
         ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
 
         then:
-        read.dependents.keySet() == data.dependents.keySet()
+        read.dependentsMap.keySet() == data.dependentsMap.keySet()
 
         ["A", "B", "C"].each {
-            assert read.dependents[it].dependentClasses == data.dependents[it].dependentClasses
-            assert read.dependents[it].dependencyToAll == data.dependents[it].dependencyToAll
+            assert read.getDependents(it).dependentClasses == data.getDependents(it).dependentClasses
+            assert read.getDependents(it).dependencyToAll == data.getDependents(it).dependencyToAll
         }
 
-        read.dependents["D"] instanceof DependencyToAll
+        read.getDependents("D") instanceof DependencyToAll
+    }
+
+    def "serializes classes that are only known as dependents"() {
+        def data = new ClassSetAnalysisData(["A": dependents("B", "C"), "C": dependents("A")])
+        def os = new ByteArrayOutputStream()
+
+        when:
+        serializer.write(new OutputStreamBackedEncoder(os), data)
+        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+
+        then:
+        read.dependentsMap.keySet() == ["A", "C"] as Set
+        read.getDependents("A").dependentClasses == ["B", "C"] as Set
+        read.getDependents("B") == null
+        read.indexOf("B") >= 0
+        read.indexOf("D") == -1
     }
 }
@@ -105,6 +105,18 @@ class ClassSetAnalysisTest extends Specification {
         deps.dependentClasses == ["Bar", "Baz"] as Set
     }
 
+    def "handles dependents without dependents of their own"() {
+        def a = analysis([
+                "a": dependents("b", "c"),
+                "c": dependents("d"),
+        ])
+
+        expect:
+        a.getRelevantDependents("a").dependentClasses == ["b", "c", "d"] as Set
+        a.getRelevantDependents("b").dependentClasses.empty
+        !a.isDependencyToAll("b")
+    }
+
     def "recurses but filters out inner classes"() {
         def a = analysis([
                 "a":   dependents('a$b', 'c'),
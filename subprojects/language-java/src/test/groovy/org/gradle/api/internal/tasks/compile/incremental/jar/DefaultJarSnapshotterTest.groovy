@@ -61,6 +61,7 @@ class DefaultJarSnapshotterTest extends Specification {
         1 * hasher.hash(f1)
         1 * hasher.hash(f2)
         1 * analyzer.getAnalysis() >> Stub(ClassSetAnalysisData)
+        1 * analyzer.getAbiHashes() >> [:]
         0 * _._
 
         and:
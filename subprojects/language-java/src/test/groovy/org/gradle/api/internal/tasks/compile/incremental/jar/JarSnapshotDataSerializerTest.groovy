@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental.jar
+
+import com.google.common.hash.HashCode
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData
+import org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDependentsSet
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependencyToAll
+import org.gradle.internal.serialize.SerializerSpec
+
+class JarSnapshotDataSerializerTest extends SerializerSpec {
+    def serializer = new JarSnapshotDataSerializer()
+
+    def "serializes jar snapshot"() {
+        def hashes = ["A": HashCode.fromString("aa"), "B": HashCode.fromString("bb"), "C": HashCode.fromString("cc")]
+        def abiHashes = ["A": HashCode.fromString("a1"), "B": HashCode.fromString("b1"), "C": HashCode.fromString("c1")]
+        def analysis = new ClassSetAnalysisData([
+            "A": new DefaultDependentsSet(["B", "C"]),
+            "B": new DefaultDependentsSet(true, ["C"]),
+            "C": new DependencyToAll()
+        ])
+
+        when:
+        def data = serialize(new JarSnapshotData(HashCode.fromString("1234"), hashes, abiHashes, analysis), serializer)
+
+        then:
+        data.hash == HashCode.fromString("1234")
+        data.hashes == hashes
+        data.abiHashes == abiHashes
+        data.data.getDependents("A").dependentClasses == ["B", "C"] as Set
+        !data.data.getDependents("A").dependencyToAll
+        data.data.getDependents("B").dependentClasses == ["C"] as Set
+        data.data.getDependents("B").dependencyToAll
+        data.data.getDependents("C") instanceof DependencyToAll
+    }
+
+    def "writes each class name once"() {
+        def className = "org.gradle.some.quite.long.package.name.SomeClass"
+        def snapshot = new JarSnapshotData(HashCode.fromString("1234"), [(className): HashCode.fromString("aa")], [(className): HashCode.fromString("a1")],
+            new ClassSetAnalysisData([(className): new DefaultDependentsSet([className])]))
+
+        when:
+        def bytes = toBytes(snapshot, serializer)
+
+        then:
+        new String(bytes, "UTF-8").count("quite.long.package") == 1
+        fromBytes(bytes, serializer).hashes.keySet() == [className] as Set
+    }
+}
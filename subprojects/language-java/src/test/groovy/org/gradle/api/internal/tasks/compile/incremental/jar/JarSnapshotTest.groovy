@@ -110,4 +110,20 @@ class JarSnapshotTest extends Specification {
         s2.getAffectedClassesSince(s1).added == [] as Set
         s1.getAffectedClassesSince(s3).added == ["A", "B", "C"] as Set
     }
+
+    def "ignores classes whose ABI has not changed since other snapshot"() {
+        def analysis = Mock(ClassSetAnalysisData)
+        JarSnapshot s1 = abiSnapshot(["A": "aa", "B": "bb"], ["A": "a1", "B": "b1"], analysis)
+        JarSnapshot s2 = abiSnapshot(["A": "aaaa", "B": "bbbb"], ["A": "a1", "B": "b2"], analysis)
+
+        analysis.getDependents("B") >> dependents()
+
+        expect:
+        altered(s1, s2).dependentClasses == ["B"] as Set
+    }
+
+    private JarSnapshot abiSnapshot(Map<String, String> hashes, Map<String, String> abiHashes, ClassSetAnalysisData a) {
+        def toHashCodes = { Map<String, String> m -> m.collectEntries { k, v -> [k, HashCode.fromString(v)] } as Map<String, HashCode> }
+        new JarSnapshot(new JarSnapshotData(HashCode.fromString("1234"), toHashCodes(hashes), toHashCodes(abiHashes), a))
+    }
 }
@@ -33,13 +33,28 @@ public class CompilerClientsManager {
     private final List<CompilerDaemonClient> idleClients = new ArrayList<CompilerDaemonClient>();
 
     private CompilerDaemonStarter compilerDaemonStarter;
+    private final CompilerDaemonPool pool;
 
-    public CompilerClientsManager(CompilerDaemonStarter compilerDaemonStarter) {
+    public CompilerClientsManager(CompilerDaemonStarter compilerDaemonStarter, CompilerDaemonPool pool) {
         this.compilerDaemonStarter = compilerDaemonStarter;
+        this.pool = pool;
     }
 
+    /**
+     * Reserves an idle client of this build, or else an idle client left over from an earlier build.
+     */
     public CompilerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions) {
-        return reserveIdleClient(forkOptions, idleClients);
+        CompilerDaemonClient client = reserveIdleClient(forkOptions, idleClients);
+        if (client != null) {
+            return client;
+        }
+        client = pool.take(forkOptions, compilerDaemonStarter.getLogLevel());
+        if (client != null) {
+            synchronized (lock) {
+                allClients.add(client);
+            }
+        }
+        return client;
     }
 
     CompilerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<CompilerDaemonClient> clients) {
@@ -71,11 +86,19 @@ public class CompilerClientsManager {
         }
     }
 
+    /**
+     * Hands the idle clients over to the pool, so that later builds can reuse them, and stops the clients that are still in use.
+     */
     public void stop() {
         synchronized (lock) {
-            LOGGER.debug("Stopping {} compiler daemon(s).", allClients.size());
-            CompositeStoppable.stoppable(allClients).stop();
-            LOGGER.info("Stopped {} compiler daemon(s).", allClients.size());
+            List<CompilerDaemonClient> busyClients = new ArrayList<CompilerDaemonClient>(allClients);
+            busyClients.removeAll(idleClients);
+            LOGGER.debug("Stopping {} compiler daemon(s).", busyClients.size());
+            CompositeStoppable.stoppable(busyClients).stop();
+            LOGGER.info("Stopped {} compiler daemon(s).", busyClients.size());
+            pool.offer(idleClients);
+            LOGGER.debug("Returned {} idle compiler daemon(s) to the pool.", idleClients.size());
+            idleClients.clear();
             allClients.clear();
         }
     }
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.tasks.compile.daemon;
 
+import org.gradle.api.logging.LogLevel;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.language.base.internal.compile.CompileSpec;
 import org.gradle.language.base.internal.compile.Compiler;
@@ -22,10 +23,12 @@ import org.gradle.language.base.internal.compile.Compiler;
 class CompilerDaemonClient implements CompilerDaemon, Stoppable {
     private final DaemonForkOptions forkOptions;
     private final CompilerDaemonWorker workerProcess;
+    private final LogLevel logLevel;
 
-    public CompilerDaemonClient(DaemonForkOptions forkOptions, CompilerDaemonWorker workerProcess) {
+    public CompilerDaemonClient(DaemonForkOptions forkOptions, CompilerDaemonWorker workerProcess, LogLevel logLevel) {
         this.forkOptions = forkOptions;
         this.workerProcess = workerProcess;
+        this.logLevel = logLevel;
     }
 
     @Override
@@ -39,6 +42,17 @@ class CompilerDaemonClient implements CompilerDaemon, Stoppable {
         return forkOptions.isCompatibleWith(required);
     }
 
+    public DaemonForkOptions getForkOptions() {
+        return forkOptions;
+    }
+
+    /**
+     * The log level the daemon was started with.
+     */
+    public LogLevel getLogLevel() {
+        return logLevel;
+    }
+
     @Override
     public void stop() {
         workerProcess.stop();
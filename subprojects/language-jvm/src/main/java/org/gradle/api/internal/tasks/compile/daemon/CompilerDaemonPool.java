@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.daemon;
+
+import com.google.common.base.Objects;
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.Nullable;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.TimeProvider;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps idle compiler daemons between builds, so that later builds run by the same Gradle daemon can reuse warm compiler daemons.
+ *
+ * <p>An idle compiler daemon is stopped when it has not been used for the idle timeout. The least recently used idle compiler daemons
+ * are stopped when there are more than the maximum number of idle compiler daemons, or when their combined maximum heap size exceeds
+ * the limit. The limits are read from system properties whenever the pool is used, so they can be changed from one build to the next.</p>
+ */
+@ThreadSafe
+public class CompilerDaemonPool implements Stoppable {
+    // The maximum number of idle compiler daemons
+    public static final String MAX_IDLE_DAEMONS_PROPERTY = "org.gradle.compiler.daemon.pool.maxIdle";
+    // The idle timeout in milliseconds
+    public static final String IDLE_TIMEOUT_PROPERTY = "org.gradle.compiler.daemon.pool.idleTimeout";
+    // The maximum combined heap size of the idle compiler daemons, such as '2g'
+    public static final String MAX_HEAP_SIZE_PROPERTY = "org.gradle.compiler.daemon.pool.maxHeapSize";
+
+    private static final Logger LOGGER = Logging.getLogger(CompilerDaemonPool.class);
+    private static final int DEFAULT_MAX_IDLE_DAEMONS = 4;
+    private static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.HOURS.toMillis(1);
+    private static final String DEFAULT_MAX_HEAP_SIZE = "2g";
+    // Daemons without a maximum heap size get the JVM default, which depends on the machine, so count them as this much
+    private static final int UNSPECIFIED_HEAP_SIZE_MB = 512;
+
+    private final TimeProvider timeProvider;
+    // Most recently used first
+    private final LinkedList<IdleDaemon> idleDaemons = new LinkedList<IdleDaemon>();
+    private boolean stopped;
+
+    public CompilerDaemonPool(TimeProvider timeProvider) {
+        this.timeProvider = timeProvider;
+    }
+
+    /**
+     * Removes and returns an idle compiler daemon that is compatible with the given fork options and was started with the given log level.
+     *
+     * @return the daemon, or null when there is none.
+     */
+    @Nullable
+    public CompilerDaemonClient take(DaemonForkOptions forkOptions, LogLevel logLevel) {
+        List<CompilerDaemonClient> evicted = new ArrayList<CompilerDaemonClient>();
+        try {
+            synchronized (idleDaemons) {
+                evictExpired(evicted);
+                for (Iterator<IdleDaemon> iterator = idleDaemons.iterator(); iterator.hasNext();) {
+                    CompilerDaemonClient client = iterator.next().client;
+                    if (client.isCompatibleWith(forkOptions) && Objects.equal(client.getLogLevel(), logLevel)) {
+                        iterator.remove();
+                        return client;
+                    }
+                }
+                return null;
+            }
+        } finally {
+            stopEvicted(evicted);
+        }
+    }
+
+    /**
+     * Adds compiler daemons that are no longer used by a build to the pool, stopping idle compiler daemons that exceed the limits.
+     */
+    public void offer(Collection<CompilerDaemonClient> clients) {
+        List<CompilerDaemonClient> evicted = new ArrayList<CompilerDaemonClient>();
+        synchronized (idleDaemons) {
+            if (stopped) {
+                evicted.addAll(clients);
+            } else {
+                long now = timeProvider.getCurrentTime();
+                for (CompilerDaemonClient client : clients) {
+                    idleDaemons.addFirst(new IdleDaemon(client, now));
+                }
+                evictExpired(evicted);
+                evictExcess(evicted);
+            }
+        }
+        stopEvicted(evicted);
+    }
+
+    @Override
+    public void stop() {
+        List<CompilerDaemonClient> evicted = new ArrayList<CompilerDaemonClient>();
+        synchronized (idleDaemons) {
+            stopped = true;
+            for (IdleDaemon idleDaemon : idleDaemons) {
+                evicted.add(idleDaemon.client);
+            }
+            idleDaemons.clear();
+        }
+        stopEvicted(evicted);
+    }
+
+    private void evictExpired(List<CompilerDaemonClient> evicted) {
+        long expiry = timeProvider.getCurrentTime() - getLongProperty(IDLE_TIMEOUT_PROPERTY, DEFAULT_IDLE_TIMEOUT);
+        for (Iterator<IdleDaemon> iterator = idleDaemons.iterator(); iterator.hasNext();) {
+            IdleDaemon idleDaemon = iterator.next();
+            if (idleDaemon.idleSince < expiry) {
+                iterator.remove();
+                evicted.add(idleDaemon.client);
+            }
+        }
+    }
+
+    private void evictExcess(List<CompilerDaemonClient> evicted) {
+        long maxIdleDaemons = getLongProperty(MAX_IDLE_DAEMONS_PROPERTY, DEFAULT_MAX_IDLE_DAEMONS);
+        int maxHeapSizeMb = getMaxHeapSizeMb();
+        long heapSizeMb = 0;
+        for (IdleDaemon idleDaemon : idleDaemons) {
+            heapSizeMb += idleDaemon.heapSizeMb;
+        }
+        while (!idleDaemons.isEmpty() && (idleDaemons.size() > maxIdleDaemons || heapSizeMb > maxHeapSizeMb)) {
+            IdleDaemon leastRecentlyUsed = idleDaemons.removeLast();
+            heapSizeMb -= leastRecentlyUsed.heapSizeMb;
+            evicted.add(leastRecentlyUsed.client);
+        }
+    }
+
+    private static void stopEvicted(List<CompilerDaemonClient> evicted) {
+        if (evicted.isEmpty()) {
+            return;
+        }
+        LOGGER.debug("Stopping {} idle compiler daemon(s).", evicted.size());
+        CompositeStoppable.stoppable(evicted).stop();
+    }
+
+    private static int getMaxHeapSizeMb() {
+        String value = System.getProperty(MAX_HEAP_SIZE_PROPERTY, DEFAULT_MAX_HEAP_SIZE);
+        try {
+            return DaemonForkOptions.getHeapSizeMb(value);
+        } catch (InvalidUserDataException e) {
+            LOGGER.warn("Ignoring invalid value '{}' for system property '{}'.", value, MAX_HEAP_SIZE_PROPERTY);
+            return DaemonForkOptions.getHeapSizeMb(DEFAULT_MAX_HEAP_SIZE);
+        }
+    }
+
+    private static long getLongProperty(String name, long defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Ignoring invalid value '{}' for system property '{}'.", value, name);
+            return defaultValue;
+        }
+    }
+
+    private static class IdleDaemon {
+        private final CompilerDaemonClient client;
+        private final long idleSince;
+        private final int heapSizeMb;
+
+        IdleDaemon(CompilerDaemonClient client, long idleSince) {
+            this.client = client;
+            this.idleSince = idleSince;
+            int maxHeapSizeMb = client.getForkOptions().getMaxHeapSizeMb();
+            this.heapSizeMb = maxHeapSizeMb == -1 ? UNSPECIFIED_HEAP_SIZE_MB : maxHeapSizeMb;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.gradle.api.internal.tasks.compile.daemon;
 
 import org.gradle.StartParameter;
+import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.process.internal.JavaExecHandleBuilder;
@@ -35,6 +36,10 @@ public class CompilerDaemonStarter {
         this.startParameter = startParameter;
     }
 
+    public LogLevel getLogLevel() {
+        return startParameter.getLogLevel();
+    }
+
     public CompilerDaemonClient startDaemon(File workingDir, DaemonForkOptions forkOptions) {
         LOG.debug("Starting Gradle compiler daemon with fork options {}.", forkOptions);
         Clock clock = new Clock();
@@ -51,7 +56,7 @@ public class CompilerDaemonStarter {
         CompilerDaemonWorker worker = builder.build();
         worker.start();
 
-        CompilerDaemonClient client = new CompilerDaemonClient(forkOptions, worker);
+        CompilerDaemonClient client = new CompilerDaemonClient(forkOptions, worker, startParameter.getLogLevel());
 
         LOG.info("Started Gradle compiler daemon ({}) with fork options {}.", clock.getTime(), forkOptions);
 
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.daemon
 
+import org.gradle.api.logging.LogLevel
 import org.gradle.util.ConcurrentSpecification
 import spock.lang.Subject
 
@@ -24,9 +25,12 @@ class CompilerClientsManagerTest extends ConcurrentSpecification {
     def workingDir = new File("some-dir")
 
     def options = Stub(DaemonForkOptions)
-    def starter = Stub(CompilerDaemonStarter)
+    def starter = Stub(CompilerDaemonStarter) {
+        getLogLevel() >> LogLevel.LIFECYCLE
+    }
+    def pool = Mock(CompilerDaemonPool)
 
-    @Subject manager = new CompilerClientsManager(starter)
+    @Subject manager = new CompilerClientsManager(starter, pool)
 
     def "does not reserve idle client when no clients"() {
         expect:
@@ -94,4 +98,38 @@ class CompilerClientsManagerTest extends ConcurrentSpecification {
         then:
         manager.reserveIdleClient(options) == client
     }
+
+    def "reserves idle client from the pool when this build has no matching idle client"() {
+        def pooled = Mock(CompilerDaemonClient)
+
+        when:
+        def client = manager.reserveIdleClient(options)
+
+        then:
+        1 * pool.take(options, LogLevel.LIFECYCLE) >> pooled
+        client == pooled
+
+        when:
+        manager.stop()
+
+        then:
+        1 * pooled.stop()
+    }
+
+    def "hands idle clients to the pool and stops busy clients when stopped"() {
+        def idle = Mock(CompilerDaemonClient)
+        def busy = Mock(CompilerDaemonClient)
+        starter.startDaemon(workingDir, options) >>> [idle, busy]
+
+        when:
+        manager.reserveNewClient(workingDir, options)
+        manager.reserveNewClient(workingDir, options)
+        manager.release(idle)
+        manager.stop()
+
+        then:
+        1 * pool.offer([idle])
+        1 * busy.stop()
+        0 * idle.stop()
+    }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.daemon
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.TimeProvider
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Subject
+
+class CompilerDaemonPoolTest extends Specification {
+    @Rule SetSystemProperties systemProperties = new SetSystemProperties()
+
+    long now = 1000
+    def timeProvider = Stub(TimeProvider) {
+        getCurrentTime() >> { now }
+    }
+    def options = new DaemonForkOptions(null, "256m", [])
+
+    @Subject pool = new CompilerDaemonPool(timeProvider)
+
+    def "takes compatible idle daemon started with the same log level"() {
+        def incompatible = client(false)
+        def otherLogLevel = client(true, LogLevel.DEBUG)
+        def match = client(true)
+
+        when:
+        pool.offer([incompatible, otherLogLevel, match])
+
+        then:
+        pool.take(options, LogLevel.LIFECYCLE) == match
+        pool.take(options, LogLevel.LIFECYCLE) == null
+        0 * _.stop()
+    }
+
+    def "stops least recently used daemons when there are too many idle daemons"() {
+        System.setProperty(CompilerDaemonPool.MAX_IDLE_DAEMONS_PROPERTY, "2")
+        def first = client(true)
+        def second = client(true)
+        def third = client(true)
+
+        when:
+        pool.offer([first])
+        pool.offer([second])
+        pool.offer([third])
+
+        then:
+        1 * first.stop()
+        0 * second.stop()
+        0 * third.stop()
+    }
+
+    def "stops least recently used daemons when their combined heap size exceeds the limit"() {
+        System.setProperty(CompilerDaemonPool.MAX_HEAP_SIZE_PROPERTY, "1g")
+        def first = client(true, LogLevel.LIFECYCLE, "512m")
+        def second = client(true, LogLevel.LIFECYCLE, "256m")
+        def third = client(true, LogLevel.LIFECYCLE, "512m")
+
+        when:
+        pool.offer([first])
+        pool.offer([second])
+
+        then:
+        0 * _.stop()
+
+        when:
+        pool.offer([third])
+
+        then:
+        1 * first.stop()
+        0 * second.stop()
+        0 * third.stop()
+    }
+
+    def "stops daemons that have been idle for longer than the idle timeout"() {
+        System.setProperty(CompilerDaemonPool.IDLE_TIMEOUT_PROPERTY, "100")
+        def expired = client(true)
+
+        when:
+        pool.offer([expired])
+        now += 101
+        def taken = pool.take(options, LogLevel.LIFECYCLE)
+
+        then:
+        taken == null
+        1 * expired.stop()
+    }
+
+    def "stops idle daemons and daemons offered later when stopped"() {
+        def idle = client(true)
+        def late = client(true)
+
+        when:
+        pool.offer([idle])
+        pool.stop()
+
+        then:
+        1 * idle.stop()
+
+        when:
+        pool.offer([late])
+
+        then:
+        1 * late.stop()
+    }
+
+    private CompilerDaemonClient client(boolean compatible, LogLevel logLevel = LogLevel.LIFECYCLE, String maxHeapSize = "256m") {
+        def forkOptions = new DaemonForkOptions(null, maxHeapSize, [])
+        Mock(CompilerDaemonClient) {
+            isCompatibleWith(_) >> compatible
+            getLogLevel() >> logLevel
+            getForkOptions() >> forkOptions
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser;
+
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+
+@State(Scope.Thread)
+public class CSourceParserBenchmark {
+    private static final int HEADER_COUNT = 500;
+
+    @Param({"20", "200", "2000"})
+    int linesPerHeader;
+
+    private File corpusDir;
+    private File[] headers;
+    private CSourceParser regexBacked;
+    private CSourceParser directiveScanning;
+
+    @Setup
+    public void setup() throws IOException {
+        corpusDir = File.createTempFile("headers", "");
+        GFileUtils.forceDelete(corpusDir);
+        headers = new File[HEADER_COUNT];
+        for (int i = 0; i < HEADER_COUNT; i++) {
+            headers[i] = new File(corpusDir, "module" + (i % 10) + "/header" + i + ".h");
+            GFileUtils.writeFile(header(i), headers[i]);
+        }
+        regexBacked = new RegexBackedCSourceParser();
+        directiveScanning = new DirectiveScanningCSourceParser();
+    }
+
+    @TearDown
+    public void tearDown() {
+        GFileUtils.deleteDirectory(corpusDir);
+    }
+
+    private String header(int index) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("/*\n * Copyright header\n *\n * #include \"commented.h\"\n */\n\n");
+        builder.append("#ifndef HEADER_").append(index).append("_H\n#define HEADER_").append(index).append("_H\n\n");
+        builder.append("#include <stdio.h>\n#include <string.h>\n");
+        for (int i = 0; i < 5; i++) {
+            builder.append("#include \"module").append(i).append("/header").append((index + i + 1) % HEADER_COUNT).append(".h\"\n");
+        }
+        builder.append("#  include CONFIG_HEADER // configured include\n\n");
+        for (int i = 0; i < linesPerHeader; i++) {
+            switch (i % 5) {
+                case 0:
+                    builder.append("static inline int function").append(i).append("(int value) { return value * ").append(i).append("; }\n");
+                    break;
+                case 1:
+                    builder.append("    // A comment with a \"string\" and a #define\n");
+                    break;
+                case 2:
+                    builder.append("#define MACRO_").append(i).append("(x) \\\n    ((x) + ").append(i).append(")\n");
+                    break;
+                case 3:
+                    builder.append("static const char *text").append(i).append(" = \"a string with /* no comment */\";\n");
+                    break;
+                default:
+                    builder.append("\n");
+            }
+        }
+        builder.append("\n#endif\n");
+        return builder.toString();
+    }
+
+    @Benchmark
+    public void regexBackedParser(Blackhole bh) {
+        for (File header : headers) {
+            bh.consume(regexBacked.parseSource(header));
+        }
+    }
+
+    @Benchmark
+    public void directiveScanningParser(Blackhole bh) {
+        for (File header : headers) {
+            bh.consume(directiveScanning.parseSource(header));
+        }
+    }
+}
@@ -22,15 +22,10 @@ import org.gradle.internal.serialize.BaseSerializerFactory;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.HashCodeSerializer;
-import org.gradle.internal.serialize.ListSerializer;
 import org.gradle.internal.serialize.MapSerializer;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.serialize.SetSerializer;
-import org.gradle.language.nativeplatform.internal.Include;
 import org.gradle.language.nativeplatform.internal.IncludeDirectives;
-import org.gradle.language.nativeplatform.internal.IncludeType;
-import org.gradle.language.nativeplatform.internal.incremental.sourceparser.DefaultInclude;
-import org.gradle.language.nativeplatform.internal.incremental.sourceparser.DefaultIncludeDirectives;
 
 import java.io.File;
 import java.util.Set;
@@ -63,7 +58,7 @@ public class CompilationStateSerializer implements Serializer<CompilationState>
     private class CompilationFileStateSerializer implements Serializer<CompilationFileState> {
         private final Serializer<HashCode> hashSerializer = new HashCodeSerializer();
         private final Serializer<Set<ResolvedInclude>> resolveIncludesSerializer = new SetSerializer<ResolvedInclude>(new ResolvedIncludeSerializer());
-        private final Serializer<IncludeDirectives> sourceIncludesSerializer = new SourceIncludesSerializer();
+        private final Serializer<IncludeDirectives> sourceIncludesSerializer = new IncludeDirectivesSerializer();
 
         @Override
         public CompilationFileState read(Decoder decoder) throws Exception {
@@ -103,40 +98,4 @@ public class CompilationStateSerializer implements Serializer<CompilationState>
             }
         }
     }
-
-    private class SourceIncludesSerializer implements Serializer<IncludeDirectives> {
-        private final Serializer<Include> includeSerializer = new IncludeSerializer();
-        private final ListSerializer<Include> includeListSerializer = new ListSerializer<Include>(includeSerializer);
-
-        @Override
-        public IncludeDirectives read(Decoder decoder) throws Exception {
-            return new DefaultIncludeDirectives(includeListSerializer.read(decoder));
-        }
-
-        @Override
-        public void write(Encoder encoder, IncludeDirectives value) throws Exception {
-            includeListSerializer.write(encoder, value.getIncludesAndImports());
-        }
-    }
-
-    private class IncludeSerializer implements Serializer<Include> {
-        private final Serializer<String> stringSerializer = serializerFactory.getSerializerFor(String.class);
-        private final Serializer<Boolean> booleanSerializer = serializerFactory.getSerializerFor(Boolean.class);
-        private final Serializer<IncludeType> enumSerializer = serializerFactory.getSerializerFor(IncludeType.class);
-
-        @Override
-        public Include read(Decoder decoder) throws Exception {
-            String value = stringSerializer.read(decoder);
-            boolean isImport = booleanSerializer.read(decoder);
-            IncludeType type = enumSerializer.read(decoder);
-            return new DefaultInclude(value, isImport, type);
-        }
-
-        @Override
-        public void write(Encoder encoder, Include value) throws Exception {
-            stringSerializer.write(encoder, value.getValue());
-            booleanSerializer.write(encoder, value.isImport());
-            enumSerializer.write(encoder, value.getType());
-        }
-    }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental;
+
+import com.google.common.hash.HashCode;
+import org.gradle.api.internal.changedetection.state.TaskHistoryStore;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.language.nativeplatform.internal.IncludeDirectives;
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.CSourceParser;
+
+import java.io.File;
+
+/**
+ * The include directives of source and header files by the hash of their content, shared by all native compile tasks and kept across builds.
+ * A header that is used by many compile tasks is parsed once for each version of its content, rather than once by each of these tasks.
+ */
+public class IncludeDirectivesCache {
+    private final PersistentIndexedCache<String, IncludeDirectives> includeDirectivesCache;
+
+    public IncludeDirectivesCache(TaskHistoryStore cacheAccess) {
+        includeDirectivesCache = cacheAccess.createCache("includeDirectives", String.class, new IncludeDirectivesSerializer());
+    }
+
+    /**
+     * Returns the include directives of the given file, which has content with the given hash. Parses the file using the given parser when the
+     * include directives for this content are not known yet.
+     */
+    public IncludeDirectives getIncludeDirectives(File file, HashCode hash, CSourceParser parser) {
+        String key = hash.toString();
+        IncludeDirectives includeDirectives = includeDirectivesCache.get(key);
+        if (includeDirectives == null) {
+            includeDirectives = parser.parseSource(file);
+            includeDirectivesCache.put(key, includeDirectives);
+        }
+        return includeDirectives;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental;
+
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.ListSerializer;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.language.nativeplatform.internal.Include;
+import org.gradle.language.nativeplatform.internal.IncludeDirectives;
+import org.gradle.language.nativeplatform.internal.IncludeType;
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.DefaultInclude;
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.DefaultIncludeDirectives;
+
+public class IncludeDirectivesSerializer implements Serializer<IncludeDirectives> {
+    private final ListSerializer<Include> includeListSerializer = new ListSerializer<Include>(new IncludeSerializer());
+
+    @Override
+    public IncludeDirectives read(Decoder decoder) throws Exception {
+        return new DefaultIncludeDirectives(includeListSerializer.read(decoder));
+    }
+
+    @Override
+    public void write(Encoder encoder, IncludeDirectives value) throws Exception {
+        includeListSerializer.write(encoder, value.getIncludesAndImports());
+    }
+
+    private static class IncludeSerializer implements Serializer<Include> {
+        private final BaseSerializerFactory serializerFactory = new BaseSerializerFactory();
+        private final Serializer<String> stringSerializer = serializerFactory.getSerializerFor(String.class);
+        private final Serializer<Boolean> booleanSerializer = serializerFactory.getSerializerFor(Boolean.class);
+        private final Serializer<IncludeType> enumSerializer = serializerFactory.getSerializerFor(IncludeType.class);
+
+        @Override
+        public Include read(Decoder decoder) throws Exception {
+            String value = stringSerializer.read(decoder);
+            boolean isImport = booleanSerializer.read(decoder);
+            IncludeType type = enumSerializer.read(decoder);
+            return new DefaultInclude(value, isImport, type);
+        }
+
+        @Override
+        public void write(Encoder encoder, Include value) throws Exception {
+            stringSerializer.write(encoder, value.getValue());
+            booleanSerializer.write(encoder, value.isImport());
+            enumSerializer.write(encoder, value.getType());
+        }
+    }
+}
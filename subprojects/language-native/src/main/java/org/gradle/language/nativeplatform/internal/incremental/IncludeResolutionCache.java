@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.tasks.execution.TaskOutputsGenerationListener;
+import org.gradle.internal.FileUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Searches for include files and remembers the results, so that an include that is used by many source and header files is searched for once
+ * for each search path. Shared by all native compile tasks of a build.
+ *
+ * <p>All results are discarded when a task is about to generate its outputs, as the task may add or remove include files.</p>
+ */
+public class IncludeResolutionCache implements TaskOutputsGenerationListener {
+    private volatile Map<SearchKey, Resolution> resolutions = new ConcurrentHashMap<SearchKey, Resolution>();
+
+    /**
+     * Searches the given directories in order for the given include file.
+     */
+    public Resolution resolve(List<File> searchPath, String include) {
+        // Searches that overlap with a task generating outputs add their result to the discarded map
+        Map<SearchKey, Resolution> current = resolutions;
+        Resolution resolution = current.get(new SearchKey(searchPath, include));
+        if (resolution == null) {
+            resolution = search(searchPath, include);
+            current.put(new SearchKey(ImmutableList.copyOf(searchPath), include), resolution);
+        }
+        return resolution;
+    }
+
+    @Override
+    public void beforeTaskOutputsGenerated() {
+        resolutions = new ConcurrentHashMap<SearchKey, Resolution>();
+    }
+
+    private static Resolution search(List<File> searchPath, String include) {
+        List<File> checkedLocations = new ArrayList<File>(searchPath.size());
+        for (File searchDir : searchPath) {
+            File candidate = new File(searchDir, include);
+            // TODO: SLG This isn't correct, we need to consider directories too
+            // If a source file is #include <type_trait>
+            // and includePath = [ A, B ]
+            // and /B/type_trait is the header we want.
+            // We need /A/type_trait to be recorded as a directory in case it becomes a file later.
+            if (!candidate.isDirectory()) {
+                checkedLocations.add(candidate);
+            }
+            if (candidate.isFile()) {
+                return new Resolution(FileUtils.canonicalize(candidate), checkedLocations);
+            }
+        }
+        return new Resolution(null, checkedLocations);
+    }
+
+    public static class Resolution {
+        private final File file;
+        private final List<File> checkedLocations;
+
+        Resolution(@Nullable File file, List<File> checkedLocations) {
+            this.file = file;
+            this.checkedLocations = checkedLocations;
+        }
+
+        /**
+         * The canonical include file, or null when not found.
+         */
+        @Nullable
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Every file path searched.
+         */
+        public List<File> getCheckedLocations() {
+            return checkedLocations;
+        }
+    }
+
+    private static class SearchKey {
+        private final List<File> searchPath;
+        private final String include;
+
+        SearchKey(List<File> searchPath, String include) {
+            this.searchPath = searchPath;
+            this.include = include;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SearchKey)) {
+                return false;
+            }
+            SearchKey other = (SearchKey) obj;
+            return include.equals(other.include) && searchPath.equals(other.searchPath);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * include.hashCode() + searchPath.hashCode();
+        }
+    }
+}
@@ -26,14 +26,18 @@ public class IncrementalCompilerBuilder {
     private final FileSnapshotter fileSnapshotter;
     private final CompilationStateCacheFactory compilationStateCacheFactory;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
+    private final IncludeDirectivesCache includeDirectivesCache;
+    private final IncludeResolutionCache includeResolutionCache;
 
-    public IncrementalCompilerBuilder(FileSnapshotter fileSnapshotter, CompilationStateCacheFactory compilationStateCacheFactory, DirectoryFileTreeFactory directoryFileTreeFactory) {
+    public IncrementalCompilerBuilder(FileSnapshotter fileSnapshotter, CompilationStateCacheFactory compilationStateCacheFactory, DirectoryFileTreeFactory directoryFileTreeFactory, IncludeDirectivesCache includeDirectivesCache, IncludeResolutionCache includeResolutionCache) {
         this.fileSnapshotter = fileSnapshotter;
         this.compilationStateCacheFactory = compilationStateCacheFactory;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
+        this.includeDirectivesCache = includeDirectivesCache;
+        this.includeResolutionCache = includeResolutionCache;
     }
 
     public <T extends NativeCompileSpec> Compiler<T> createIncrementalCompiler(TaskInternal task, Compiler<T> compiler, NativeToolChain toolchain) {
-        return new IncrementalNativeCompiler<T>(task, fileSnapshotter, compilationStateCacheFactory, compiler, toolchain, directoryFileTreeFactory);
+        return new IncrementalNativeCompiler<T>(task, fileSnapshotter, compilationStateCacheFactory, includeDirectivesCache, includeResolutionCache, compiler, toolchain, directoryFileTreeFactory);
     }
 }
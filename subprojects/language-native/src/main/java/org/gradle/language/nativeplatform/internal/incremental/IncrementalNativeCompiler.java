@@ -32,6 +32,7 @@ import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.language.base.internal.tasks.SimpleStaleClassCleaner;
 import org.gradle.language.nativeplatform.internal.IncludeDirectives;
 import org.gradle.language.nativeplatform.internal.incremental.sourceparser.CSourceParser;
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.DirectiveScanningCSourceParser;
 import org.gradle.language.nativeplatform.internal.incremental.sourceparser.RegexBackedCSourceParser;
 import org.gradle.nativeplatform.toolchain.Clang;
 import org.gradle.nativeplatform.toolchain.Gcc;
@@ -40,6 +41,7 @@ import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
 import org.gradle.util.CollectionUtils;
 
 import java.io.File;
+import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Map;
 
@@ -51,22 +53,33 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
     private final FileSnapshotter fileSnapshotter;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final CompilationStateCacheFactory compilationStateCacheFactory;
+    private final IncludeDirectivesCache includeDirectivesCache;
+    private final IncludeResolutionCache includeResolutionCache;
 
-    private final CSourceParser sourceParser = new RegexBackedCSourceParser();
+    private final CSourceParser sourceParser = createSourceParser();
 
-    public IncrementalNativeCompiler(TaskInternal task, FileSnapshotter fileSnapshotter, CompilationStateCacheFactory compilationStateCacheFactory, Compiler<T> delegateCompiler, NativeToolChain toolChain, DirectoryFileTreeFactory directoryFileTreeFactory) {
+    public IncrementalNativeCompiler(TaskInternal task, FileSnapshotter fileSnapshotter, CompilationStateCacheFactory compilationStateCacheFactory, IncludeDirectivesCache includeDirectivesCache, IncludeResolutionCache includeResolutionCache, Compiler<T> delegateCompiler, NativeToolChain toolChain, DirectoryFileTreeFactory directoryFileTreeFactory) {
         this.task = task;
         this.fileSnapshotter = fileSnapshotter;
         this.compilationStateCacheFactory = compilationStateCacheFactory;
+        this.includeDirectivesCache = includeDirectivesCache;
+        this.includeResolutionCache = includeResolutionCache;
         this.delegateCompiler = delegateCompiler;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
         this.importsAreIncludes = Clang.class.isAssignableFrom(toolChain.getClass()) || Gcc.class.isAssignableFrom(toolChain.getClass());
     }
 
+    private static CSourceParser createSourceParser() {
+        if (DirectiveScanningCSourceParser.supports(Charset.defaultCharset())) {
+            return new DirectiveScanningCSourceParser();
+        }
+        return new RegexBackedCSourceParser();
+    }
+
     @Override
     public WorkResult execute(final T spec) {
         PersistentStateCache<CompilationState> compileStateCache = compilationStateCacheFactory.create(task.getPath());
-        DefaultSourceIncludesParser sourceIncludesParser = new DefaultSourceIncludesParser(sourceParser, importsAreIncludes);
+        DefaultSourceIncludesParser sourceIncludesParser = new DefaultSourceIncludesParser(new CachingSourceParser(), importsAreIncludes);
         IncrementalCompileProcessor processor = createProcessor(compileStateCache, sourceIncludesParser, spec.getIncludeRoots());
         IncrementalCompilation compilation = processor.processSourceFiles(spec.getSourceFiles());
 
@@ -159,8 +172,18 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
     }
 
     private IncrementalCompileProcessor createProcessor(PersistentStateCache<CompilationState> compileStateCache, SourceIncludesParser sourceIncludesParser, Iterable<File> includes) {
-        DefaultSourceIncludesResolver dependencyParser = new DefaultSourceIncludesResolver(CollectionUtils.toList(includes));
+        DefaultSourceIncludesResolver dependencyParser = new DefaultSourceIncludesResolver(CollectionUtils.toList(includes), includeResolutionCache);
 
         return new IncrementalCompileProcessor(compileStateCache, dependencyParser, sourceIncludesParser, fileSnapshotter);
     }
+
+    /**
+     * Parses each version of a file only once across all compile tasks, using the shared include directives cache.
+     */
+    private class CachingSourceParser implements CSourceParser {
+        @Override
+        public IncludeDirectives parseSource(File sourceFile) {
+            return includeDirectivesCache.getIncludeDirectives(sourceFile, fileSnapshotter.snapshot(sourceFile).getHash(), sourceParser);
+        }
+    }
 }
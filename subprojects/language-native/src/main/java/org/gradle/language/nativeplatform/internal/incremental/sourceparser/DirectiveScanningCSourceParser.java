@@ -0,0 +1,353 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.language.nativeplatform.internal.Include;
+import org.gradle.language.nativeplatform.internal.IncludeDirectives;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Finds the same include and import directives as {@link RegexBackedCSourceParser}, but scans the bytes of each file by hand rather than
+ * reading it as lines of characters and matching each line against a regular expression.
+ *
+ * <p>Comments and line continuations are handled in the same way as {@link PreprocessingReader}. Only the lines that start with '#'
+ * are collected and parsed, the content of all other lines is skipped as quickly as possible. Files are read through a buffer that is
+ * reused for all files, and must use an encoding in which the ASCII characters are single bytes that are not part of the encoding of
+ * any other character, such as UTF-8 or ISO-8859-1. Use {@link #supports(Charset)} to check this.</p>
+ *
+ * This avoids allocating a string for every line and is _not_ threadsafe.
+ */
+public class DirectiveScanningCSourceParser implements CSourceParser {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int LINE_START = 0;
+    private static final int LINE_DIRECTIVE = 1;
+    private static final int LINE_OTHER = 2;
+
+    private final Charset charset;
+    private final byte[] buffer;
+    private byte[] line = new byte[256];
+
+    private InputStream input;
+    private int pos;
+    private int limit;
+    private final int[] readAheadChars = new int[2];
+    private boolean inString;
+    private boolean quoted;
+    private int lineState;
+    private int lineLength;
+
+    public DirectiveScanningCSourceParser() {
+        this(Charset.defaultCharset(), DEFAULT_BUFFER_SIZE);
+    }
+
+    DirectiveScanningCSourceParser(Charset charset, int bufferSize) {
+        this.charset = charset;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Returns true when this parser can scan files that use the given encoding. This is the case when each ASCII character is encoded as
+     * the same single byte, and the bytes of other characters can never be mistaken for ASCII characters.
+     */
+    public static boolean supports(Charset charset) {
+        if (!charset.canEncode()) {
+            return false;
+        }
+        for (char ch = 0; ch < 0x80; ch++) {
+            byte[] bytes = String.valueOf(ch).getBytes(charset);
+            if (bytes.length != 1 || bytes[0] != ch) {
+                return false;
+            }
+        }
+        // Multi-byte encodings such as Shift_JIS or GBK use ASCII bytes in the encoding of other characters. UTF-8 does not.
+        return charset.newEncoder().maxBytesPerChar() == 1 || charset.name().equals("UTF-8");
+    }
+
+    @Override
+    public IncludeDirectives parseSource(File sourceFile) {
+        List<Include> includes = Lists.newArrayList();
+        try {
+            InputStream inputStream = new FileInputStream(sourceFile);
+            try {
+                scan(inputStream, includes);
+            } finally {
+                input = null;
+                IOUtils.closeQuietly(inputStream);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new DefaultIncludeDirectives(includes);
+    }
+
+    private void scan(InputStream inputStream, List<Include> includes) throws IOException {
+        input = inputStream;
+        pos = 0;
+        limit = 0;
+        readAheadChars[0] = -1;
+        readAheadChars[1] = -1;
+        inString = false;
+        quoted = false;
+        lineState = LINE_START;
+        lineLength = 0;
+
+        while (true) {
+            if (lineState == LINE_OTHER) {
+                skipPlainChars();
+            }
+            int ch = read();
+            if (ch == -1) {
+                break;
+            }
+            if (ch == '\n' || ch == '\r') {
+                endLine(includes);
+            } else if (lineState == LINE_DIRECTIVE) {
+                appendToLine(ch);
+            } else if (lineState == LINE_START && ch > ' ') {
+                if (ch == '#') {
+                    lineState = LINE_DIRECTIVE;
+                    appendToLine(ch);
+                } else {
+                    lineState = LINE_OTHER;
+                }
+            }
+        }
+        endLine(includes);
+    }
+
+    /**
+     * Skips over the buffered characters that cannot end the current line or start or end a comment, string or line continuation.
+     */
+    private void skipPlainChars() {
+        if (readAheadChars[0] != -1) {
+            return;
+        }
+        int end = pos;
+        while (end < limit) {
+            byte ch = buffer[end];
+            if (ch == '\n' || ch == '\r' || ch == '/' || ch == '"' || ch == '\\') {
+                break;
+            }
+            end++;
+        }
+        if (end > pos) {
+            // Same as reading each of these characters
+            quoted = false;
+            pos = end;
+        }
+    }
+
+    /**
+     * Returns the next character with comments replaced by a single space and line continuations removed, the same as {@link PreprocessingReader#read()}.
+     */
+    private int read() throws IOException {
+        int ch = next();
+        while (ch == '\\' && discardNewLine()) {
+            ch = next();
+        }
+
+        if (ch == '"' && !quoted) {
+            inString = !inString;
+            quoted = false;
+        } else if (ch == '\\') {
+            quoted = !quoted;
+        } else {
+            quoted = false;
+            if (!inString && ch == '/') {
+                ch = next();
+                if (ch == '/') {
+                    while (ch != '\n' && ch != -1 && ch != '\r') {
+                        ch = next();
+                    }
+                } else if (ch == '*') {
+                    while (ch != -1) {
+                        ch = next();
+                        if (ch == '*') {
+                            ch = next();
+                            while (ch == '*') {
+                                ch = next();
+                            }
+                            if (ch == '/') {
+                                ch = ' ';
+                                break;
+                            }
+                        }
+                    }
+                } else {
+                    pushBack(ch);
+                    ch = '/';
+                }
+            }
+        }
+        return ch;
+    }
+
+    private boolean discardNewLine() throws IOException {
+        int nextChar = next();
+        if (nextChar == '\n') {
+            return true;
+        } else if (nextChar == '\r') {
+            int followingChar = next();
+            if (followingChar == '\n') {
+                return true;
+            }
+            pushBack(nextChar);
+            pushBack(followingChar);
+            return false;
+        } else {
+            pushBack(nextChar);
+            return false;
+        }
+    }
+
+    private int next() throws IOException {
+        if (readAheadChars[0] != -1) {
+            int ch = readAheadChars[0];
+            readAheadChars[0] = readAheadChars[1];
+            readAheadChars[1] = -1;
+            return ch;
+        }
+        if (pos == limit) {
+            int count = input.read(buffer);
+            if (count <= 0) {
+                return -1;
+            }
+            pos = 0;
+            limit = count;
+        }
+        return buffer[pos++] & 0xff;
+    }
+
+    private void pushBack(int ch) {
+        if (readAheadChars[1] != -1) {
+            throw new IllegalStateException();
+        }
+        if (readAheadChars[0] != -1) {
+            readAheadChars[1] = ch;
+        } else {
+            readAheadChars[0] = ch;
+        }
+    }
+
+    private void appendToLine(int ch) {
+        if (lineLength == line.length) {
+            byte[] newLine = new byte[line.length * 2];
+            System.arraycopy(line, 0, newLine, 0, lineLength);
+            line = newLine;
+        }
+        line[lineLength++] = (byte) ch;
+    }
+
+    private void endLine(List<Include> includes) {
+        if (lineState == LINE_DIRECTIVE) {
+            parseDirective(includes);
+        }
+        lineState = LINE_START;
+        lineLength = 0;
+    }
+
+    /**
+     * Parses the current line, which starts with '#', in the same way as the regular expression of {@link RegexBackedCSourceParser}.
+     */
+    private void parseDirective(List<Include> includes) {
+        int end = lineLength;
+        while (end > 0 && (line[end - 1] & 0xff) <= ' ') {
+            end--;
+        }
+
+        int start = skipWhitespace(1, end);
+        boolean isImport;
+        if (matchesIgnoreCase(start, end, "include")) {
+            isImport = false;
+            start += 7;
+        } else if (matchesIgnoreCase(start, end, "import")) {
+            // Only the lower case directive is treated as an import
+            isImport = line[start] == 'i' && line[start + 1] == 'm' && line[start + 2] == 'p' && line[start + 3] == 'o' && line[start + 4] == 'r' && line[start + 5] == 't';
+            start += 6;
+        } else {
+            return;
+        }
+        start = skipWhitespace(start, end);
+        if (start == end) {
+            return;
+        }
+
+        byte first = line[start];
+        int valueEnd;
+        if (first == '<') {
+            valueEnd = endOfDelimitedValue(start, end, (byte) '>');
+        } else if (first == '"') {
+            valueEnd = endOfDelimitedValue(start, end, (byte) '"');
+        } else {
+            valueEnd = start;
+            while (valueEnd < end && isWordChar(line[valueEnd])) {
+                valueEnd++;
+            }
+        }
+        if (valueEnd == start || valueEnd != end) {
+            return;
+        }
+        includes.add(DefaultInclude.parse(new String(line, start, end - start, charset), isImport));
+    }
+
+    private int endOfDelimitedValue(int start, int end, byte delimiter) {
+        for (int i = start + 1; i < end; i++) {
+            if (line[i] == delimiter) {
+                return i == start + 1 ? start : i + 1;
+            }
+        }
+        return start;
+    }
+
+    private boolean matchesIgnoreCase(int start, int end, String keyword) {
+        if (end - start < keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            // Keywords only contain lower case letters
+            if ((line[start + i] | 0x20) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int skipWhitespace(int start, int end) {
+        while (start < end && isWhitespace(line[start])) {
+            start++;
+        }
+        return start;
+    }
+
+    private static boolean isWhitespace(byte ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == 0x0B || ch == '\f' || ch == '\r';
+    }
+
+    private static boolean isWordChar(byte ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_';
+    }
+}
@@ -16,9 +16,12 @@
 
 package org.gradle.language.nativeplatform.internal.registry;
 
+import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
 import org.gradle.language.nativeplatform.internal.incremental.DefaultCompilationStateCacheFactory;
+import org.gradle.language.nativeplatform.internal.incremental.IncludeDirectivesCache;
+import org.gradle.language.nativeplatform.internal.incremental.IncludeResolutionCache;
 import org.gradle.language.nativeplatform.internal.incremental.IncrementalCompilerBuilder;
 
 public class NativeLanguageServices implements PluginServiceRegistry {
@@ -37,10 +40,20 @@ public class NativeLanguageServices implements PluginServiceRegistry {
     @Override
     public void registerGradleServices(ServiceRegistration registration) {
         registration.add(DefaultCompilationStateCacheFactory.class);
+        registration.add(IncludeDirectivesCache.class);
+        registration.addProvider(new NativeLanguageGradleScopeServices());
     }
 
     @Override
     public void registerProjectServices(ServiceRegistration registration) {
         registration.add(IncrementalCompilerBuilder.class);
     }
+
+    private static class NativeLanguageGradleScopeServices {
+        public IncludeResolutionCache createIncludeResolutionCache(ListenerManager listenerManager) {
+            IncludeResolutionCache includeResolutionCache = new IncludeResolutionCache();
+            listenerManager.addListener(includeResolutionCache);
+            return includeResolutionCache;
+        }
+    }
 }
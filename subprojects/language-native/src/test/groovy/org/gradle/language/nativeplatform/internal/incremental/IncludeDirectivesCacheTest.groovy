@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental
+
+import com.google.common.hash.HashCode
+import org.gradle.api.internal.changedetection.state.TaskHistoryStore
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.language.nativeplatform.internal.IncludeDirectives
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.CSourceParser
+import spock.lang.Specification
+
+class IncludeDirectivesCacheTest extends Specification {
+    def persistentCache = Mock(PersistentIndexedCache)
+    def parser = Mock(CSourceParser)
+    def cacheAccess = Stub(TaskHistoryStore) {
+        createCache("includeDirectives", String, _) >> persistentCache
+    }
+    def cache = new IncludeDirectivesCache(cacheAccess)
+    def file = new File("test.h")
+    def hash = HashCode.fromInt(123)
+    def directives = Stub(IncludeDirectives)
+
+    def "parses file and stores directives when content is not known"() {
+        when:
+        def result = cache.getIncludeDirectives(file, hash, parser)
+
+        then:
+        result == directives
+        1 * persistentCache.get(hash.toString()) >> null
+        1 * parser.parseSource(file) >> directives
+        1 * persistentCache.put(hash.toString(), directives)
+        0 * _
+    }
+
+    def "uses stored directives when content is known"() {
+        when:
+        def result = cache.getIncludeDirectives(new File("other.h"), hash, parser)
+
+        then:
+        result == directives
+        1 * persistentCache.get(hash.toString()) >> directives
+        0 * _
+    }
+}
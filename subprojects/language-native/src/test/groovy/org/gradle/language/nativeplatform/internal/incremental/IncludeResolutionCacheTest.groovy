@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class IncludeResolutionCacheTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    def cache = new IncludeResolutionCache()
+    def dir1 = temporaryFolder.createDir("dir1")
+    def dir2 = temporaryFolder.createDir("dir2")
+
+    def "resolves include to first matching file in search path"() {
+        def header = dir2.createFile("test.h")
+        dir1.createDir("dir.h")
+
+        when:
+        def resolution = cache.resolve([dir1, dir2], "test.h")
+        def dirResolution = cache.resolve([dir1, dir2], "dir.h")
+
+        then:
+        resolution.file == header
+        resolution.checkedLocations == [dir1.file("test.h"), header]
+        dirResolution.file == null
+        dirResolution.checkedLocations == [dir2.file("dir.h")]
+    }
+
+    def "reuses resolution for same search path and include"() {
+        when:
+        def first = cache.resolve([dir1, dir2], "test.h")
+        dir1.createFile("test.h")
+        def second = cache.resolve([dir1, dir2], "test.h")
+        def otherPath = cache.resolve([dir1], "test.h")
+
+        then:
+        second.is(first)
+        second.file == null
+        otherPath.file == dir1.file("test.h")
+    }
+
+    def "discards resolutions when task outputs are about to be generated"() {
+        when:
+        def first = cache.resolve([dir1, dir2], "test.h")
+        cache.beforeTaskOutputsGenerated()
+        dir1.createFile("test.h")
+        def second = cache.resolve([dir1, dir2], "test.h")
+
+        then:
+        first.file == null
+        second.file == dir1.file("test.h")
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser
+
+import spock.lang.Unroll
+
+import java.nio.charset.Charset
+
+class DirectiveScanningCSourceParserTest extends RegexBackedCSourceParserTest {
+    def setup() {
+        parser = new DirectiveScanningCSourceParser()
+    }
+
+    @Unroll
+    def "finds same directives as regex backed parser for #description"() {
+        when:
+        sourceFile.text = content
+
+        then:
+        [1, 2, 3, 7, 64].each { bufferSize ->
+            def scanningParser = new DirectiveScanningCSourceParser(Charset.defaultCharset(), bufferSize)
+            assert scanningParser.parseSource(sourceFile) == new RegexBackedCSourceParser().parseSource(sourceFile)
+        }
+
+        where:
+        description                         | content
+        "windows line endings"              | '#include "a"\r\n#import <b>\r\n\r\n  #include C\r\n'
+        "old mac line endings"              | '#include "a"\r#import <b>\r#include C'
+        "continuation with carriage return" | '#include \\\r\n"a"\n#in\\\rclude "b"\n#include "c\\\r"'
+        "escaped quotes in strings"         | 'char *s = "\\"/*";\n#include "a"\nchar *t = "*/";\n#include "b"\n'
+        "escaped backslash in strings"      | 'char *s = "\\\\";\n#include "a" // "\n#include "b"\n'
+        "comment markers in strings"        | 'char *s = "//";\n#include "a"\nchar *t = "/*";\n#include "b"\n'
+        "unterminated comment"              | '#include "a"\n/* #include "b"\n#include "c"'
+        "unterminated string"               | '#include "a"\nchar *s = "/*\n#include "b"\n'
+        "trailing slash"                    | '#include "a"\n/'
+        "trailing backslash"                | '#include "a"\\'
+        "upper case directives"             | '#INCLUDE "a"\n#Import <b>\n#IMPORT C\n'
+        "directive followed by name"        | '#includeA\n#import_B\n#includes "c"\n'
+        "empty values"                      | '#include ""\n#include <>\n#include <a>>\n#include "a""\n'
+        "control characters"                | '\u0001#include "a"\n#include\u0001"b"\n#include "c"\u0001\n#\u000Binclude\f"d"\n'
+        "long lines"                        | ('x' * 1000) + '\n#include "' + ('a' * 1000) + '"\n'
+    }
+
+    @Unroll
+    def "supports #charset encoding: #supported"() {
+        expect:
+        DirectiveScanningCSourceParser.supports(Charset.forName(charset)) == supported
+
+        where:
+        charset      | supported
+        "UTF-8"      | true
+        "US-ASCII"   | true
+        "ISO-8859-1" | true
+        "UTF-16"     | false
+        "Shift_JIS"  | false
+        "GBK"        | false
+    }
+}
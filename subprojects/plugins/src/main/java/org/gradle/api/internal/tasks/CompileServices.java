@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks;
 
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
 import org.gradle.api.internal.jvm.JvmBinaryRenderer;
 import org.gradle.api.internal.tasks.compile.daemon.InProcessCompilerDaemonFactory;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysisCache;
@@ -34,6 +35,7 @@ import org.gradle.internal.service.scopes.PluginServiceRegistry;
 public class CompileServices implements PluginServiceRegistry {
     public void registerGlobalServices(ServiceRegistration registration) {
         registration.add(JvmBinaryRenderer.class);
+        registration.add(ForkedCompileTaskDetector.class);
     }
 
     public void registerBuildSessionServices(ServiceRegistration registration) {
@@ -67,8 +69,8 @@ public class CompileServices implements PluginServiceRegistry {
             return new DefaultClassAnalysisCache(cacheRepository);
         }
 
-        JarSnapshotCache createJarSnapshotCache(CacheRepository cacheRepository) {
-            return new DefaultJarSnapshotCache(cacheRepository);
+        JarSnapshotCache createJarSnapshotCache(CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache) {
+            return new DefaultJarSnapshotCache(cacheRepository, inMemoryTaskArtifactCache);
         }
     }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.tasks.compile.GroovyCompile;
+import org.gradle.api.tasks.compile.JavaCompile;
+
+/**
+ * Treats compile tasks as safe to run in parallel with other tasks of their project when the compiler runs in a separate process.
+ * Concurrent compile tasks each reserve their own compiler daemon, which keeps them isolated.
+ */
+public class ForkedCompileTaskDetector implements ParallelSafeTaskDetector {
+    @Override
+    public boolean isParallelSafe(TaskInternal task) {
+        if (task instanceof JavaCompile) {
+            return ((JavaCompile) task).getOptions().isFork();
+        }
+        if (task instanceof GroovyCompile) {
+            return ((GroovyCompile) task).getGroovyOptions().isFork();
+        }
+        return false;
+    }
+}
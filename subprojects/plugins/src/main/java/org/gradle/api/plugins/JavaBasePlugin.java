@@ -278,7 +278,8 @@ public class JavaBasePlugin implements Plugin<ProjectInternal> {
                 ConventionMapping conventionMapping = compile.getConventionMapping();
                 conventionMapping.map("dependencyCacheDir", new Callable<Object>() {
                     public Object call() throws Exception {
-                        return javaConvention.getDependencyCacheDir();
+                        // A directory per task, so that compile tasks of the project do not share an output directory and can run in parallel
+                        return new File(javaConvention.getDependencyCacheDir(), compile.getName());
                     }
                 });
             }
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.tasks.testing;
 
 import org.gradle.api.internal.tasks.testing.processors.CaptureTestOutputTestResultProcessor;
+import org.gradle.api.internal.tasks.testing.processors.StandardOutputRedirector;
 import org.gradle.api.internal.tasks.testing.results.AttachParentTestResultProcessor;
 import org.gradle.internal.TimeProvider;
 
@@ -24,19 +25,29 @@ public class SuiteTestClassProcessor implements TestClassProcessor {
     private final TestClassProcessor processor;
     private final TimeProvider timeProvider;
     private final TestDescriptorInternal suiteDescriptor;
+    private final StandardOutputRedirector outputRedirector;
     private TestResultProcessor resultProcessor;
 
     public SuiteTestClassProcessor(TestDescriptorInternal suiteDescriptor, TestClassProcessor processor,
                                    TimeProvider timeProvider) {
+        this(suiteDescriptor, processor, timeProvider, new JULRedirector());
+    }
+
+    /**
+     * @param outputRedirector Captures the standard output and error of the tests.
+     */
+    public SuiteTestClassProcessor(TestDescriptorInternal suiteDescriptor, TestClassProcessor processor,
+                                   TimeProvider timeProvider, StandardOutputRedirector outputRedirector) {
         this.suiteDescriptor = suiteDescriptor;
         this.processor = processor;
         this.timeProvider = timeProvider;
+        this.outputRedirector = outputRedirector;
     }
 
     @Override
     public void startProcessing(TestResultProcessor testResultProcessor) {
         try {
-            resultProcessor = new AttachParentTestResultProcessor(new CaptureTestOutputTestResultProcessor(testResultProcessor, new JULRedirector()));
+            resultProcessor = new AttachParentTestResultProcessor(new CaptureTestOutputTestResultProcessor(testResultProcessor, outputRedirector));
             resultProcessor.started(suiteDescriptor, new TestStartEvent(timeProvider.getCurrentTime()));
             processor.startProcessing(resultProcessor);
         } catch (Throwable t) {
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.Factory;
+import org.gradle.internal.TimeProvider;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.actor.Actor;
+import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.dispatch.DispatchException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Manages a set of parallel TestClassProcessors, balancing the test classes across the processors using the durations
+ * of the test classes in a previous run.
+ *
+ * <p>Each processor is given at most a couple of test classes at a time, and is only given the next test class once it has
+ * completed one of the test classes it was given before. Test classes are handed out in the order they are received while there
+ * are processors with room for them. The test classes that have to wait are queued longest first, so that the processors finish
+ * at about the same time, rather than one processor ending up with most of the slow test classes. Test classes without a previous
+ * duration are expected to take as long as the average test class. Prioritized test classes are queued ahead of all other test classes.</p>
+ *
+ * <p>A processor is considered to have completed a test class when it reports the test class as completed, so this requires
+ * a test framework that executes and reports each test class as soon as it is received. When stopped, this processor waits
+ * for the processors to complete test classes until the queue is empty. As a safeguard against processors that stop reporting
+ * progress, for example because their worker process has crashed, the remaining test classes are assigned to the processors
+ * with the least expected work when no processor reports any progress for the stall timeout. The stall timeout can be set
+ * in seconds using the {@value #STALL_TIMEOUT_PROPERTY} system property, where 0 means to wait indefinitely.</p>
+ */
+public class DurationBalancingTestClassProcessor implements TestClassProcessor {
+    private static final int MAX_CLASSES_PER_PROCESSOR = 2;
+    public static final String STALL_TIMEOUT_PROPERTY = "org.gradle.testing.balanceForks.stallTimeout";
+    private static final long DEFAULT_STALL_TIMEOUT_SECONDS = 60;
+
+    private final int maxProcessors;
+    private final Factory<TestClassProcessor> factory;
+    private final ActorFactory actorFactory;
+    private final Map<String, Long> previousDurations;
+    private final Spec<? super TestClassRunInfo> prioritized;
+    private final TimeProvider timeProvider;
+    private final long defaultDuration;
+    private final long stallTimeout;
+    private final Lock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    private final PriorityQueue<QueuedTestClass> queue = new PriorityQueue<QueuedTestClass>();
+    private final List<Slot> slots = new ArrayList<Slot>();
+    private final List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
+    private final List<Actor> actors = new ArrayList<Actor>();
+    private TestResultProcessor resultProcessor;
+    private Actor resultProcessorActor;
+    private long sequence;
+    private volatile long lastProgress;
+
+    public DurationBalancingTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousDurations, TimeProvider timeProvider) {
+        this(maxProcessors, factory, actorFactory, previousDurations, Specs.<TestClassRunInfo>satisfyNone(), timeProvider);
+    }
+
+    public DurationBalancingTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousDurations, Spec<? super TestClassRunInfo> prioritized, TimeProvider timeProvider) {
+        this(maxProcessors, factory, actorFactory, previousDurations, prioritized, timeProvider, TimeUnit.SECONDS.toMillis(Long.getLong(STALL_TIMEOUT_PROPERTY, DEFAULT_STALL_TIMEOUT_SECONDS)));
+    }
+
+    /**
+     * @param stallTimeout The time in milliseconds without progress after which the queued test classes are assigned to the processors, or 0 to wait indefinitely.
+     */
+    public DurationBalancingTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousDurations, Spec<? super TestClassRunInfo> prioritized, TimeProvider timeProvider, long stallTimeout) {
+        this.maxProcessors = maxProcessors;
+        this.factory = factory;
+        this.actorFactory = actorFactory;
+        this.previousDurations = previousDurations;
+        this.prioritized = prioritized;
+        this.timeProvider = timeProvider;
+        this.defaultDuration = averageOf(previousDurations);
+        this.stallTimeout = stallTimeout;
+    }
+
+    private static long averageOf(Map<String, Long> durations) {
+        if (durations.isEmpty()) {
+            return 0;
+        }
+        long total = 0;
+        for (Long duration : durations.values()) {
+            total += duration;
+        }
+        return total / durations.size();
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        // Create a processor that processes events in its own thread
+        resultProcessorActor = actorFactory.createActor(resultProcessor);
+        this.resultProcessor = resultProcessorActor.getProxy(TestResultProcessor.class);
+        lastProgress = timeProvider.getCurrentTime();
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        Long previousDuration = previousDurations.get(testClass.getTestClassName());
+        long expectedDuration = previousDuration == null ? defaultDuration : previousDuration;
+        boolean isPrioritized = prioritized.isSatisfiedBy(testClass);
+        lock.lock();
+        try {
+            queue.add(new QueuedTestClass(testClass, isPrioritized, expectedDuration, sequence++));
+            dispatchQueued();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void stop() {
+        lock.lock();
+        try {
+            // Woken up whenever a processor completes a test class or fails
+            while (!queue.isEmpty() && hasLiveSlots()) {
+                if (stallTimeout <= 0) {
+                    stateChanged.await();
+                    continue;
+                }
+                long stalledFor = timeProvider.getCurrentTime() - lastProgress;
+                if (stalledFor >= stallTimeout) {
+                    assignQueued();
+                    break;
+                }
+                stateChanged.await(stallTimeout - stalledFor, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
+        } catch (DispatchException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
+    /**
+     * Hands queued test classes to the processors that have room for them, starting processors as required.
+     */
+    private void dispatchQueued() {
+        while (!queue.isEmpty()) {
+            Slot slot = selectSlot();
+            if (slot == null) {
+                return;
+            }
+            slot.dispatch(queue.poll());
+        }
+    }
+
+    private Slot selectSlot() {
+        Slot best = null;
+        for (Slot slot : slots) {
+            if (!slot.failed && (best == null || slot.inFlight.size() < best.inFlight.size())) {
+                best = slot;
+            }
+        }
+        if ((best == null || !best.inFlight.isEmpty()) && slots.size() < maxProcessors) {
+            return startSlot();
+        }
+        if (best == null || best.inFlight.size() >= MAX_CLASSES_PER_PROCESSOR) {
+            return null;
+        }
+        return best;
+    }
+
+    /**
+     * Assigns all queued test classes to the processors with the least expected work.
+     */
+    private void assignQueued() {
+        while (!queue.isEmpty()) {
+            Slot best = null;
+            for (Slot slot : slots) {
+                if (!slot.failed && (best == null || slot.expectedWork < best.expectedWork)) {
+                    best = slot;
+                }
+            }
+            if (best == null) {
+                return;
+            }
+            best.dispatch(queue.poll());
+        }
+    }
+
+    private boolean hasLiveSlots() {
+        for (Slot slot : slots) {
+            if (!slot.failed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Slot startSlot() {
+        Slot slot = new Slot(factory.create());
+        Actor actor = actorFactory.createActor(slot);
+        slot.processor = actor.getProxy(TestClassProcessor.class);
+        actors.add(actor);
+        processors.add(slot.processor);
+        slots.add(slot);
+        slot.processor.startProcessing(resultProcessor);
+        return slot;
+    }
+
+    /**
+     * A processor along with the test classes it has been given but not yet completed. Receives the results of the processor,
+     * to find out when the processor completes a test class.
+     */
+    private class Slot implements TestClassProcessor {
+        private final TestClassProcessor target;
+        private final Deque<QueuedTestClass> inFlight = new ArrayDeque<QueuedTestClass>();
+        private TestClassProcessor processor;
+        private Object currentTestClassId;
+        private long expectedWork;
+        private boolean failed;
+
+        Slot(TestClassProcessor target) {
+            this.target = target;
+        }
+
+        void dispatch(QueuedTestClass testClass) {
+            inFlight.add(testClass);
+            expectedWork += testClass.expectedDuration;
+            processor.processTestClass(testClass.testClass);
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            try {
+                target.startProcessing(new CompletionTrackingResultProcessor(this, resultProcessor));
+            } catch (RuntimeException e) {
+                markFailed();
+                throw e;
+            }
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            try {
+                target.processTestClass(testClass);
+            } catch (RuntimeException e) {
+                markFailed();
+                throw e;
+            }
+        }
+
+        @Override
+        public void stop() {
+            target.stop();
+        }
+
+        private void markFailed() {
+            lock.lock();
+            try {
+                failed = true;
+                queue.addAll(inFlight);
+                inFlight.clear();
+                dispatchQueued();
+                stateChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void started(TestDescriptorInternal test) {
+            lastProgress = timeProvider.getCurrentTime();
+            if (!test.isComposite()) {
+                return;
+            }
+            lock.lock();
+            try {
+                QueuedTestClass current = inFlight.peek();
+                if (currentTestClassId == null && current != null && current.testClass.getTestClassName().equals(test.getClassName())) {
+                    currentTestClassId = test.getId();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void completed(Object testId) {
+            lastProgress = timeProvider.getCurrentTime();
+            lock.lock();
+            try {
+                if (currentTestClassId != null && currentTestClassId.equals(testId)) {
+                    currentTestClassId = null;
+                    expectedWork -= inFlight.remove().expectedDuration;
+                    dispatchQueued();
+                    stateChanged.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private class CompletionTrackingResultProcessor implements TestResultProcessor {
+        private final Slot slot;
+        private final TestResultProcessor delegate;
+
+        CompletionTrackingResultProcessor(Slot slot, TestResultProcessor delegate) {
+            this.slot = slot;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            delegate.started(test, event);
+            slot.started(test);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            delegate.completed(testId, event);
+            slot.completed(testId);
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            delegate.output(testId, event);
+            lastProgress = timeProvider.getCurrentTime();
+        }
+
+        @Override
+        public void failure(Object testId, Throwable result) {
+            delegate.failure(testId, result);
+            lastProgress = timeProvider.getCurrentTime();
+        }
+    }
+
+    private static class QueuedTestClass implements Comparable<QueuedTestClass> {
+        private final TestClassRunInfo testClass;
+        private final boolean prioritized;
+        private final long expectedDuration;
+        private final long sequence;
+
+        QueuedTestClass(TestClassRunInfo testClass, boolean prioritized, long expectedDuration, long sequence) {
+            this.testClass = testClass;
+            this.prioritized = prioritized;
+            this.expectedDuration = expectedDuration;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(QueuedTestClass other) {
+            if (prioritized != other.prioritized) {
+                return prioritized ? -1 : 1;
+            }
+            if (expectedDuration != other.expectedDuration) {
+                return expectedDuration > other.expectedDuration ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : sequence > other.sequence ? 1 : 0;
+        }
+    }
+}
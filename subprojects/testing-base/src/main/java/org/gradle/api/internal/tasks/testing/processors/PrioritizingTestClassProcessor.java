@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.specs.Spec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Passes the prioritized test classes to the delegate processor as soon as they are received, and holds back all other test classes
+ * until all test classes have been received.
+ */
+public class PrioritizingTestClassProcessor implements TestClassProcessor {
+    private final TestClassProcessor delegate;
+    private final Spec<? super TestClassRunInfo> prioritized;
+    private final List<TestClassRunInfo> deferred = new ArrayList<TestClassRunInfo>();
+
+    public PrioritizingTestClassProcessor(TestClassProcessor delegate, Spec<? super TestClassRunInfo> prioritized) {
+        this.delegate = delegate;
+        this.prioritized = prioritized;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        delegate.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (prioritized.isSatisfiedBy(testClass)) {
+            delegate.processTestClass(testClass);
+        } else {
+            deferred.add(testClass);
+        }
+    }
+
+    @Override
+    public void stop() {
+        try {
+            for (TestClassRunInfo testClass : deferred) {
+                delegate.processTestClass(testClass);
+            }
+        } finally {
+            deferred.clear();
+            delegate.stop();
+        }
+    }
+}
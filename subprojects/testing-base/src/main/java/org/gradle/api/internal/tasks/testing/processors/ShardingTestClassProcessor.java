@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+
+/**
+ * Passes only the test classes of one shard to the delegate processor, where the test classes are partitioned into a number of shards
+ * that are executed separately, for example by different test tasks or on different machines.
+ *
+ * <p>A test class is assigned to a shard using a hash of its name only, so that each test class is assigned to the same shard on every machine,
+ * regardless of which other test classes are found.</p>
+ */
+public class ShardingTestClassProcessor implements TestClassProcessor {
+    private final TestClassProcessor delegate;
+    private final int shardIndex;
+    private final int shardCount;
+
+    public ShardingTestClassProcessor(TestClassProcessor delegate, int shardIndex, int shardCount) {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException(String.format("Cannot execute shard %d of %d shards.", shardIndex, shardCount));
+        }
+        this.delegate = delegate;
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        delegate.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (shardOf(testClass.getTestClassName(), shardCount) == shardIndex) {
+            delegate.processTestClass(testClass);
+        }
+    }
+
+    @Override
+    public void stop() {
+        delegate.stop();
+    }
+
+    static int shardOf(String className, int shardCount) {
+        int hash = className.hashCode();
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % shardCount;
+    }
+}
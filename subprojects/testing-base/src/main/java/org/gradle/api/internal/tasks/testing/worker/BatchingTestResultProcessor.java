@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects the results of a test worker into batches, so that many small results are sent to the build process as fewer, larger messages.
+ *
+ * <p>A batch is sent when it holds too many results or too much output, when a test class or suite completes, when its oldest result
+ * has waited for the flush interval, and when this processor is stopped. Results are sent in the order they are received.</p>
+ */
+public class BatchingTestResultProcessor implements TestResultProcessor, Stoppable {
+    public static final long DEFAULT_FLUSH_INTERVAL = 100;
+    static final int MAX_BATCH_EVENTS = 500;
+    static final int MAX_BATCH_OUTPUT_LENGTH = 64 * 1024;
+
+    private final TestEventBatchProcessor target;
+    private final long flushInterval;
+    private final StoppableExecutor executor;
+    private final Lock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    private final Set<Object> compositeTests = new HashSet<Object>();
+    private TestEventBatch batch = new TestEventBatch();
+    private long batchStarted;
+    private boolean stopped;
+
+    /**
+     * @param flushInterval The maximum time in milliseconds that a result is held back before it is sent.
+     */
+    public BatchingTestResultProcessor(TestEventBatchProcessor target, ExecutorFactory executorFactory, long flushInterval) {
+        this.target = target;
+        this.flushInterval = flushInterval;
+        this.executor = executorFactory.create("Test result batching");
+        executor.execute(new Flusher());
+    }
+
+    @Override
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        lock.lock();
+        try {
+            if (test.isComposite()) {
+                compositeTests.add(test.getId());
+            }
+            beforeAdd();
+            batch.started(test, event);
+            afterAdd(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void completed(Object testId, TestCompleteEvent event) {
+        lock.lock();
+        try {
+            beforeAdd();
+            batch.completed(testId, event);
+            // Send the results as soon as a test class completes, so that the build process can report progress and hand out more test classes
+            afterAdd(compositeTests.remove(testId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void output(Object testId, TestOutputEvent event) {
+        lock.lock();
+        try {
+            beforeAdd();
+            batch.output(testId, event);
+            afterAdd(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void failure(Object testId, Throwable result) {
+        lock.lock();
+        try {
+            beforeAdd();
+            batch.failure(testId, result);
+            afterAdd(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void beforeAdd() {
+        if (stopped) {
+            throw new IllegalStateException("Cannot add results after this processor has been stopped.");
+        }
+        if (batch.isEmpty()) {
+            batchStarted = System.currentTimeMillis();
+            stateChanged.signalAll();
+        }
+    }
+
+    private void afterAdd(boolean flush) {
+        if (flush || batch.size() >= MAX_BATCH_EVENTS || batch.getOutputLength() >= MAX_BATCH_OUTPUT_LENGTH) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        TestEventBatch current = batch;
+        batch = new TestEventBatch();
+        target.processBatch(current);
+    }
+
+    /**
+     * Sends any remaining results and stops this processor.
+     */
+    @Override
+    public void stop() {
+        lock.lock();
+        try {
+            stopped = true;
+            flush();
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        executor.stop();
+    }
+
+    private class Flusher implements Runnable {
+        @Override
+        public void run() {
+            lock.lock();
+            try {
+                while (!stopped) {
+                    if (batch.isEmpty()) {
+                        stateChanged.await();
+                        continue;
+                    }
+                    long waited = System.currentTimeMillis() - batchStarted;
+                    if (waited >= flushInterval) {
+                        flush();
+                    } else {
+                        stateChanged.await(flushInterval - waited, TimeUnit.MILLISECONDS);
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
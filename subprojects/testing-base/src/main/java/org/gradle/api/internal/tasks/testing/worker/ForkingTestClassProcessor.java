@@ -17,21 +17,32 @@
 package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.operations.BuildOperationWorkerRegistry;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.process.JavaForkOptions;
+import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.worker.WorkerProcess;
 import org.gradle.process.internal.worker.WorkerProcessBuilder;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 import org.gradle.util.CollectionUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class ForkingTestClassProcessor implements TestClassProcessor {
@@ -42,12 +53,22 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final ModuleRegistry moduleRegistry;
     private final BuildOperationWorkerRegistry.Operation owner;
+    private final TestWorkerProcessPool workerPool;
     private RemoteTestClassProcessor remoteProcessor;
+    private TestEventBatchReceiver resultReceiver;
     private WorkerProcess workerProcess;
+    private PooledTestWorker pooledWorker;
     private TestResultProcessor resultProcessor;
     private BuildOperationWorkerRegistry.Completion workerCompletion;
 
     public ForkingTestClassProcessor(WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, BuildOperationWorkerRegistry.Operation owner) {
+        this(workerFactory, processorFactory, options, classPath, buildConfigAction, moduleRegistry, owner, null);
+    }
+
+    /**
+     * @param workerPool The pool to take a reusable worker process from, or null to start a new worker process that is stopped when this processor is stopped.
+     */
+    public ForkingTestClassProcessor(WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, BuildOperationWorkerRegistry.Operation owner, @Nullable TestWorkerProcessPool workerPool) {
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
         this.options = options;
@@ -55,6 +76,7 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         this.buildConfigAction = buildConfigAction;
         this.moduleRegistry = moduleRegistry;
         this.owner = owner;
+        this.workerPool = workerPool;
     }
 
     @Override
@@ -64,6 +86,21 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
 
     @Override
     public void processTestClass(TestClassRunInfo testClass) {
+        if (workerPool != null) {
+            if (pooledWorker == null) {
+                workerCompletion = owner.operationStart();
+                try {
+                    pooledWorker = startSession();
+                } finally {
+                    if (pooledWorker == null) {
+                        workerCompletion.operationFinish();
+                    }
+                }
+            }
+            pooledWorker.processTestClass(testClass);
+            return;
+        }
+
         if (remoteProcessor == null) {
             workerCompletion = owner.operationStart();
             remoteProcessor = forkProcess();
@@ -72,6 +109,70 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         remoteProcessor.processTestClass(testClass);
     }
 
+    PooledTestWorker startSession() {
+        // The test classpath and the shared packages of the test framework are set up for each session, so are not part of the worker process configuration
+        WorkerProcessBuilder frameworkSettings = workerFactory.create(new ReusableTestWorker());
+        buildConfigAction.execute(frameworkSettings);
+
+        final WorkerProcessBuilder builder = workerFactory.create(new ReusableTestWorker());
+        builder.setBaseName("Gradle Test Executor");
+        List<URL> implementationClasspath = getTestWorkerImplementationClasspath();
+        builder.setImplementationClasspath(implementationClasspath);
+        options.copyTo(builder.getJavaCommand());
+
+        JavaExecHandleBuilder javaCommand = builder.getJavaCommand();
+        List<Object> key = Arrays.<Object>asList(javaCommand.getExecutable(), javaCommand.getAllJvmArgs(), javaCommand.getEnvironment(),
+            javaCommand.getWorkingDir(), builder.getLogLevel(), implementationClasspath);
+        TestWorkerSessionSpec sessionSpec = new TestWorkerSessionSpec(
+            toUrls(classPath),
+            moduleRegistry.getModule("gradle-testing-jvm").getImplementationClasspath().getAsURLs(),
+            frameworkSettings.getSharedPackages(),
+            processorFactory.getClass().getPackage().getName(),
+            serialize(processorFactory));
+
+        PooledTestWorker worker = workerPool.acquire(key, new Factory<WorkerProcess>() {
+            @Override
+            public WorkerProcess create() {
+                return builder.build();
+            }
+        });
+        boolean started = false;
+        try {
+            worker.startSession(sessionSpec, resultProcessor);
+            started = true;
+        } finally {
+            if (!started) {
+                // The state of the session is unknown, so do not return the worker process to the pool
+                worker.stop();
+            }
+        }
+        return worker;
+    }
+
+    private static List<URL> toUrls(Iterable<File> files) {
+        List<URL> urls = new ArrayList<URL>();
+        for (File file : files) {
+            try {
+                urls.add(file.toURI().toURL());
+            } catch (MalformedURLException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        return urls;
+    }
+
+    private static byte[] serialize(Object object) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+            objectOutputStream.writeObject(object);
+            objectOutputStream.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
     RemoteTestClassProcessor forkProcess() {
         WorkerProcessBuilder builder = workerFactory.create(new TestWorker(processorFactory));
         builder.setBaseName("Gradle Test Executor");
@@ -85,7 +186,8 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
 
         ObjectConnection connection = workerProcess.getConnection();
         connection.useParameterSerializers(TestEventSerializer.create());
-        connection.addIncoming(TestResultProcessor.class, resultProcessor);
+        resultReceiver = new TestEventBatchReceiver(resultProcessor);
+        connection.addIncoming(TestEventBatchProcessor.class, resultReceiver);
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
         remoteProcessor.startProcessing();
@@ -114,10 +216,20 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
 
     @Override
     public void stop() {
+        if (pooledWorker != null) {
+            try {
+                if (pooledWorker.stopSession()) {
+                    workerPool.release(pooledWorker);
+                }
+            } finally {
+                workerCompletion.operationFinish();
+            }
+        }
         if (remoteProcessor != null) {
             try {
                 remoteProcessor.stop();
                 workerProcess.waitForStop();
+                resultReceiver.logStatistics();
             } finally {
                 workerCompletion.operationFinish();
             }
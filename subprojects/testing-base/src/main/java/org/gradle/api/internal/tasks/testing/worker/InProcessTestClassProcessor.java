@@ -0,0 +1,219 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.classpath.ModuleRegistry;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.processors.DefaultStandardOutputRedirector;
+import org.gradle.internal.TimeProvider;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderFactory;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.dispatch.ContextClassLoaderProxy;
+import org.gradle.internal.id.IdGenerator;
+import org.gradle.internal.io.ClassLoaderObjectInputStream;
+import org.gradle.internal.service.DefaultServiceRegistry;
+import org.gradle.process.JavaForkOptions;
+import org.gradle.process.internal.worker.WorkerProcessBuilder;
+import org.gradle.process.internal.worker.WorkerProcessFactory;
+import org.gradle.util.GUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.security.Permission;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executes tests in the build process instead of in a forked worker process, which avoids the cost of starting a process for a small number of tests.
+ *
+ * <p>The tests are loaded in a new isolated ClassLoader that sees only the test classpath and the Java API, along with a new copy of the Gradle
+ * classes that integrate with the test framework, in the same way as for a reused worker process. The system properties of the test task are set
+ * while the tests execute, and the system properties and security manager are restored afterwards. As these, along with the standard output and
+ * error, are global to the build process, only one test task executes tests in the build process at a time, and the caller must make sure that
+ * no other task runs while the tests execute.</p>
+ *
+ * <p>While the tests execute, a security manager is installed that refuses calls to {@link System#exit(int)}, so that a test cannot stop the
+ * build process. All other checks are passed to the security manager that was installed before, if any.</p>
+ */
+public class InProcessTestClassProcessor implements TestClassProcessor {
+    private static final Semaphore EXECUTION_PERMIT = new Semaphore(1);
+    private static final AtomicLong EXECUTOR_ID = new AtomicLong();
+
+    private final WorkerProcessFactory workerFactory;
+    private final WorkerTestClassProcessorFactory processorFactory;
+    private final ClassLoaderFactory classLoaderFactory;
+    private final JavaForkOptions options;
+    private final Iterable<File> classPath;
+    private final Action<WorkerProcessBuilder> buildConfigAction;
+    private final ModuleRegistry moduleRegistry;
+    private TestResultProcessor resultProcessor;
+    private TestClassProcessor processor;
+    private DefaultServiceRegistry testServices;
+    private ClassLoader applicationClassLoader;
+    private ClassLoader frameworkClassLoader;
+    private Properties systemProperties;
+    private SecurityManager securityManager;
+
+    public InProcessTestClassProcessor(WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, ClassLoaderFactory classLoaderFactory,
+                                       JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry) {
+        this.workerFactory = workerFactory;
+        this.processorFactory = processorFactory;
+        this.classLoaderFactory = classLoaderFactory;
+        this.options = options;
+        this.classPath = classPath;
+        this.buildConfigAction = buildConfigAction;
+        this.moduleRegistry = moduleRegistry;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        this.resultProcessor = resultProcessor;
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (processor == null) {
+            start();
+        }
+        try {
+            processor.processTestClass(testClass);
+        } finally {
+            // Clean the interrupted status
+            Thread.interrupted();
+        }
+    }
+
+    private void start() {
+        // The shared packages of the test framework are configured on a worker process builder, which is not used to start a process
+        WorkerProcessBuilder frameworkSettings = workerFactory.create(new ReusableTestWorker());
+        buildConfigAction.execute(frameworkSettings);
+
+        try {
+            EXECUTION_PERMIT.acquire();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        systemProperties = (Properties) System.getProperties().clone();
+        securityManager = System.getSecurityManager();
+        try {
+            System.setSecurityManager(new ExitTrappingSecurityManager(securityManager));
+            startProcessor(frameworkSettings);
+        } catch (RuntimeException e) {
+            processor = null;
+            restore();
+            throw e;
+        }
+    }
+
+    private void startProcessor(WorkerProcessBuilder frameworkSettings) {
+        long executorId = EXECUTOR_ID.incrementAndGet();
+        System.setProperty(TestWorker.WORKER_ID_SYS_PROPERTY, "in-process-" + executorId);
+        for (Map.Entry<String, Object> entry : options.getSystemProperties().entrySet()) {
+            System.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+
+        applicationClassLoader = classLoaderFactory.createIsolatedClassLoader(new DefaultClassPath(classPath));
+        frameworkClassLoader = new TestFrameworkClassLoader(moduleRegistry.getModule("gradle-testing-jvm").getImplementationClasspath().getAsURLs(),
+            getClass().getClassLoader(), applicationClassLoader, frameworkSettings.getSharedPackages(), processorFactory.getClass().getPackage().getName());
+        testServices = new TestWorker.TestFrameworkServiceRegistry("in-process-" + executorId);
+
+        TestClassProcessor targetProcessor = copyToClassLoader(processorFactory, frameworkClassLoader).create(testServices);
+        IdGenerator<?> idGenerator = testServices.get(IdGenerator.class);
+        // Uses a plain redirector, as resetting java.util.logging would reset the logging of the build process
+        targetProcessor = new WorkerTestClassProcessor(targetProcessor, idGenerator.generateId(), "Gradle In-Process Test Executor " + executorId,
+            testServices.get(TimeProvider.class), new DefaultStandardOutputRedirector());
+        ContextClassLoaderProxy<TestClassProcessor> proxy = new ContextClassLoaderProxy<TestClassProcessor>(
+            TestClassProcessor.class, targetProcessor, applicationClassLoader);
+        processor = proxy.getSource();
+        processor.startProcessing(resultProcessor);
+    }
+
+    private static WorkerTestClassProcessorFactory copyToClassLoader(WorkerTestClassProcessorFactory processorFactory, ClassLoader classLoader) {
+        try {
+            ClassLoaderObjectInputStream inputStream = new ClassLoaderObjectInputStream(new ByteArrayInputStream(GUtil.serialize(processorFactory)), classLoader);
+            return (WorkerTestClassProcessorFactory) inputStream.readObject();
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (processor == null) {
+            return;
+        }
+        try {
+            processor.stop();
+        } finally {
+            processor = null;
+            restore();
+        }
+    }
+
+    private static class ExitTrappingSecurityManager extends SecurityManager {
+        private final SecurityManager delegate;
+
+        ExitTrappingSecurityManager(@Nullable SecurityManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void checkExit(int status) {
+            throw new SecurityException(String.format("Cannot call System.exit(%d) from a test executed in the build process.", status));
+        }
+
+        @Override
+        public void checkPermission(Permission perm) {
+            if (delegate != null) {
+                delegate.checkPermission(perm);
+            }
+        }
+
+        @Override
+        public void checkPermission(Permission perm, Object context) {
+            if (delegate != null) {
+                delegate.checkPermission(perm, context);
+            }
+        }
+    }
+
+    private void restore() {
+        try {
+            // Clean out any security manager and system properties the tests might have installed
+            System.setSecurityManager(securityManager);
+            System.setProperties(systemProperties);
+            CompositeStoppable.stoppable(testServices).stop();
+            ClassLoaderUtils.tryClose(frameworkClassLoader);
+            ClassLoaderUtils.tryClose(applicationClassLoader);
+        } finally {
+            testServices = null;
+            frameworkClassLoader = null;
+            applicationClassLoader = null;
+            EXECUTION_PERMIT.release();
+        }
+    }
+}
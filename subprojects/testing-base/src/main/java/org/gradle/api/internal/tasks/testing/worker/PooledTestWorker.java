@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.process.internal.worker.WorkerProcess;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A reusable test worker process, as seen from the build process. Forwards the results of the current session to the result processor of that session.
+ */
+public class PooledTestWorker implements TestWorkerSessionResultProcessor, Runnable, Stoppable {
+    private final Object key;
+    private final WorkerProcess workerProcess;
+    private final Lock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    private RemoteReusableTestWorker remoteWorker;
+    private volatile TestEventBatchReceiver sessionReceiver;
+    private boolean sessionRunning;
+    private boolean exited;
+    private Throwable exitFailure;
+
+    PooledTestWorker(Object key, WorkerProcess workerProcess) {
+        this.key = key;
+        this.workerProcess = workerProcess;
+    }
+
+    Object getKey() {
+        return key;
+    }
+
+    boolean isExited() {
+        lock.lock();
+        try {
+            return exited;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void start() {
+        workerProcess.start();
+        ObjectConnection connection = workerProcess.getConnection();
+        connection.useParameterSerializers(TestEventSerializer.create());
+        connection.addIncoming(TestWorkerSessionResultProcessor.class, this);
+        remoteWorker = connection.addOutgoing(RemoteReusableTestWorker.class);
+        connection.connect();
+    }
+
+    /**
+     * Waits for the worker process to exit. Runs for the lifetime of the worker process.
+     */
+    @Override
+    public void run() {
+        Throwable failure = null;
+        try {
+            workerProcess.waitForStop();
+        } catch (Throwable t) {
+            failure = t;
+        }
+        lock.lock();
+        try {
+            exited = true;
+            exitFailure = failure;
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void startSession(TestWorkerSessionSpec spec, TestResultProcessor resultProcessor) {
+        lock.lock();
+        try {
+            sessionReceiver = new TestEventBatchReceiver(resultProcessor);
+            sessionRunning = true;
+        } finally {
+            lock.unlock();
+        }
+        remoteWorker.startSession(spec);
+    }
+
+    public void processTestClass(TestClassRunInfo testClass) {
+        remoteWorker.processTestClass(testClass);
+    }
+
+    /**
+     * Completes the current session and waits until all of its results have been received.
+     *
+     * @return true if the worker process can be used for another session, false if the worker process has exited.
+     */
+    public boolean stopSession() {
+        remoteWorker.stopSession();
+        lock.lock();
+        try {
+            while (sessionRunning && !exited) {
+                stateChanged.await();
+            }
+            if (exitFailure != null) {
+                throw UncheckedException.throwAsUncheckedException(exitFailure);
+            }
+            sessionReceiver.logStatistics();
+            return !exited;
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            sessionReceiver = null;
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the worker process and waits for it to exit.
+     */
+    @Override
+    public void stop() {
+        remoteWorker.shutdown();
+        lock.lock();
+        try {
+            while (!exited) {
+                stateChanged.await();
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void sessionCompleted() {
+        lock.lock();
+        try {
+            sessionRunning = false;
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void processBatch(TestEventBatch batch) {
+        sessionReceiver.processBatch(batch);
+    }
+}
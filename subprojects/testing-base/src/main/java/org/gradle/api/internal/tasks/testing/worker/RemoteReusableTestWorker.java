@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+
+/**
+ * A test worker process that executes the tests of multiple test tasks, one session at a time.
+ *
+ * @see ReusableTestWorker
+ */
+public interface RemoteReusableTestWorker {
+    /**
+     * Starts a session with the given test classpath and test framework. Does not block.
+     */
+    void startSession(TestWorkerSessionSpec spec);
+
+    /**
+     * Does not block.
+     */
+    void processTestClass(TestClassRunInfo testClass);
+
+    /**
+     * Completes the current session. The worker reports {@link TestWorkerSessionResultProcessor#sessionCompleted()} once all results of the session have been sent. Does not block.
+     */
+    void stopSession();
+
+    /**
+     * Stops the worker process. Does not block.
+     */
+    void shutdown();
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.TimeProvider;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.dispatch.ContextClassLoaderProxy;
+import org.gradle.internal.id.IdGenerator;
+import org.gradle.internal.io.ClassLoaderObjectInputStream;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.service.DefaultServiceRegistry;
+import org.gradle.process.internal.worker.WorkerProcessContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A test worker that executes the tests of multiple test tasks, one session at a time, so that the worker process can be reused.
+ *
+ * <p>Unlike {@link TestWorker}, the worker process is started without the test classpath. Each session loads the tests in a new
+ * ClassLoader, along with a new copy of the Gradle classes that integrate with the test framework, so that sessions do not see
+ * each other's classes. The system properties and security manager are reset when a session completes.</p>
+ */
+public class ReusableTestWorker implements Action<WorkerProcessContext>, RemoteReusableTestWorker, Serializable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReusableTestWorker.class);
+    private CountDownLatch completed;
+    private WorkerProcessContext workerProcessContext;
+    private DefaultServiceRegistry testServices;
+    private TestWorkerSessionResultProcessor resultProcessor;
+    private TestClassProcessor processor;
+    private BatchingTestResultProcessor sessionResultProcessor;
+    private URLClassLoader applicationClassLoader;
+    private ClassLoader frameworkClassLoader;
+    private Properties systemProperties;
+
+    @Override
+    public void execute(WorkerProcessContext workerProcessContext) {
+        LOGGER.info("{} started executing tests.", workerProcessContext.getDisplayName());
+
+        this.workerProcessContext = workerProcessContext;
+        completed = new CountDownLatch(1);
+
+        System.setProperty(TestWorker.WORKER_ID_SYS_PROPERTY, workerProcessContext.getWorkerId().toString());
+
+        testServices = new TestWorker.TestFrameworkServiceRegistry(workerProcessContext.getWorkerId());
+        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
+        serverConnection.useParameterSerializers(TestEventSerializer.create());
+        resultProcessor = serverConnection.addOutgoing(TestWorkerSessionResultProcessor.class);
+        serverConnection.addIncoming(RemoteReusableTestWorker.class, this);
+        serverConnection.connect();
+
+        try {
+            try {
+                completed.await();
+            } catch (InterruptedException e) {
+                throw new UncheckedException(e);
+            }
+        } finally {
+            LOGGER.info("{} finished executing tests.", workerProcessContext.getDisplayName());
+            testServices.close();
+        }
+    }
+
+    @Override
+    public void startSession(TestWorkerSessionSpec spec) {
+        Thread.currentThread().setName("Test worker");
+        systemProperties = (Properties) System.getProperties().clone();
+        applicationClassLoader = new URLClassLoader(spec.getApplicationClasspath().toArray(new URL[0]), ClassLoader.getSystemClassLoader());
+        frameworkClassLoader = new TestFrameworkClassLoader(spec.getFrameworkClasspath(), getClass().getClassLoader(), applicationClassLoader,
+            spec.getSharedPackages(), spec.getFrameworkPackage());
+
+        TestClassProcessor targetProcessor = deserializeProcessorFactory(spec.getSerializedProcessorFactory(), frameworkClassLoader).create(testServices);
+        IdGenerator<?> idGenerator = testServices.get(IdGenerator.class);
+        targetProcessor = new WorkerTestClassProcessor(targetProcessor, idGenerator.generateId(),
+                workerProcessContext.getDisplayName(), testServices.get(TimeProvider.class));
+        ContextClassLoaderProxy<TestClassProcessor> proxy = new ContextClassLoaderProxy<TestClassProcessor>(
+                TestClassProcessor.class, targetProcessor, applicationClassLoader);
+        processor = proxy.getSource();
+        sessionResultProcessor = new BatchingTestResultProcessor(resultProcessor, testServices.get(ExecutorFactory.class), BatchingTestResultProcessor.DEFAULT_FLUSH_INTERVAL);
+        processor.startProcessing(sessionResultProcessor);
+    }
+
+    private static WorkerTestClassProcessorFactory deserializeProcessorFactory(byte[] serializedFactory, ClassLoader classLoader) {
+        try {
+            ObjectInputStream instr = new ClassLoaderObjectInputStream(new ByteArrayInputStream(serializedFactory), classLoader);
+            return (WorkerTestClassProcessorFactory) instr.readObject();
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        Thread.currentThread().setName("Test worker");
+        try {
+            processor.processTestClass(testClass);
+        } finally {
+            // Clean the interrupted status
+            Thread.interrupted();
+        }
+    }
+
+    @Override
+    public void stopSession() {
+        Thread.currentThread().setName("Test worker");
+        try {
+            try {
+                processor.stop();
+            } finally {
+                sessionResultProcessor.stop();
+            }
+        } finally {
+            processor = null;
+            sessionResultProcessor = null;
+            // Clean out any security manager and system properties the tests might have installed
+            System.setSecurityManager(null);
+            System.setProperties(systemProperties);
+            ClassLoaderUtils.tryClose(frameworkClassLoader);
+            ClassLoaderUtils.tryClose(applicationClassLoader);
+            frameworkClassLoader = null;
+            applicationClassLoader = null;
+            resultProcessor.sessionCompleted();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        completed.countDown();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sequence of test results, sent from a test worker process to the build process as a single message. Records the results it receives,
+ * and replays them in the same order.
+ */
+public class TestEventBatch implements TestResultProcessor {
+    static final byte STARTED = 0;
+    static final byte COMPLETED = 1;
+    static final byte OUTPUT = 2;
+    static final byte FAILURE = 3;
+
+    private final List<Event> events = new ArrayList<Event>();
+    private int outputLength;
+
+    @Override
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        add(STARTED, test, event);
+    }
+
+    @Override
+    public void completed(Object testId, TestCompleteEvent event) {
+        add(COMPLETED, testId, event);
+    }
+
+    @Override
+    public void output(Object testId, TestOutputEvent event) {
+        add(OUTPUT, testId, event);
+        outputLength += event.getMessage().length();
+    }
+
+    @Override
+    public void failure(Object testId, Throwable result) {
+        add(FAILURE, testId, result);
+    }
+
+    void add(byte type, Object subject, Object details) {
+        events.add(new Event(type, subject, details));
+    }
+
+    List<Event> getEvents() {
+        return events;
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    public boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    /**
+     * Returns the number of characters of test output in this batch.
+     */
+    public int getOutputLength() {
+        return outputLength;
+    }
+
+    public void replay(TestResultProcessor processor) {
+        for (Event event : events) {
+            switch (event.type) {
+                case STARTED:
+                    processor.started((TestDescriptorInternal) event.subject, (TestStartEvent) event.details);
+                    break;
+                case COMPLETED:
+                    processor.completed(event.subject, (TestCompleteEvent) event.details);
+                    break;
+                case OUTPUT:
+                    processor.output(event.subject, (TestOutputEvent) event.details);
+                    break;
+                case FAILURE:
+                    processor.failure(event.subject, (Throwable) event.details);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected test event type " + event.type);
+            }
+        }
+    }
+
+    static class Event {
+        final byte type;
+        final Object subject;
+        final Object details;
+
+        Event(byte type, Object subject, Object details) {
+            this.type = type;
+            this.subject = subject;
+            this.details = details;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receives the batches of results of a test worker process in the build process and forwards the results to a result processor.
+ * Keeps track of how many results were received, to report the rate at which results were sent.
+ */
+public class TestEventBatchReceiver implements TestEventBatchProcessor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestEventBatchReceiver.class);
+    private final TestResultProcessor resultProcessor;
+    private final long startTime = System.nanoTime();
+    private long events;
+    private long batches;
+    private long outputLength;
+
+    public TestEventBatchReceiver(TestResultProcessor resultProcessor) {
+        this.resultProcessor = resultProcessor;
+    }
+
+    @Override
+    public void processBatch(TestEventBatch batch) {
+        events += batch.size();
+        outputLength += batch.getOutputLength();
+        batches++;
+        batch.replay(resultProcessor);
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Logs the number of results received since this receiver was created, and the rate at which they were received.
+     */
+    public void logStatistics() {
+        if (!LOGGER.isInfoEnabled() || batches == 0) {
+            return;
+        }
+        long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        LOGGER.info("Received {} test events with {} characters of output in {} batches from test worker ({} events/second).",
+            events, outputLength, batches, events * 1000 / elapsed);
+    }
+}
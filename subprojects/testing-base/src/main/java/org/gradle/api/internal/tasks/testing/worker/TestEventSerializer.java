@@ -21,6 +21,20 @@ import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.api.tasks.testing.TestResult;
 import org.gradle.internal.id.CompositeIdGenerator;
 import org.gradle.internal.serialize.*;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 public class TestEventSerializer {
     public static SerializerRegistry create() {
@@ -37,6 +51,8 @@ public class TestEventSerializer {
         registry.register(TestCompleteEvent.class, new TestCompleteEventSerializer());
         registry.register(DefaultTestOutputEvent.class, new DefaultTestOutputEventSerializer());
         registry.register(Throwable.class, factory.getSerializerFor(Throwable.class));
+        registry.register(TestWorkerSessionSpec.class, new TestWorkerSessionSpecSerializer());
+        registry.register(TestEventBatch.class, new TestEventBatchSerializer(registry.build(Object.class)));
         return registry;
     }
 
@@ -77,6 +93,124 @@ public class TestEventSerializer {
         }
     }
 
+    private static class TestWorkerSessionSpecSerializer implements Serializer<TestWorkerSessionSpec> {
+        @Override
+        public TestWorkerSessionSpec read(Decoder decoder) throws Exception {
+            List<URL> applicationClasspath = readUrls(decoder);
+            List<URL> frameworkClasspath = readUrls(decoder);
+            int sharedPackageCount = decoder.readSmallInt();
+            Set<String> sharedPackages = new LinkedHashSet<String>(sharedPackageCount);
+            for (int i = 0; i < sharedPackageCount; i++) {
+                sharedPackages.add(decoder.readString());
+            }
+            String frameworkPackage = decoder.readString();
+            byte[] serializedProcessorFactory = decoder.readBinary();
+            return new TestWorkerSessionSpec(applicationClasspath, frameworkClasspath, sharedPackages, frameworkPackage, serializedProcessorFactory);
+        }
+
+        @Override
+        public void write(Encoder encoder, TestWorkerSessionSpec value) throws Exception {
+            writeUrls(encoder, value.getApplicationClasspath());
+            writeUrls(encoder, value.getFrameworkClasspath());
+            encoder.writeSmallInt(value.getSharedPackages().size());
+            for (String sharedPackage : value.getSharedPackages()) {
+                encoder.writeString(sharedPackage);
+            }
+            encoder.writeString(value.getFrameworkPackage());
+            encoder.writeBinary(value.getSerializedProcessorFactory());
+        }
+
+        private static List<URL> readUrls(Decoder decoder) throws Exception {
+            int count = decoder.readSmallInt();
+            List<URL> urls = new ArrayList<URL>(count);
+            for (int i = 0; i < count; i++) {
+                urls.add(new URL(decoder.readString()));
+            }
+            return urls;
+        }
+
+        private static void writeUrls(Encoder encoder, List<URL> urls) throws Exception {
+            encoder.writeSmallInt(urls.size());
+            for (URL url : urls) {
+                encoder.writeString(url.toString());
+            }
+        }
+    }
+
+    /**
+     * Writes the results of a batch as a single block, which is compressed when it is large and compresses well. Test output tends to be
+     * large and repetitive, so this reduces the amount of data sent for chatty tests.
+     */
+    private static class TestEventBatchSerializer implements Serializer<TestEventBatch> {
+        private static final int COMPRESSION_THRESHOLD = 8 * 1024;
+        private final Serializer<Object> valueSerializer;
+
+        private TestEventBatchSerializer(Serializer<Object> valueSerializer) {
+            this.valueSerializer = valueSerializer;
+        }
+
+        @Override
+        public TestEventBatch read(Decoder decoder) throws Exception {
+            boolean compressed = decoder.readBoolean();
+            InputStream content = new ByteArrayInputStream(decoder.readBinary());
+            if (compressed) {
+                content = new InflaterInputStream(content);
+            }
+            KryoBackedDecoder eventDecoder = new KryoBackedDecoder(content);
+            try {
+                int count = eventDecoder.readSmallInt();
+                TestEventBatch batch = new TestEventBatch();
+                for (int i = 0; i < count; i++) {
+                    byte type = eventDecoder.readByte();
+                    Object subject = valueSerializer.read(eventDecoder);
+                    Object details = valueSerializer.read(eventDecoder);
+                    batch.add(type, subject, details);
+                }
+                return batch;
+            } finally {
+                eventDecoder.close();
+            }
+        }
+
+        @Override
+        public void write(Encoder encoder, TestEventBatch value) throws Exception {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            KryoBackedEncoder eventEncoder = new KryoBackedEncoder(content);
+            eventEncoder.writeSmallInt(value.size());
+            for (TestEventBatch.Event event : value.getEvents()) {
+                eventEncoder.writeByte(event.type);
+                valueSerializer.write(eventEncoder, event.subject);
+                valueSerializer.write(eventEncoder, event.details);
+            }
+            eventEncoder.flush();
+
+            byte[] bytes = content.toByteArray();
+            if (bytes.length >= COMPRESSION_THRESHOLD) {
+                byte[] compressed = deflate(bytes);
+                if (compressed.length < bytes.length) {
+                    encoder.writeBoolean(true);
+                    encoder.writeBinary(compressed);
+                    return;
+                }
+            }
+            encoder.writeBoolean(false);
+            encoder.writeBinary(bytes);
+        }
+
+        private static byte[] deflate(byte[] bytes) throws Exception {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                DeflaterOutputStream outputStream = new DeflaterOutputStream(compressed, deflater);
+                outputStream.write(bytes);
+                outputStream.close();
+            } finally {
+                deflater.end();
+            }
+            return compressed.toByteArray();
+        }
+    }
+
     private static class DefaultTestClassRunInfoSerializer implements Serializer<DefaultTestClassRunInfo> {
         @Override
         public DefaultTestClassRunInfo read(Decoder decoder) throws Exception {
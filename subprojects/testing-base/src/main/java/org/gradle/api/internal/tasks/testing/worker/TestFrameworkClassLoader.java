@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads the Gradle classes that integrate with the test framework from the framework classpath, so that they link against the test framework
+ * on the given test classpath. The test framework packages are loaded from the test classpath, and all other classes from the Gradle
+ * implementation ClassLoader.
+ */
+class TestFrameworkClassLoader extends URLClassLoader {
+    private final ClassLoader implementationClassLoader;
+    private final ClassLoader applicationClassLoader;
+    private final Set<String> sharedPackages;
+    private final String frameworkPackagePrefix;
+
+    TestFrameworkClassLoader(List<URL> frameworkClasspath, ClassLoader implementationClassLoader, ClassLoader applicationClassLoader, Set<String> sharedPackages, String frameworkPackage) {
+        super(frameworkClasspath.toArray(new URL[0]), null);
+        this.implementationClassLoader = implementationClassLoader;
+        this.applicationClassLoader = applicationClassLoader;
+        this.sharedPackages = sharedPackages;
+        this.frameworkPackagePrefix = frameworkPackage + ".";
+    }
+
+    @Override
+    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        Class<?> loadedClass = findLoadedClass(name);
+        if (loadedClass == null) {
+            if (isSharedClass(name)) {
+                loadedClass = applicationClassLoader.loadClass(name);
+            } else if (name.startsWith(frameworkPackagePrefix)) {
+                loadedClass = findClass(name);
+            } else {
+                loadedClass = implementationClassLoader.loadClass(name);
+            }
+        }
+        if (resolve) {
+            resolveClass(loadedClass);
+        }
+        return loadedClass;
+    }
+
+    private boolean isSharedClass(String className) {
+        for (String sharedPackage : sharedPackages) {
+            if (className.startsWith(sharedPackage + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
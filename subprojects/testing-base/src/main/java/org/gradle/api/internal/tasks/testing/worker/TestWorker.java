@@ -19,7 +19,6 @@ package org.gradle.api.internal.tasks.testing.worker;
 import org.gradle.api.Action;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
-import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.internal.TimeProvider;
 import org.gradle.internal.TrueTimeProvider;
@@ -48,7 +47,7 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
     private final WorkerTestClassProcessorFactory factory;
     private CountDownLatch completed;
     private TestClassProcessor processor;
-    private TestResultProcessor resultProcessor;
+    private BatchingTestResultProcessor resultProcessor;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
         this.factory = factory;
@@ -62,7 +61,7 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
 
         System.setProperty(WORKER_ID_SYS_PROPERTY, workerProcessContext.getWorkerId().toString());
 
-        DefaultServiceRegistry testServices = new TestFrameworkServiceRegistry(workerProcessContext);
+        DefaultServiceRegistry testServices = new TestFrameworkServiceRegistry(workerProcessContext.getWorkerId());
         startReceivingTests(workerProcessContext, testServices);
 
         try {
@@ -91,7 +90,8 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
 
         ObjectConnection serverConnection = workerProcessContext.getServerConnection();
         serverConnection.useParameterSerializers(TestEventSerializer.create());
-        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        TestEventBatchProcessor batchProcessor = serverConnection.addOutgoing(TestEventBatchProcessor.class);
+        this.resultProcessor = new BatchingTestResultProcessor(batchProcessor, testServices.get(ExecutorFactory.class), BatchingTestResultProcessor.DEFAULT_FLUSH_INTERVAL);
         serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
         serverConnection.connect();
     }
@@ -117,17 +117,21 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
     public void stop() {
         Thread.currentThread().setName("Test worker");
         try {
-            processor.stop();
+            try {
+                processor.stop();
+            } finally {
+                resultProcessor.stop();
+            }
         } finally {
             completed.countDown();
         }
     }
 
-    private static class TestFrameworkServiceRegistry extends DefaultServiceRegistry {
-        private final WorkerProcessContext workerProcessContext;
+    static class TestFrameworkServiceRegistry extends DefaultServiceRegistry {
+        private final Object workerId;
 
-        public TestFrameworkServiceRegistry(WorkerProcessContext workerProcessContext) {
-            this.workerProcessContext = workerProcessContext;
+        public TestFrameworkServiceRegistry(Object workerId) {
+            this.workerId = workerId;
         }
 
         protected TimeProvider createTimeProvider() {
@@ -135,7 +139,7 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
         }
 
         protected IdGenerator<Object> createIdGenerator() {
-            return new CompositeIdGenerator(workerProcessContext.getWorkerId(), new LongIdGenerator());
+            return new CompositeIdGenerator(workerId, new LongIdGenerator());
         }
 
         protected ExecutorFactory createExecutorFactory() {
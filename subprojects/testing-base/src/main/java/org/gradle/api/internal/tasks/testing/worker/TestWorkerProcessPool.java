@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.process.internal.worker.WorkerProcess;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Keeps idle test worker processes, so that they can be reused by later test tasks with the same worker process configuration.
+ * The idle worker processes are stopped at the end of the build.
+ */
+public class TestWorkerProcessPool implements Stoppable {
+    private final StoppableExecutor monitorExecutor;
+    private final int maxIdleWorkers;
+    private final LinkedList<PooledTestWorker> idleWorkers = new LinkedList<PooledTestWorker>();
+
+    /**
+     * @param maxIdleWorkers The maximum number of idle worker processes to keep. Usually the maximum number of workers of the build.
+     */
+    public TestWorkerProcessPool(ExecutorFactory executorFactory, int maxIdleWorkers) {
+        this.monitorExecutor = executorFactory.create("test worker monitor");
+        this.maxIdleWorkers = maxIdleWorkers;
+    }
+
+    /**
+     * Returns an idle worker process with the given configuration, or starts a new one. Idle worker processes that have exited are discarded.
+     *
+     * @param key The configuration of the worker process. Worker processes are only reused for equal keys.
+     */
+    public PooledTestWorker acquire(Object key, Factory<WorkerProcess> workerProcessFactory) {
+        synchronized (idleWorkers) {
+            for (Iterator<PooledTestWorker> iterator = idleWorkers.iterator(); iterator.hasNext();) {
+                PooledTestWorker worker = iterator.next();
+                if (worker.isExited()) {
+                    iterator.remove();
+                } else if (worker.getKey().equals(key)) {
+                    iterator.remove();
+                    return worker;
+                }
+            }
+        }
+        PooledTestWorker worker = new PooledTestWorker(key, workerProcessFactory.create());
+        worker.start();
+        monitorExecutor.execute(worker);
+        return worker;
+    }
+
+    /**
+     * Returns a worker process whose session has completed to the pool. Stops the least recently used idle worker process when there are too many.
+     */
+    public void release(PooledTestWorker worker) {
+        PooledTestWorker evicted = null;
+        synchronized (idleWorkers) {
+            idleWorkers.addFirst(worker);
+            if (idleWorkers.size() > maxIdleWorkers) {
+                evicted = idleWorkers.removeLast();
+            }
+        }
+        if (evicted != null) {
+            evicted.stop();
+        }
+    }
+
+    @Override
+    public void stop() {
+        List<PooledTestWorker> workers;
+        synchronized (idleWorkers) {
+            workers = new ArrayList<PooledTestWorker>(idleWorkers);
+            idleWorkers.clear();
+        }
+        CompositeStoppable.stoppable(workers).add(monitorExecutor).stop();
+    }
+}
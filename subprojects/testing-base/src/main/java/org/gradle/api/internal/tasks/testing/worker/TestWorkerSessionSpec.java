@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Describes a session of a reusable test worker process: the classpath of the tests and the test framework to execute them with.
+ */
+public class TestWorkerSessionSpec {
+    private final List<URL> applicationClasspath;
+    private final List<URL> frameworkClasspath;
+    private final Set<String> sharedPackages;
+    private final String frameworkPackage;
+    private final byte[] serializedProcessorFactory;
+
+    /**
+     * @param applicationClasspath The classpath of the tests.
+     * @param frameworkClasspath The classpath containing the Gradle classes that integrate with the test framework.
+     * @param sharedPackages The packages of the test framework that the Gradle classes use from the test classpath.
+     * @param frameworkPackage The package of the Gradle classes that integrate with the test framework. These are loaded separately for each session.
+     * @param serializedProcessorFactory The serialized {@link org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory}.
+     */
+    public TestWorkerSessionSpec(List<URL> applicationClasspath, List<URL> frameworkClasspath, Set<String> sharedPackages, String frameworkPackage, byte[] serializedProcessorFactory) {
+        this.applicationClasspath = applicationClasspath;
+        this.frameworkClasspath = frameworkClasspath;
+        this.sharedPackages = sharedPackages;
+        this.frameworkPackage = frameworkPackage;
+        this.serializedProcessorFactory = serializedProcessorFactory;
+    }
+
+    public List<URL> getApplicationClasspath() {
+        return applicationClasspath;
+    }
+
+    public List<URL> getFrameworkClasspath() {
+        return frameworkClasspath;
+    }
+
+    public Set<String> getSharedPackages() {
+        return sharedPackages;
+    }
+
+    public String getFrameworkPackage() {
+        return frameworkPackage;
+    }
+
+    public byte[] getSerializedProcessorFactory() {
+        return serializedProcessorFactory;
+    }
+}
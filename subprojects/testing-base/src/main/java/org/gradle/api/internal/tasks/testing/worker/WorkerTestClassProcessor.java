@@ -17,6 +17,7 @@
 package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.internal.tasks.testing.processors.StandardOutputRedirector;
 import org.gradle.internal.TimeProvider;
 
 public class WorkerTestClassProcessor extends SuiteTestClassProcessor {
@@ -26,6 +27,11 @@ public class WorkerTestClassProcessor extends SuiteTestClassProcessor {
         super(new WorkerTestSuiteDescriptor(workerSuiteId, workerDisplayName), processor, timeProvider);
     }
 
+    public WorkerTestClassProcessor(TestClassProcessor processor, Object workerSuiteId, String workerDisplayName,
+                                    TimeProvider timeProvider, StandardOutputRedirector outputRedirector) {
+        super(new WorkerTestSuiteDescriptor(workerSuiteId, workerDisplayName), processor, timeProvider, outputRedirector);
+    }
+
     public static class WorkerTestSuiteDescriptor extends DefaultTestSuiteDescriptor {
         public WorkerTestSuiteDescriptor(Object id, String name) {
             super(id, name);
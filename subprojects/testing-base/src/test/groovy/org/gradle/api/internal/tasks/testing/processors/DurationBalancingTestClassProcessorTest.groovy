@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.specs.Specs
+import org.gradle.internal.Factory
+import org.gradle.internal.TrueTimeProvider
+import org.gradle.internal.actor.Actor
+import org.gradle.internal.actor.ActorFactory
+import spock.lang.Specification
+
+class DurationBalancingTestClassProcessorTest extends Specification {
+    private final TestResultProcessor resultProcessor = Mock()
+    private final List<List<String>> dispatched = []
+    private final List<TestResultProcessor> workerResultProcessors = []
+    private final ActorFactory actorFactory = Stub() {
+        createActor(_) >> { args -> synchronousActor(args[0]) }
+    }
+    private final Factory<TestClassProcessor> factory = Stub() {
+        create() >> { workerProcessor() }
+    }
+
+    def "executes test classes longest first as processors become idle"() {
+        def processor = processor(2, [a: 100L, b: 90L, c: 10L, d: 20L, e: 30L, f: 40L])
+
+        when:
+        processor.startProcessing(resultProcessor)
+        ["a", "b", "c", "d", "e", "f"].each { processor.processTestClass(testClass(it)) }
+
+        then:
+        dispatched == [["a", "c"], ["b", "d"]]
+
+        when:
+        completeTestClass(1, "b")
+
+        then:
+        dispatched == [["a", "c"], ["b", "d", "f"]]
+
+        when:
+        completeTestClass(0, "a")
+        processor.stop()
+
+        then:
+        dispatched == [["a", "c", "e"], ["b", "d", "f"]]
+    }
+
+    def "expects test classes without previous duration to take the average duration"() {
+        def processor = processor(1, [a: 10L, b: 100L, c: 30L])
+
+        when:
+        processor.startProcessing(resultProcessor)
+        ["a", "b", "x", "y", "c"].each { processor.processTestClass(testClass(it)) }
+        completeTestClass(0, "a")
+        completeTestClass(0, "b")
+        completeTestClass(0, "x")
+
+        then:
+        dispatched == [["a", "b", "x", "y", "c"]]
+    }
+
+    def "forwards results to the result processor"() {
+        def processor = processor(1, [:])
+        def descriptor = new DefaultTestClassDescriptor(1, "a")
+        def startEvent = new TestStartEvent(0)
+        def completeEvent = new TestCompleteEvent(0)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(testClass("a"))
+        workerResultProcessors[0].started(descriptor, startEvent)
+        workerResultProcessors[0].completed(1, completeEvent)
+
+        then:
+        1 * resultProcessor.started(descriptor, startEvent)
+        1 * resultProcessor.completed(1, completeEvent)
+    }
+
+    def "assigns queued test classes to the processors when no processor makes progress for the stall timeout"() {
+        def processor = new DurationBalancingTestClassProcessor(2, factory, actorFactory, [a: 100L, b: 90L, c: 10L, d: 20L, e: 30L, f: 40L], Specs.satisfyNone(), new TrueTimeProvider(), 1)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        ["a", "b", "c", "d", "e", "f"].each { processor.processTestClass(testClass(it)) }
+        processor.stop()
+
+        then:
+        dispatched == [["a", "c", "f"], ["b", "d", "e"]]
+    }
+
+    def "does nothing when no tests processed"() {
+        def processor = processor(2, [:])
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.stop()
+
+        then:
+        dispatched.empty
+    }
+
+    private DurationBalancingTestClassProcessor processor(int maxProcessors, Map<String, Long> durations) {
+        return new DurationBalancingTestClassProcessor(maxProcessors, factory, actorFactory, durations, new TrueTimeProvider())
+    }
+
+    private void completeTestClass(int worker, String className) {
+        def id = "${worker}:${className}"
+        workerResultProcessors[worker].started(new DefaultTestClassDescriptor(id, className), new TestStartEvent(0))
+        workerResultProcessors[worker].completed(id, new TestCompleteEvent(0))
+    }
+
+    private static TestClassRunInfo testClass(String name) {
+        return new DefaultTestClassRunInfo(name)
+    }
+
+    private TestClassProcessor workerProcessor() {
+        def classes = []
+        dispatched << classes
+        return new TestClassProcessor() {
+            void startProcessing(TestResultProcessor resultProcessor) {
+                workerResultProcessors << resultProcessor
+            }
+
+            void processTestClass(TestClassRunInfo testClass) {
+                classes << testClass.testClassName
+            }
+
+            void stop() {
+            }
+        }
+    }
+
+    private Actor synchronousActor(Object target) {
+        return Stub(Actor) {
+            getProxy(_) >> target
+        }
+    }
+}
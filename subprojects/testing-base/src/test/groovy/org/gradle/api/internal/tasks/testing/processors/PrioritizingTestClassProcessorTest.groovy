@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.specs.Spec
+import spock.lang.Specification
+
+class PrioritizingTestClassProcessorTest extends Specification {
+    private final TestClassProcessor delegate = Mock()
+    private final TestResultProcessor resultProcessor = Mock()
+    private final Spec<TestClassRunInfo> prioritized = { TestClassRunInfo testClass -> testClass.testClassName.startsWith("failed") } as Spec
+    private final PrioritizingTestClassProcessor processor = new PrioritizingTestClassProcessor(delegate, prioritized)
+
+    def "passes prioritized test classes on immediately and the others on stop"() {
+        def testClassA = new DefaultTestClassRunInfo("a")
+        def failedTestClass = new DefaultTestClassRunInfo("failedB")
+        def testClassC = new DefaultTestClassRunInfo("c")
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(testClassA)
+        processor.processTestClass(failedTestClass)
+        processor.processTestClass(testClassC)
+
+        then:
+        1 * delegate.startProcessing(resultProcessor)
+        1 * delegate.processTestClass(failedTestClass)
+        0 * delegate._
+
+        when:
+        processor.stop()
+
+        then:
+        1 * delegate.processTestClass(testClassA)
+
+        then:
+        1 * delegate.processTestClass(testClassC)
+
+        then:
+        1 * delegate.stop()
+        0 * delegate._
+    }
+
+    def "stops delegate when passing on a test class fails"() {
+        def failure = new RuntimeException()
+
+        given:
+        processor.processTestClass(new DefaultTestClassRunInfo("a"))
+        delegate.processTestClass(_) >> { throw failure }
+
+        when:
+        processor.stop()
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+        1 * delegate.stop()
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import spock.lang.Specification
+
+class ShardingTestClassProcessorTest extends Specification {
+    def classNames = (1..100).collect { "org.gradle.SomeTest$it".toString() }
+
+    def "each test class is executed by exactly one shard"() {
+        when:
+        def shards = (0..<3).collect { index -> execute(new ShardingTestClassProcessor(collector(), index, 3)) }
+
+        then:
+        shards.flatten().sort() == classNames.sort()
+        shards.every { !it.empty }
+    }
+
+    def "assigns a test class to the same shard regardless of the other test classes"() {
+        expect:
+        classNames.every { className ->
+            def shard = ShardingTestClassProcessor.shardOf(className, 4)
+            execute(new ShardingTestClassProcessor(collector(), shard, 4), [className]) == [className]
+        }
+    }
+
+    def "passes test classes of the shard to the delegate as they are found"() {
+        def delegate = Mock(TestClassProcessor)
+        def className = classNames.find { ShardingTestClassProcessor.shardOf(it, 2) == 0 }
+        def processor = new ShardingTestClassProcessor(delegate, 0, 2)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo(className))
+
+        then:
+        1 * delegate.processTestClass({ it.testClassName == className })
+    }
+
+    def "forwards lifecycle to delegate"() {
+        def delegate = Mock(TestClassProcessor)
+        def resultProcessor = Mock(TestResultProcessor)
+        def processor = new ShardingTestClassProcessor(delegate, 0, 2)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.stop()
+
+        then:
+        1 * delegate.startProcessing(resultProcessor)
+        1 * delegate.stop()
+        0 * delegate._
+    }
+
+    def "fails for invalid shard index"() {
+        when:
+        new ShardingTestClassProcessor(Mock(TestClassProcessor), 2, 2)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Cannot execute shard 2 of 2 shards."
+    }
+
+    private List<String> executed = []
+
+    private TestClassProcessor collector() {
+        executed = []
+        def shardExecuted = executed
+        return Stub(TestClassProcessor) {
+            processTestClass(_) >> { TestClassRunInfo testClass -> shardExecuted << testClass.testClassName }
+        }
+    }
+
+    private List<String> execute(ShardingTestClassProcessor processor, List<String> testClasses = classNames) {
+        processor.startProcessing(Stub(TestResultProcessor))
+        testClasses.each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+        processor.stop()
+        return executed
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.tasks.testing.TestOutputEvent
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import static org.gradle.test.fixtures.ConcurrentTestUtil.poll
+
+class BatchingTestResultProcessorTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def batches = [].asSynchronized()
+    def target = { TestEventBatch batch -> batches << batch } as TestEventBatchProcessor
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "sends results in a single batch when a test class completes"() {
+        def processor = new BatchingTestResultProcessor(target, executorFactory, 60000)
+        def results = Mock(TestResultProcessor)
+        def testClass = new DefaultTestClassDescriptor(1, "SomeTest")
+        def test = new DefaultTestDescriptor(2, "SomeTest", "method")
+
+        when:
+        processor.started(testClass, new TestStartEvent(0))
+        processor.started(test, new TestStartEvent(0, 1))
+        processor.output(2, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "output"))
+        processor.completed(2, new TestCompleteEvent(0))
+
+        then:
+        batches.empty
+
+        when:
+        processor.completed(1, new TestCompleteEvent(0))
+
+        then:
+        batches.size() == 1
+        batches[0].size() == 5
+
+        when:
+        batches[0].replay(results)
+
+        then:
+        1 * results.started(testClass, _)
+
+        then:
+        1 * results.started(test, _)
+
+        then:
+        1 * results.output(2, _)
+
+        then:
+        1 * results.completed(2, _)
+
+        then:
+        1 * results.completed(1, _)
+        0 * results._
+
+        cleanup:
+        processor.stop()
+    }
+
+    def "sends results when the batch is full"() {
+        def processor = new BatchingTestResultProcessor(target, executorFactory, 60000)
+
+        when:
+        (BatchingTestResultProcessor.MAX_BATCH_EVENTS + 1).times {
+            processor.output(1, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "x"))
+        }
+
+        then:
+        batches.size() == 1
+        batches[0].size() == BatchingTestResultProcessor.MAX_BATCH_EVENTS
+
+        when:
+        processor.stop()
+
+        then:
+        batches.size() == 2
+        batches[1].size() == 1
+    }
+
+    def "sends pending results after the flush interval"() {
+        def processor = new BatchingTestResultProcessor(target, executorFactory, 10)
+
+        when:
+        processor.output(1, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "x"))
+
+        then:
+        poll {
+            assert batches.size() == 1
+        }
+
+        cleanup:
+        processor.stop()
+    }
+
+    def "sends nothing when there are no results"() {
+        def processor = new BatchingTestResultProcessor(target, executorFactory, 10)
+
+        when:
+        processor.stop()
+
+        then:
+        batches.empty
+    }
+}
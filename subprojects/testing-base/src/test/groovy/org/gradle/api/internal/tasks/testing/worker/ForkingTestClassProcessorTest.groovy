@@ -60,6 +60,35 @@ class ForkingTestClassProcessorTest extends Specification {
         0 * remoteProcessor._
     }
 
+    def "executes tests in a session of a pooled worker process and returns the worker process to the pool"() {
+        def pool = Mock(TestWorkerProcessPool)
+        def pooledProcessor = Spy(ForkingTestClassProcessor, constructorArgs: [workerProcessFactory, Mock(WorkerTestClassProcessorFactory), Mock(JavaForkOptions), [new File("classpath.jar")], Mock(Action), moduleRegistry, owner, pool])
+        def test1 = Mock(TestClassRunInfo)
+        def test2 = Mock(TestClassRunInfo)
+        def workerCompletion = Mock(BuildOperationWorkerRegistry.Completion)
+        def worker = Mock(PooledTestWorker)
+
+        when:
+        pooledProcessor.processTestClass(test1)
+        pooledProcessor.processTestClass(test2)
+        pooledProcessor.stop()
+
+        then:
+        1 * owner.operationStart() >> workerCompletion
+        1 * pooledProcessor.startSession() >> worker
+        1 * worker.processTestClass(test1)
+        1 * worker.processTestClass(test2)
+
+        then:
+        1 * worker.stopSession() >> reusable
+        (reusable ? 1 : 0) * pool.release(worker)
+        1 * workerCompletion.operationFinish()
+        0 * pooledProcessor.forkProcess()
+
+        where:
+        reusable << [true, false]
+    }
+
     def "starts process with a limited implementation classpath"() {
         setup:
         1 * workerProcessFactory.create(_) >> workerProcessBuilder
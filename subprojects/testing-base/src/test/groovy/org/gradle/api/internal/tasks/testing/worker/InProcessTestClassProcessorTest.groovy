@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.Action
+import org.gradle.api.internal.classpath.Module
+import org.gradle.api.internal.classpath.ModuleRegistry
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.worker.inprocess.RecordingTestClassProcessorFactory
+import org.gradle.internal.classloader.ClasspathUtil
+import org.gradle.internal.classloader.DefaultClassLoaderFactory
+import org.gradle.internal.classpath.DefaultClassPath
+import org.gradle.process.JavaForkOptions
+import org.gradle.process.internal.worker.WorkerProcessBuilder
+import org.gradle.process.internal.worker.WorkerProcessFactory
+import spock.lang.Specification
+
+class InProcessTestClassProcessorTest extends Specification {
+    def workerFactory = Stub(WorkerProcessFactory) {
+        create(_) >> Stub(WorkerProcessBuilder) {
+            getSharedPackages() >> ([] as Set)
+        }
+    }
+    def moduleRegistry = Stub(ModuleRegistry) {
+        getModule("gradle-testing-jvm") >> Stub(Module) {
+            getImplementationClasspath() >> new DefaultClassPath(ClasspathUtil.getClasspathForClass(RecordingTestClassProcessorFactory))
+        }
+    }
+    def options = Stub(JavaForkOptions) {
+        getSystemProperties() >> ["test.property": "value"]
+    }
+    def resultProcessor = Mock(TestResultProcessor)
+    def processor = new InProcessTestClassProcessor(workerFactory, new RecordingTestClassProcessorFactory(), new DefaultClassLoaderFactory(), options, [],
+        Stub(Action), moduleRegistry)
+
+    def "executes test classes in an isolated ClassLoader with the system properties of the task"() {
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(new DefaultTestClassRunInfo("a"))
+        processor.stop()
+
+        then:
+        1 * resultProcessor.started({ it.name == "a:value:true" }, _)
+        System.getProperty("test.property") == null
+    }
+
+    def "allows the next processor to execute tests once stopped"() {
+        def other = new InProcessTestClassProcessor(workerFactory, new RecordingTestClassProcessorFactory(), new DefaultClassLoaderFactory(), options, [],
+            Stub(Action), moduleRegistry)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(new DefaultTestClassRunInfo("a"))
+        processor.stop()
+        other.startProcessing(resultProcessor)
+        other.processTestClass(new DefaultTestClassRunInfo("b"))
+        other.stop()
+
+        then:
+        1 * resultProcessor.started({ it.name == "a:value:true" }, _)
+        1 * resultProcessor.started({ it.name == "b:value:true" }, _)
+    }
+
+    def "refuses System.exit() from tests and restores the security manager"() {
+        def securityManager = System.securityManager
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(new DefaultTestClassRunInfo("exit"))
+        processor.stop()
+
+        then:
+        1 * resultProcessor.started({ it.name == "exit:refused" }, _)
+        System.securityManager == securityManager
+    }
+}
@@ -175,6 +175,39 @@ class TestEventSerializerTest extends SerializerSpec {
         result.cause.message == "cause"
     }
 
+    def "serializes TestEventBatch"() {
+        def id = new CompositeIdGenerator.CompositeId(1L, 2L)
+        def batch = new TestEventBatch()
+        batch.started(new DefaultTestClassDescriptor(id, "some-test"), new TestStartEvent(123L))
+        outputCount.times { batch.output(id, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "some output ${it}\n")) }
+        batch.failure(id, new GradleException("broken"))
+        batch.completed(id, new TestCompleteEvent(456L, TestResult.ResultType.FAILURE))
+        def processor = Mock(TestResultProcessor)
+
+        when:
+        def result = serialize(batch)
+        result.replay(processor)
+
+        then:
+        result instanceof TestEventBatch
+        result.size() == outputCount + 3
+        1 * processor.started({ it instanceof DefaultTestClassDescriptor && it.id == id }, { it.startTime == 123L })
+
+        then:
+        outputCount * processor.output(id, { it.message.startsWith("some output") })
+
+        then:
+        1 * processor.failure(id, { it instanceof GradleException && it.message == "broken" })
+
+        then:
+        1 * processor.completed(id, { it.endTime == 456L && it.resultType == TestResult.ResultType.FAILURE })
+        0 * processor._
+
+        where:
+        // Large batches are compressed
+        outputCount << [1, 2000]
+    }
+
     def Object serialize(Object source, Class type = source.getClass()) {
         return super.serialize(source, serializer.build(type))
     }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.remote.ObjectConnection
+import org.gradle.process.internal.worker.WorkerProcess
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+
+class TestWorkerProcessPoolTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def pool = new TestWorkerProcessPool(executorFactory, 2)
+    def started = []
+    def exited = [:]
+
+    def cleanup() {
+        exited.values()*.countDown()
+        executorFactory.stop()
+    }
+
+    def "reuses idle worker process with the same key"() {
+        when:
+        def worker1 = pool.acquire("a", processFactory())
+        pool.release(worker1)
+        def worker2 = pool.acquire("a", processFactory())
+
+        then:
+        worker2.is(worker1)
+        started.size() == 1
+    }
+
+    def "starts new worker process when there is no idle worker process with the same key"() {
+        when:
+        def worker1 = pool.acquire("a", processFactory())
+        def worker2 = pool.acquire("a", processFactory())
+        pool.release(worker1)
+        def worker3 = pool.acquire("b", processFactory())
+
+        then:
+        !worker2.is(worker1)
+        !worker3.is(worker1)
+        started.size() == 3
+    }
+
+    def "discards idle worker process that has exited"() {
+        given:
+        def worker1 = pool.acquire("a", processFactory())
+        pool.release(worker1)
+
+        when:
+        exited[started[0]].countDown()
+        waitForExit(worker1)
+        def worker2 = pool.acquire("a", processFactory())
+
+        then:
+        !worker2.is(worker1)
+        started.size() == 2
+    }
+
+    def "stops least recently used idle worker process when there are too many idle worker processes"() {
+        def remoteWorker = Mock(RemoteReusableTestWorker)
+
+        given:
+        def worker1 = pool.acquire("a", processFactory(remoteWorker))
+        def worker2 = pool.acquire("a", processFactory())
+        def worker3 = pool.acquire("a", processFactory())
+        pool.release(worker1)
+        pool.release(worker2)
+
+        when:
+        pool.release(worker3)
+
+        then:
+        1 * remoteWorker.shutdown() >> { exited[started[0]].countDown() }
+    }
+
+    def "stops idle worker processes when stopped"() {
+        def remoteWorker = Mock(RemoteReusableTestWorker)
+
+        given:
+        def worker = pool.acquire("a", processFactory(remoteWorker))
+        pool.release(worker)
+
+        when:
+        pool.stop()
+
+        then:
+        1 * remoteWorker.shutdown() >> { exited[started[0]].countDown() }
+    }
+
+    private static void waitForExit(PooledTestWorker worker) {
+        while (!worker.isExited()) {
+            Thread.sleep(10)
+        }
+    }
+
+    private Factory<WorkerProcess> processFactory(RemoteReusableTestWorker remoteWorker = Stub(RemoteReusableTestWorker)) {
+        return {
+            def latch = new CountDownLatch(1)
+            def process = Stub(WorkerProcess) {
+                getConnection() >> Stub(ObjectConnection) {
+                    addOutgoing(RemoteReusableTestWorker) >> remoteWorker
+                }
+                waitForStop() >> { latch.await(); null }
+            }
+            started << process
+            exited[process] = latch
+            process
+        } as Factory
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker.inprocess
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
+import org.gradle.internal.service.ServiceRegistry
+
+/**
+ * Reports each test class with the value of the "test.property" system property and the ClassLoader that the test class was executed with.
+ * The test class "exit" calls System.exit() and is reported with whether the call was refused.
+ */
+class RecordingTestClassProcessorFactory implements WorkerTestClassProcessorFactory, Serializable {
+    @Override
+    TestClassProcessor create(ServiceRegistry serviceRegistry) {
+        return new TestClassProcessor() {
+            TestResultProcessor resultProcessor
+
+            void startProcessing(TestResultProcessor resultProcessor) {
+                this.resultProcessor = resultProcessor
+            }
+
+            void processTestClass(TestClassRunInfo testClass) {
+                def contextClassLoader = Thread.currentThread().contextClassLoader
+                def isolated = contextClassLoader != RecordingTestClassProcessorFactory.classLoader && contextClassLoader != ClassLoader.systemClassLoader
+                def name = "${testClass.testClassName}:${System.getProperty("test.property")}:${isolated}"
+                if (testClass.testClassName == "exit") {
+                    try {
+                        System.exit(1)
+                    } catch (SecurityException e) {
+                        name = "exit:refused"
+                    }
+                }
+                resultProcessor.started(new DefaultTestClassDescriptor(name, name), new TestStartEvent(0))
+                resultProcessor.completed(name, new TestCompleteEvent(0))
+            }
+
+            void stop() {
+            }
+        }
+    }
+}
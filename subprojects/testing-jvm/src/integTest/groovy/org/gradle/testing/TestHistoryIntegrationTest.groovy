@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.testing
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.DefaultTestExecutionResult
+import org.hamcrest.Matchers
+
+class TestHistoryIntegrationTest extends AbstractIntegrationSpec {
+
+    def setup() {
+        buildFile << """
+            apply plugin: 'java'
+            repositories { mavenCentral() }
+            dependencies { testCompile 'junit:junit:4.12' }
+            test {
+                outputs.upToDateWhen { false }
+                beforeSuite { if (it.className) { println "running " + it.className } }
+            }
+        """
+        file("src/test/java/AaaTest.java") << """
+            import org.junit.*;
+            public class AaaTest {
+                @Test public void test() {}
+            }
+        """
+        file("src/test/java/ZzzTest.java") << """
+            import org.junit.*;
+            public class ZzzTest {
+                @Test public void test() {
+                    Assert.assertTrue(Boolean.getBoolean("zzz.passes"));
+                }
+            }
+        """
+    }
+
+    def "executes tests with and without features that use the test history"() {
+        buildFile << """
+            test {
+                systemProperty 'zzz.passes', 'true'
+                maxParallelForks = 2
+                balanceForks = $balanceForks
+            }
+        """
+
+        when:
+        succeeds 'test'
+
+        then:
+        new DefaultTestExecutionResult(testDirectory).assertTestClassesExecuted('AaaTest', 'ZzzTest')
+
+        when:
+        succeeds 'test'
+
+        then:
+        new DefaultTestExecutionResult(testDirectory).assertTestClassesExecuted('AaaTest', 'ZzzTest')
+
+        where:
+        balanceForks << [false, true]
+    }
+
+    def "runs test classes that failed in the previous run first"() {
+        buildFile << """
+            test {
+                failedTestsFirst = true
+                ignoreFailures = true
+            }
+        """
+
+        when:
+        succeeds 'test'
+
+        then:
+        new DefaultTestExecutionResult(testDirectory).testClass('ZzzTest').assertTestFailed('test', Matchers.startsWith("java.lang.AssertionError"))
+
+        when:
+        succeeds 'test'
+
+        then:
+        output.indexOf("running ZzzTest") >= 0
+        output.indexOf("running ZzzTest") < output.indexOf("running AaaTest")
+    }
+}
@@ -19,6 +19,8 @@ package org.gradle.api.internal.tasks.testing.detection;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
+import org.gradle.api.Transformer;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
@@ -31,10 +33,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
@@ -48,14 +50,21 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     private final Map<File, Boolean> superClasses;
     private TestClassProcessor testClassProcessor;
     private final List<String> knownTestCaseClassNames;
+    private final Transformer<TestClassFileDetails, File> classFileReader = new Transformer<TestClassFileDetails, File>() {
+        @Override
+        public TestClassFileDetails transform(File classFile) {
+            return new TestClassFileDetails(classVisitor(classFile));
+        }
+    };
 
     private File testClassesDirectory;
     private FileCollection testClasspath;
+    private TestClassDetectionCache detectionCache;
 
     protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
         assert classFileExtractionManager != null;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.superClasses = new ConcurrentHashMap<File, Boolean>();
         this.knownTestCaseClassNames = new ArrayList<String>();
         addKnownTestCaseClassNames(TEST_CASE, GROOVY_TEST_CASE);
     }
@@ -90,7 +99,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         }
     }
 
-    private void prepareClasspath() {
+    private synchronized void prepareClasspath() {
         if (testClassDirectories != null) {
             return;
         }
@@ -121,6 +130,22 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         this.testClasspath = testClasspath;
     }
 
+    @Override
+    public void setDetectionCache(@Nullable TestClassDetectionCache detectionCache) {
+        this.detectionCache = detectionCache;
+    }
+
+    /**
+     * Reads the details of the given class file, or takes them from the detection cache when the class file has been read before.
+     * Class files extracted from library jars are not cached, as they are extracted to a new temporary file for each scan.
+     */
+    protected TestClassFileDetails classFileDetails(File testClassFile) {
+        if (detectionCache == null || classFileExtractionManager.isExtractedClassFile(testClassFile)) {
+            return classFileReader.transform(testClassFile);
+        }
+        return detectionCache.get(getClass().getName(), testClassFile, classFileReader);
+    }
+
     protected TestClassVisitor classVisitor(final File testClassFile) {
         final TestClassVisitor classVisitor = createClassVisitor();
 
@@ -165,9 +190,9 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
      * In none super class mode a test class is published when the class is a test and it is not abstract. In super class mode it must not publish the class otherwise it will get published multiple
      * times (for each extending class).
      */
-    protected void publishTestClass(boolean isTest, TestClassVisitor classVisitor, boolean superClass) {
-        if (isTest && !classVisitor.isAbstract() && !superClass) {
-            String className = Type.getObjectType(classVisitor.getClassName()).getClassName();
+    protected void publishTestClass(boolean isTest, TestClassFileDetails classDetails, boolean superClass) {
+        if (isTest && !classDetails.isAbstract() && !superClass) {
+            String className = Type.getObjectType(classDetails.getClassName()).getClassName();
             testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
         }
     }
@@ -36,6 +36,7 @@ public class ClassFileExtractionManager {
     private final Map<String, Set<File>> packageJarFilesMappings;
     private final Map<String, File> extractedJarClasses;
     private final Set<String> unextractableClasses;
+    private final Set<File> extractedClassFiles;
     private final TemporaryFileProvider tempDirProvider;
 
     public ClassFileExtractionManager(final Factory<File> tempDirFactory) {
@@ -44,6 +45,7 @@ public class ClassFileExtractionManager {
         packageJarFilesMappings = new HashMap<String, Set<File>>();
         extractedJarClasses = new HashMap<String, File>();
         unextractableClasses = new TreeSet<String>();
+        extractedClassFiles = new HashSet<File>();
     }
 
     /**
@@ -51,7 +53,7 @@ public class ClassFileExtractionManager {
      *
      * @param libraryJar Jar file to add to the index.
      */
-    public void addLibraryJar(final File libraryJar) {
+    public synchronized void addLibraryJar(final File libraryJar) {
         new JarFilePackageLister().listJarPackages(libraryJar, new JarFilePackageListener() {
             public void receivePackage(String packageName) {
                 Set<File> jarFiles = packageJarFilesMappings.get(packageName);
@@ -73,7 +75,7 @@ public class ClassFileExtractionManager {
      * @param className Name of the class to extract.
      * @return File that contains the extracted class file.
      */
-    public File getLibraryClassFile(final String className) {
+    public synchronized File getLibraryClassFile(final String className) {
         if (unextractableClasses.contains(className)) {
             return null;
         } else {
@@ -87,6 +89,13 @@ public class ClassFileExtractionManager {
         }
     }
 
+    /**
+     * Returns true if the given file is a class file extracted by this manager.
+     */
+    public synchronized boolean isExtractedClassFile(File file) {
+        return extractedClassFiles.contains(file);
+    }
+
     private boolean extractClassFile(final String className) {
         boolean classFileExtracted = false;
 
@@ -118,6 +127,7 @@ public class ClassFileExtractionManager {
                 LOGGER.debug("extracted class {} from {}", className, classFileSourceJar.getName());
 
                 extractedJarClasses.put(className, extractedClassFile);
+                extractedClassFiles.add(extractedClassFile);
             }
         } // super class not on the classpath - unable to scan parent class
 
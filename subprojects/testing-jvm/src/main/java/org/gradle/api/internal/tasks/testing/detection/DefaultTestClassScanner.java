@@ -16,29 +16,56 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 
 import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
  * a detection or filename scan is performed to find test classes.
+ *
+ * <p>When an executor factory is given, the class files are passed to the detector from multiple threads while the candidate
+ * class files are still being visited. The detected test classes are passed to the test class processor on the scanning thread,
+ * as soon as they are detected.</p>
  */
 public class DefaultTestClassScanner implements Runnable {
+    private static final int MAX_PENDING_CLASS_FILES = 1024;
+
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final ExecutorFactory executorFactory;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, @Nullable ExecutorFactory executorFactory) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.executorFactory = executorFactory;
     }
 
     @Override
@@ -51,12 +78,72 @@ public class DefaultTestClassScanner implements Runnable {
     }
 
     private void detectionScan() {
-        testFrameworkDetector.startDetection(testClassProcessor);
-        candidateClassFiles.visit(new ClassFileVisitor() {
-            public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(fileDetails.getFile());
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (executorFactory == null || threads < 2) {
+            testFrameworkDetector.startDetection(testClassProcessor);
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    testFrameworkDetector.processTestClass(fileDetails.getFile());
+                }
+            });
+            return;
+        }
+
+        final BlockingQueue<TestClassRunInfo> detectedTestClasses = new LinkedBlockingQueue<TestClassRunInfo>();
+        final Deque<Future<Boolean>> pending = new ArrayDeque<Future<Boolean>>();
+        final StoppableExecutor executor = executorFactory.create("test class detection", threads);
+        try {
+            testFrameworkDetector.startDetection(new QueueingTestClassProcessor(detectedTestClasses));
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    final File classFile = fileDetails.getFile();
+                    pending.add(executor.submit(new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() {
+                            return testFrameworkDetector.processTestClass(classFile);
+                        }
+                    }));
+                    while (pending.size() > MAX_PENDING_CLASS_FILES) {
+                        awaitDetection(pending.remove(), detectedTestClasses);
+                    }
+                    publishDetectedTestClasses(detectedTestClasses);
+                }
+            });
+            while (!pending.isEmpty()) {
+                awaitDetection(pending.remove(), detectedTestClasses);
             }
-        });
+            publishDetectedTestClasses(detectedTestClasses);
+        } finally {
+            for (Future<Boolean> future : pending) {
+                future.cancel(false);
+            }
+            executor.stop();
+        }
+    }
+
+    private void awaitDetection(Future<Boolean> detection, BlockingQueue<TestClassRunInfo> detectedTestClasses) {
+        try {
+            while (true) {
+                try {
+                    detection.get(100, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (TimeoutException e) {
+                    // Hand over the test classes detected so far while waiting
+                    publishDetectedTestClasses(detectedTestClasses);
+                }
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
+    private void publishDetectedTestClasses(BlockingQueue<TestClassRunInfo> detectedTestClasses) {
+        TestClassRunInfo testClass;
+        while ((testClass = detectedTestClasses.poll()) != null) {
+            testClassProcessor.processTestClass(testClass);
+        }
     }
 
     private void filenameScan() {
@@ -69,6 +156,27 @@ public class DefaultTestClassScanner implements Runnable {
         });
     }
 
+    private static class QueueingTestClassProcessor implements TestClassProcessor {
+        private final BlockingQueue<TestClassRunInfo> detectedTestClasses;
+
+        QueueingTestClassProcessor(BlockingQueue<TestClassRunInfo> detectedTestClasses) {
+            this.detectedTestClasses = detectedTestClasses;
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            detectedTestClasses.add(testClass);
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+
     private abstract class ClassFileVisitor extends EmptyFileVisitor {
         @Override
         public void visitFile(FileVisitDetails fileDetails) {
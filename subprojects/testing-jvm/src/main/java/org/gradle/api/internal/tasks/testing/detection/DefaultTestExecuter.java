@@ -16,38 +16,90 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.StartParameter;
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
+import org.gradle.api.internal.tasks.testing.processors.DurationBalancingTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.PrioritizingTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.SelectingTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.ShardingTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.worker.InProcessTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerProcessPool;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.internal.Factory;
 import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.classloader.ClassLoaderFactory;
+import org.gradle.internal.classloader.DefaultClassLoaderFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.operations.BuildOperationWorkerRegistry;
 import org.gradle.internal.progress.OperationIdGenerator;
 import org.gradle.internal.actor.ActorFactory;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * The default test class scanner factory.
  */
 public class DefaultTestExecuter implements TestExecuter {
+    private static final Logger LOGGER = Logging.getLogger(DefaultTestExecuter.class);
+
     private final WorkerProcessFactory workerFactory;
     private final ActorFactory actorFactory;
     private final ModuleRegistry moduleRegistry;
     private final BuildOperationWorkerRegistry buildOperationWorkerRegistry;
+    private final ExecutorFactory executorFactory;
+    private final TestClassDetectionCache detectionCache;
+    private final TestWorkerProcessPool workerPool;
+    private final ClassLoaderFactory classLoaderFactory;
+    private final Map<String, Long> previousClassDurations;
+    private final Spec<? super TestClassRunInfo> prioritizedClasses;
+    private final Spec<? super TestClassRunInfo> selectedClasses;
 
     public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry, BuildOperationWorkerRegistry buildOperationWorkerRegistry) {
+        this(workerFactory, actorFactory, moduleRegistry, buildOperationWorkerRegistry, null, null, null, new DefaultClassLoaderFactory(), Collections.<String, Long>emptyMap(), null, null);
+    }
+
+    /**
+     * @param executorFactory Used to detect test classes concurrently, or null to detect test classes on the calling thread.
+     * @param detectionCache The cache of previously read test class files, or null to read all test class files.
+     * @param workerPool The pool of reusable test worker processes, used when the test task reuses forks.
+     * @param classLoaderFactory Used to create the ClassLoaders for the tests, when the test task executes tests in the build process.
+     * @param previousClassDurations The durations of the test classes in previous runs, used to balance test classes across forks.
+     * @param prioritizedClasses The test classes to execute before all other test classes, or null to execute test classes in the order they are found.
+     * @param selectedClasses The test classes to execute, or null to execute all test classes.
+     */
+    public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry, BuildOperationWorkerRegistry buildOperationWorkerRegistry,
+                               @Nullable ExecutorFactory executorFactory, @Nullable TestClassDetectionCache detectionCache, @Nullable TestWorkerProcessPool workerPool,
+                               ClassLoaderFactory classLoaderFactory, Map<String, Long> previousClassDurations, @Nullable Spec<? super TestClassRunInfo> prioritizedClasses,
+                               @Nullable Spec<? super TestClassRunInfo> selectedClasses) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
         this.moduleRegistry = moduleRegistry;
         this.buildOperationWorkerRegistry = buildOperationWorkerRegistry;
+        this.executorFactory = executorFactory;
+        this.detectionCache = detectionCache;
+        this.workerPool = workerPool;
+        this.classLoaderFactory = classLoaderFactory;
+        this.previousClassDurations = previousClassDurations;
+        this.prioritizedClasses = prioritizedClasses;
+        this.selectedClasses = selectedClasses;
     }
 
     @Override
@@ -55,10 +107,12 @@ public class DefaultTestExecuter implements TestExecuter {
         final TestFramework testFramework = testTask.getTestFramework();
         final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
         final BuildOperationWorkerRegistry.Operation currentOperation = buildOperationWorkerRegistry.getCurrent();
+        // A worker process that is restarted every N test classes or waits for a debugger is not reused
+        final TestWorkerProcessPool reusableWorkers = testTask.isReuseForks() && testTask.getForkEvery() == 0 && !testTask.getDebug() ? workerPool : null;
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
-                    testTask.getClasspath(), testFramework.getWorkerConfigurationAction(), moduleRegistry, currentOperation);
+                    testTask.getClasspath(), testFramework.getWorkerConfigurationAction(), moduleRegistry, currentOperation, reusableWorkers);
             }
         };
         Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -67,8 +121,45 @@ public class DefaultTestExecuter implements TestExecuter {
             }
         };
 
-        TestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
-            reforkingProcessorFactory, actorFactory);
+        final Factory<TestClassProcessor> inProcessProcessorFactory = new Factory<TestClassProcessor>() {
+            public TestClassProcessor create() {
+                return new InProcessTestClassProcessor(workerFactory, testInstanceFactory, classLoaderFactory, testTask,
+                    testTask.getClasspath(), testFramework.getWorkerConfigurationAction(), moduleRegistry);
+            }
+        };
+
+        // Tests executed in the build process share its global state, so are executed by a single processor while no other task runs
+        boolean inProcess = testTask.isInProcess();
+        StartParameter startParameter = testTask.getProject().getGradle().getStartParameter();
+        if (inProcess && startParameter.isParallelProjectExecutionEnabled() && startParameter.getMaxWorkerCount() > 1) {
+            LOGGER.warn("Executing the tests of {} in forked test processes, as other tasks may run while the tests execute.", testTask);
+            inProcess = false;
+        }
+        Factory<TestClassProcessor> processorFactory = inProcess ? inProcessProcessorFactory : reforkingProcessorFactory;
+        int maxProcessors = inProcess ? 1 : testTask.getMaxParallelForks();
+
+        TestClassProcessor processor;
+        if (testTask.isBalanceForks() && maxProcessors > 1 && testFramework instanceof JUnitTestFramework) {
+            // Balancing relies on each test class being reported as soon as it has been executed, which TestNG does not do
+            processor = new DurationBalancingTestClassProcessor(maxProcessors,
+                processorFactory, actorFactory, previousClassDurations,
+                prioritizedClasses == null ? Specs.<TestClassRunInfo>satisfyNone() : prioritizedClasses, new TrueTimeProvider());
+        } else {
+            processor = new MaxNParallelTestClassProcessor(maxProcessors,
+                processorFactory, actorFactory);
+            if (prioritizedClasses != null) {
+                processor = new PrioritizingTestClassProcessor(processor, prioritizedClasses);
+            }
+        }
+
+        if (selectedClasses != null) {
+            processor = new SelectingTestClassProcessor(processor, selectedClasses);
+        }
+
+        // Shards are assigned before test classes are selected, so that selection does not move test classes between shards
+        if (testTask.getShardCount() > 1) {
+            processor = new ShardingTestClassProcessor(processor, testTask.getShardIndex(), testTask.getShardCount());
+        }
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
 
@@ -77,7 +168,8 @@ public class DefaultTestExecuter implements TestExecuter {
             TestFrameworkDetector testFrameworkDetector = testTask.getTestFramework().getDetector();
             testFrameworkDetector.setTestClassesDirectory(testTask.getTestClassesDir());
             testFrameworkDetector.setTestClasspath(testTask.getClasspath());
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            testFrameworkDetector.setDetectionCache(detectionCache);
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor, executorFactory);
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
         }
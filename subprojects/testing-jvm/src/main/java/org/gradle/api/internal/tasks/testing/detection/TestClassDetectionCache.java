@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import org.gradle.api.Transformer;
+import org.gradle.api.internal.changedetection.state.FileSnapshotter;
+import org.gradle.api.internal.changedetection.state.TaskHistoryStore;
+import org.gradle.api.internal.hash.Hasher;
+import org.gradle.cache.PersistentIndexedCache;
+
+import java.io.File;
+
+/**
+ * Caches the details of class files read by test framework detectors, keyed on the content of the class file. The cache is shared by all test tasks,
+ * so a class file that has not changed since it was last scanned is not read again.
+ */
+public class TestClassDetectionCache {
+    private final PersistentIndexedCache<String, TestClassFileDetails> cache;
+    private final Hasher hasher;
+
+    public TestClassDetectionCache(TaskHistoryStore cacheAccess, FileSnapshotter hasher) {
+        this.cache = cacheAccess.createCache("testClassDetection", String.class, new TestClassFileDetailsSerializer());
+        this.hasher = hasher;
+    }
+
+    /**
+     * Returns the details of the given class file, using the given reader when the class file has not been read by the same kind of detector before.
+     */
+    public TestClassFileDetails get(String detectorType, File classFile, Transformer<TestClassFileDetails, File> reader) {
+        String key = Hashing.md5().newHasher()
+            .putString(detectorType, Charsets.UTF_8)
+            .putBytes(hasher.hash(classFile).asBytes())
+            .hash().toString();
+        TestClassFileDetails details = cache.get(key);
+        if (details == null) {
+            details = reader.transform(classFile);
+            cache.put(key, details);
+        }
+        return details;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 
@@ -23,9 +24,15 @@ import java.io.File;
 public interface TestFrameworkDetector {
     void startDetection(TestClassProcessor testClassProcessor);
 
+    /**
+     * Detects whether the given class file contains a test class, and passes it to the test class processor if so. May be called concurrently
+     * from multiple threads, in which case the test class processor is also called from multiple threads.
+     */
     boolean processTestClass(File testClassFile);
 
     void setTestClassesDirectory(File testClassesDir);
 
     void setTestClasspath(FileCollection classpath);
+
+    void setDetectionCache(@Nullable TestClassDetectionCache detectionCache);
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.history;
+
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.specs.Spec;
+
+import java.util.Set;
+
+/**
+ * Selects the test classes that are affected by the changes to the classpath since the previous run, along with the test classes that
+ * are new or failed when they were last executed.
+ */
+public class AffectedTestClassSpec implements Spec<TestClassRunInfo> {
+    private final TestHistory history;
+    private final Set<String> affectedClasses;
+
+    /**
+     * @param affectedClasses the changed classes and their dependents, as returned by {@link TestClasspathSnapshot#getAffectedClassesSince(TestClasspathSnapshot)}
+     */
+    public AffectedTestClassSpec(TestHistory history, Set<String> affectedClasses) {
+        this.history = history;
+        this.affectedClasses = affectedClasses;
+    }
+
+    @Override
+    public boolean isSatisfiedBy(TestClassRunInfo testClass) {
+        String className = testClass.getTestClassName();
+        TestClassHistory previous = history.getTestClass(className);
+        return previous == null || previous.isFailed() || affectedClasses.contains(className);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.history;
+
+import org.gradle.api.internal.changedetection.state.TaskHistoryStore;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentStateCache;
+
+public class DefaultTestHistoryCacheFactory implements TestHistoryCacheFactory {
+    private final PersistentIndexedCache<String, TestHistory> testHistoryIndexedCache;
+    private final PersistentIndexedCache<String, TestClasspathSnapshot> classpathSnapshotIndexedCache;
+
+    public DefaultTestHistoryCacheFactory(TaskHistoryStore cacheAccess) {
+        testHistoryIndexedCache = cacheAccess.createCache("testHistory", String.class, new TestHistorySerializer());
+        classpathSnapshotIndexedCache = cacheAccess.createCache("testClasspathSnapshot", String.class, new TestClasspathSnapshotSerializer());
+    }
+
+    @Override
+    public PersistentStateCache<TestHistory> create(final String taskPath) {
+        return new PersistentTaskStateCache<TestHistory>(taskPath, testHistoryIndexedCache);
+    }
+
+    @Override
+    public PersistentStateCache<TestClasspathSnapshot> createClasspathSnapshotCache(String taskPath) {
+        return new PersistentTaskStateCache<TestClasspathSnapshot>(taskPath, classpathSnapshotIndexedCache);
+    }
+
+    private static class PersistentTaskStateCache<T> implements PersistentStateCache<T> {
+        private final String taskPath;
+        private final PersistentIndexedCache<String, T> indexedCache;
+
+        public PersistentTaskStateCache(String taskPath, PersistentIndexedCache<String, T> indexedCache) {
+            this.taskPath = taskPath;
+            this.indexedCache = indexedCache;
+        }
+
+        @Override
+        public T get() {
+            return indexedCache.get(taskPath);
+        }
+
+        @Override
+        public void set(T newValue) {
+            synchronized (indexedCache) {
+                indexedCache.put(taskPath, newValue);
+            }
+        }
+
+        @Override
+        public void update(UpdateAction<T> updateAction) {
+            // The indexed cache is shared by all test tasks, so hold its lock to keep other updates of this task's entry from interleaving
+            synchronized (indexedCache) {
+                indexedCache.put(taskPath, updateAction.update(indexedCache.get(taskPath)));
+            }
+        }
+    }
+}
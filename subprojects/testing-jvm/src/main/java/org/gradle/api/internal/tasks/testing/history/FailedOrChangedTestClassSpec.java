@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.history;
+
+import com.google.common.hash.HashCode;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.specs.Spec;
+
+/**
+ * Selects the test classes that failed when they were last executed, along with the test classes that are new or whose class file has changed since.
+ */
+public class FailedOrChangedTestClassSpec implements Spec<TestClassRunInfo> {
+    private final TestHistory history;
+    private final TestClassFileHasher classFileHasher;
+
+    public FailedOrChangedTestClassSpec(TestHistory history, TestClassFileHasher classFileHasher) {
+        this.history = history;
+        this.classFileHasher = classFileHasher;
+    }
+
+    @Override
+    public boolean isSatisfiedBy(TestClassRunInfo testClass) {
+        TestClassHistory previous = history.getTestClass(testClass.getTestClassName());
+        if (previous == null || previous.isFailed()) {
+            return true;
+        }
+        HashCode classFileHash = classFileHasher.hash(testClass.getTestClassName());
+        return classFileHash == null || !classFileHash.equals(previous.getClassFileHash());
+    }
+}
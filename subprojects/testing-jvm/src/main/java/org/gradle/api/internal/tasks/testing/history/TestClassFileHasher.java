@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.history;
+
+import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.hash.Hasher;
+
+import java.io.File;
+
+/**
+ * Calculates the hash of the class file of a test class.
+ */
+public class TestClassFileHasher {
+    private final File testClassesDir;
+    private final Hasher hasher;
+
+    public TestClassFileHasher(File testClassesDir, Hasher hasher) {
+        this.testClassesDir = testClassesDir;
+        this.hasher = hasher;
+    }
+
+    /**
+     * Returns the hash of the class file of the given test class, or null when there is no such class file in the test classes directory.
+     */
+    @Nullable
+    public HashCode hash(String className) {
+        File classFile = classFileOf(className);
+        return classFile.isFile() ? hasher.hash(classFile) : null;
+    }
+
+    /**
+     * Returns whether there is a class file for the given test class in the test classes directory.
+     */
+    public boolean exists(String className) {
+        return classFileOf(className).isFile();
+    }
+
+    private File classFileOf(String className) {
+        return new File(testClassesDir, className.replace('.', '/') + ".class");
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.history;
+
+import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
+
+/**
+ * The outcome of the most recent execution of a test class.
+ */
+public class TestClassHistory {
+    private final long duration;
+    private final boolean failed;
+    private final HashCode classFileHash;
+
+    public TestClassHistory(long duration, boolean failed, @Nullable HashCode classFileHash) {
+        this.duration = duration;
+        this.failed = failed;
+        this.classFileHash = classFileHash;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns the hash of the class file of the test class when it was executed, or null when the class file was not found.
+     */
+    @Nullable
+    public HashCode getClassFileHash() {
+        return classFileHash;
+    }
+}
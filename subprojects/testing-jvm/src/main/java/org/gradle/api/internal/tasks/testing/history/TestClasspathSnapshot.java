@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.history;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The classes and resources on the runtime classpath of a test task, along with the dependencies between the classes.
+ */
+public class TestClasspathSnapshot {
+    private final ImmutableMap<String, HashCode> classHashes;
+    private final ClassSetAnalysisData analysis;
+    private final ImmutableMap<String, HashCode> resourceHashes;
+    private final ImmutableMap<String, HashCode> jarHashes;
+    private final ImmutableMap<String, HashCode> jarClassesHashes;
+
+    /**
+     * @param classHashes the hash of each class, by class name
+     * @param analysis the dependencies between the classes
+     * @param resourceHashes the hash of each resource in the classpath directories, by relative path
+     * @param jarHashes the hash of each jar, by path
+     * @param jarClassesHashes the combined hash of the classes in each jar, by path
+     */
+    public TestClasspathSnapshot(Map<String, HashCode> classHashes, ClassSetAnalysisData analysis, Map<String, HashCode> resourceHashes,
+                                 Map<String, HashCode> jarHashes, Map<String, HashCode> jarClassesHashes) {
+        this.classHashes = ImmutableMap.copyOf(classHashes);
+        this.analysis = analysis;
+        this.resourceHashes = ImmutableMap.copyOf(resourceHashes);
+        this.jarHashes = ImmutableMap.copyOf(jarHashes);
+        this.jarClassesHashes = ImmutableMap.copyOf(jarClassesHashes);
+    }
+
+    public Map<String, HashCode> getClassHashes() {
+        return classHashes;
+    }
+
+    public ClassSetAnalysisData getAnalysis() {
+        return analysis;
+    }
+
+    public Map<String, HashCode> getResourceHashes() {
+        return resourceHashes;
+    }
+
+    public Map<String, HashCode> getJarHashes() {
+        return jarHashes;
+    }
+
+    public Map<String, HashCode> getJarClassesHashes() {
+        return jarClassesHashes;
+    }
+
+    /**
+     * Returns the classes that have changed since the given snapshot, along with the classes that depend on them directly or transitively
+     * and the top level classes of all of these. Returns null when any class may be affected, because a resource, the set of jars or a
+     * class that all classes may depend on has changed.
+     */
+    @Nullable
+    public Set<String> getAffectedClassesSince(TestClasspathSnapshot previous) {
+        if (hasNonClassChangesSince(previous)) {
+            return null;
+        }
+
+        Set<String> changed = new HashSet<String>();
+        for (Map.Entry<String, HashCode> entry : classHashes.entrySet()) {
+            if (!entry.getValue().equals(previous.classHashes.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String className : previous.classHashes.keySet()) {
+            if (!classHashes.containsKey(className)) {
+                changed.add(className);
+            }
+        }
+
+        // Follow the dependents in both snapshots, so that the dependents of removed classes and of classes that no longer depend on a changed class are included
+        Set<String> affected = new HashSet<String>();
+        Deque<String> queue = new ArrayDeque<String>(changed);
+        while (!queue.isEmpty()) {
+            String className = queue.remove();
+            if (!affected.add(className)) {
+                continue;
+            }
+            for (ClassSetAnalysisData data : new ClassSetAnalysisData[]{previous.analysis, analysis}) {
+                DependentsSet dependents = data.getDependents(className);
+                if (dependents == null) {
+                    continue;
+                }
+                if (dependents.isDependencyToAll()) {
+                    if (changed.contains(className)) {
+                        return null;
+                    }
+                    continue;
+                }
+                queue.addAll(dependents.getDependentClasses());
+            }
+        }
+
+        Set<String> result = new HashSet<String>(affected);
+        for (String className : affected) {
+            int nested = className.indexOf('$');
+            if (nested > 0) {
+                result.add(className.substring(0, nested));
+            }
+        }
+        return result;
+    }
+
+    private boolean hasNonClassChangesSince(TestClasspathSnapshot previous) {
+        if (!resourceHashes.equals(previous.resourceHashes) || !jarHashes.keySet().equals(previous.jarHashes.keySet())) {
+            return true;
+        }
+        for (Map.Entry<String, HashCode> entry : jarHashes.entrySet()) {
+            String jar = entry.getKey();
+            // A jar whose content has changed while its classes have not has changed resources
+            if (!entry.getValue().equals(previous.jarHashes.get(jar)) && jarClassesHashes.get(jar).equals(previous.jarClassesHashes.get(jar))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
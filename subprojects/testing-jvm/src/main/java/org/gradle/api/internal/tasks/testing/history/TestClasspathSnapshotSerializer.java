@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.history;
+
+import com.google.common.hash.HashCode;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.serialize.MapSerializer;
+import org.gradle.internal.serialize.Serializer;
+
+import java.util.Map;
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
+
+public class TestClasspathSnapshotSerializer implements Serializer<TestClasspathSnapshot> {
+    private final Serializer<Map<String, HashCode>> hashesSerializer = new MapSerializer<String, HashCode>(STRING_SERIALIZER, new HashCodeSerializer());
+    private final Serializer<ClassSetAnalysisData> analysisSerializer = new ClassSetAnalysisData.Serializer();
+
+    @Override
+    public TestClasspathSnapshot read(Decoder decoder) throws Exception {
+        Map<String, HashCode> classHashes = hashesSerializer.read(decoder);
+        ClassSetAnalysisData analysis = analysisSerializer.read(decoder);
+        Map<String, HashCode> resourceHashes = hashesSerializer.read(decoder);
+        Map<String, HashCode> jarHashes = hashesSerializer.read(decoder);
+        Map<String, HashCode> jarClassesHashes = hashesSerializer.read(decoder);
+        return new TestClasspathSnapshot(classHashes, analysis, resourceHashes, jarHashes, jarClassesHashes);
+    }
+
+    @Override
+    public void write(Encoder encoder, TestClasspathSnapshot value) throws Exception {
+        hashesSerializer.write(encoder, value.getClassHashes());
+        analysisSerializer.write(encoder, value.getAnalysis());
+        hashesSerializer.write(encoder, value.getResourceHashes());
+        hashesSerializer.write(encoder, value.getJarHashes());
+        hashesSerializer.write(encoder, value.getJarClassesHashes());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.history;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.file.FileOperations;
+import org.gradle.api.internal.hash.Hasher;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysis;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAccumulator;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDependentsSet;
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarArchive;
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarSnapshot;
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarSnapshotter;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.gradle.internal.FileUtils.hasExtension;
+
+/**
+ * Creates a {@link TestClasspathSnapshot} of the runtime classpath of a test task. Classes in jars are snapshotted using the jar snapshots
+ * that are shared with incremental Java compilation, so that an unchanged jar is not read again.
+ */
+public class TestClasspathSnapshotter {
+    private final FileOperations fileOperations;
+    private final Hasher hasher;
+    private final ClassDependenciesAnalyzer analyzer;
+    private final JarSnapshotter jarSnapshotter;
+
+    public TestClasspathSnapshotter(FileOperations fileOperations, Hasher hasher, ClassDependenciesAnalyzer analyzer, JarSnapshotter jarSnapshotter) {
+        this.fileOperations = fileOperations;
+        this.hasher = hasher;
+        this.analyzer = analyzer;
+        this.jarSnapshotter = jarSnapshotter;
+    }
+
+    public TestClasspathSnapshot snapshot(Iterable<File> classpath) {
+        // A class that is found more than once is loaded from the first classpath entry that contains it
+        final Map<String, HashCode> classHashes = new HashMap<String, HashCode>();
+        final Map<String, HashCode> resourceHashes = new HashMap<String, HashCode>();
+        final ClassDependentsAccumulator accumulator = new ClassDependentsAccumulator("");
+        for (File file : classpath) {
+            if (!file.isDirectory()) {
+                continue;
+            }
+            fileOperations.fileTree(file).visit(new FileVisitor() {
+                @Override
+                public void visitDir(FileVisitDetails dirDetails) {
+                }
+
+                @Override
+                public void visitFile(FileVisitDetails fileDetails) {
+                    File file = fileDetails.getFile();
+                    String path = fileDetails.getPath();
+                    if (!hasExtension(file, ".class")) {
+                        if (!resourceHashes.containsKey(path)) {
+                            resourceHashes.put(path, hasher.hash(file));
+                        }
+                        return;
+                    }
+                    String className = path.replace('/', '.').substring(0, path.length() - ".class".length());
+                    if (classHashes.containsKey(className)) {
+                        return;
+                    }
+                    classHashes.put(className, hasher.hash(file));
+                    ClassAnalysis analysis = analyzer.getClassAnalysis(className, file);
+                    accumulator.addClass(className, analysis.isDependencyToAll(), analysis.getClassDependencies());
+                }
+            });
+        }
+
+        Map<String, DependentsSet> dependents = new HashMap<String, DependentsSet>(accumulator.getDependentsMap());
+        Map<String, HashCode> jarHashes = new HashMap<String, HashCode>();
+        Map<String, HashCode> jarClassesHashes = new HashMap<String, HashCode>();
+        for (File file : classpath) {
+            if (!file.isFile() || !hasExtension(file, ".jar")) {
+                continue;
+            }
+            JarSnapshot jarSnapshot = jarSnapshotter.createSnapshot(new JarArchive(file, fileOperations.zipTree(file), fileOperations.getFileResolver().getPatternSetFactory()));
+            String path = file.getAbsolutePath();
+            jarHashes.put(path, jarSnapshot.getHash());
+            jarClassesHashes.put(path, combinedHash(jarSnapshot.getHashes()));
+            for (Map.Entry<String, HashCode> entry : jarSnapshot.getHashes().entrySet()) {
+                if (!classHashes.containsKey(entry.getKey())) {
+                    classHashes.put(entry.getKey(), entry.getValue());
+                }
+            }
+            merge(jarSnapshot.getAnalysis().getData(), dependents);
+        }
+
+        return new TestClasspathSnapshot(classHashes, new ClassSetAnalysisData(dependents), resourceHashes, jarHashes, jarClassesHashes);
+    }
+
+    private static void merge(ClassSetAnalysisData data, Map<String, DependentsSet> dependents) {
+        for (Map.Entry<String, DependentsSet> entry : data.getDependentsMap().entrySet()) {
+            DependentsSet current = dependents.get(entry.getKey());
+            DependentsSet added = entry.getValue();
+            if (current == null && !added.isDependencyToAll()) {
+                dependents.put(entry.getKey(), added);
+            } else if (current == null || added.isDependencyToAll() || current.isDependencyToAll()) {
+                // The dependents no longer matter when all classes depend on the class
+                dependents.put(entry.getKey(), new DefaultDependentsSet(true, Collections.<String>emptySet()));
+            } else {
+                DefaultDependentsSet union = new DefaultDependentsSet(current.getDependentClasses());
+                union.getDependentClasses().addAll(added.getDependentClasses());
+                dependents.put(entry.getKey(), union);
+            }
+        }
+    }
+
+    private static HashCode combinedHash(Map<String, HashCode> classHashes) {
+        com.google.common.hash.Hasher combined = Hashing.md5().newHasher();
+        for (Map.Entry<String, HashCode> entry : new TreeMap<String, HashCode>(classHashes).entrySet()) {
+            combined.putString(entry.getKey(), Charsets.UTF_8);
+            combined.putBytes(entry.getValue().asBytes());
+        }
+        return combined.hash();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.history;
+
+import com.google.common.collect.ImmutableMap;
+import org.gradle.api.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The outcome of the most recent execution of each test class of a test task.
+ */
+public class TestHistory {
+    public static final TestHistory EMPTY = new TestHistory(ImmutableMap.<String, TestClassHistory>of());
+
+    private final ImmutableMap<String, TestClassHistory> testClasses;
+
+    public TestHistory(Map<String, TestClassHistory> testClasses) {
+        this.testClasses = ImmutableMap.copyOf(testClasses);
+    }
+
+    public Map<String, TestClassHistory> getTestClasses() {
+        return testClasses;
+    }
+
+    @Nullable
+    public TestClassHistory getTestClass(String className) {
+        return testClasses.get(className);
+    }
+
+    /**
+     * Returns the duration of each test class.
+     */
+    public Map<String, Long> getDurations() {
+        Map<String, Long> durations = new HashMap<String, Long>(testClasses.size());
+        for (Map.Entry<String, TestClassHistory> entry : testClasses.entrySet()) {
+            durations.put(entry.getKey(), entry.getValue().getDuration());
+        }
+        return durations;
+    }
+
+    /**
+     * Returns a copy of this history with the given test classes replaced. Test classes that were not executed keep their previous outcome while their
+     * class file exists, so that filtered runs do not lose the history, but deleted and renamed test classes are dropped.
+     */
+    public TestHistory withTestClasses(Map<String, TestClassHistory> executedTestClasses, TestClassFileHasher classFiles) {
+        Map<String, TestClassHistory> merged = new HashMap<String, TestClassHistory>(executedTestClasses);
+        for (Map.Entry<String, TestClassHistory> entry : testClasses.entrySet()) {
+            if (!merged.containsKey(entry.getKey()) && classFiles.exists(entry.getKey())) {
+                merged.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new TestHistory(merged);
+    }
+}
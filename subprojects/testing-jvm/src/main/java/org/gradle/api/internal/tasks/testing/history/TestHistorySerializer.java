@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.history;
+
+import com.google.common.hash.HashCode;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.serialize.Serializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestHistorySerializer implements Serializer<TestHistory> {
+    private final Serializer<HashCode> hashSerializer = new HashCodeSerializer();
+
+    @Override
+    public TestHistory read(Decoder decoder) throws Exception {
+        int count = decoder.readSmallInt();
+        Map<String, TestClassHistory> testClasses = new HashMap<String, TestClassHistory>(count);
+        for (int i = 0; i < count; i++) {
+            String className = decoder.readString();
+            long duration = decoder.readSmallLong();
+            boolean failed = decoder.readBoolean();
+            HashCode classFileHash = decoder.readBoolean() ? hashSerializer.read(decoder) : null;
+            testClasses.put(className, new TestClassHistory(duration, failed, classFileHash));
+        }
+        return new TestHistory(testClasses);
+    }
+
+    @Override
+    public void write(Encoder encoder, TestHistory value) throws Exception {
+        encoder.writeSmallInt(value.getTestClasses().size());
+        for (Map.Entry<String, TestClassHistory> entry : value.getTestClasses().entrySet()) {
+            TestClassHistory testClass = entry.getValue();
+            encoder.writeString(entry.getKey());
+            encoder.writeSmallLong(testClass.getDuration());
+            encoder.writeBoolean(testClass.isFailed());
+            if (testClass.getClassFileHash() == null) {
+                encoder.writeBoolean(false);
+            } else {
+                encoder.writeBoolean(true);
+                hashSerializer.write(encoder, testClass.getClassFileHash());
+            }
+        }
+    }
+}
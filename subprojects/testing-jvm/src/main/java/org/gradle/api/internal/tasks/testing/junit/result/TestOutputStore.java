@@ -18,20 +18,30 @@ package org.gradle.api.internal.tasks.testing.junit.result;
 
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
-import com.google.common.collect.ImmutableMap;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
-import org.gradle.internal.io.RandomAccessFileInputStream;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
+/**
+ * Stores the output of the tests in a single file, along with an index that records which parts of the file hold the output of each test.
+ */
 public class TestOutputStore {
+    // Negative, so that it cannot be mistaken for the number of test classes that older index files without a version start with
+    private static final int INDEX_VERSION = -1;
+    private static final int MAX_READ_BUFFER_SIZE = 4096;
 
     private final File resultsDir;
     private final Charset messageStorageCharset;
@@ -49,30 +59,83 @@ public class TestOutputStore {
         return new File(resultsDir, getOutputsFile().getName() + ".idx");
     }
 
-    private static class Region {
-        long start;
-        long stop;
+    /**
+     * The parts of the outputs file that hold the output of a test for one destination, in the order they were written. Output that is
+     * written consecutively for the same test is recorded as a single extent.
+     */
+    private static class Extents {
+        private long[] bounds = new long[2];
+        private int count;
+
+        void add(long start, long end) {
+            if (count > 0 && bounds[count - 1] == start) {
+                bounds[count - 1] = end;
+                return;
+            }
+            if (count == bounds.length) {
+                bounds = Arrays.copyOf(bounds, count * 2);
+            }
+            bounds[count++] = start;
+            bounds[count++] = end;
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        int size() {
+            return count / 2;
+        }
+
+        long start(int extent) {
+            return bounds[2 * extent];
+        }
+
+        long end(int extent) {
+            return bounds[2 * extent + 1];
+        }
 
-        private Region() {
-            start = -1;
-            stop = -1;
+        void write(Output output) {
+            output.writeInt(size(), true);
+            for (int i = 0; i < size(); i++) {
+                output.writeLong(start(i), true);
+                output.writeLong(end(i) - start(i), true);
+            }
         }
 
-        private Region(long start, long stop) {
-            this.start = start;
-            this.stop = stop;
+        static Extents read(Input input) {
+            Extents extents = new Extents();
+            int size = input.readInt(true);
+            for (int i = 0; i < size; i++) {
+                long start = input.readLong(true);
+                extents.add(start, start + input.readLong(true));
+            }
+            return extents;
         }
     }
 
-    private static class TestCaseRegion {
-        Region stdOutRegion = new Region();
-        Region stdErrRegion = new Region();
+    private static class TestCaseOutput {
+        final Extents stdOut;
+        final Extents stdErr;
+
+        TestCaseOutput() {
+            this(new Extents(), new Extents());
+        }
+
+        TestCaseOutput(Extents stdOut, Extents stdErr) {
+            this.stdOut = stdOut;
+            this.stdErr = stdErr;
+        }
+
+        Extents get(boolean stdout) {
+            return stdout ? stdOut : stdErr;
+        }
     }
 
     public class Writer implements Closeable {
         private final KryoBackedEncoder output;
 
-        private final Map<Long, Map<Long, TestCaseRegion>> index = new LinkedHashMap<Long, Map<Long, TestCaseRegion>>();
+        private final Map<Long, Map<Long, TestCaseOutput>> index = new LinkedHashMap<Long, Map<Long, TestCaseOutput>>();
 
         public Writer() {
             try {
@@ -94,7 +157,7 @@ public class TestOutputStore {
 
         public void onOutput(long classId, long testId, TestOutputEvent outputEvent) {
             boolean stdout = outputEvent.getDestination() == TestOutputEvent.Destination.StdOut;
-            mark(classId, testId, stdout);
+            long start = output.getWritePosition();
 
             output.writeBoolean(stdout);
             output.writeSmallLong(classId);
@@ -108,28 +171,22 @@ public class TestOutputStore {
             }
             output.writeSmallInt(bytes.length);
             output.writeBytes(bytes, 0, bytes.length);
-        }
 
-        private void mark(long classId, long testId, boolean isStdout) {
-            if (!index.containsKey(classId)) {
-                index.put(classId, new LinkedHashMap<Long, TestCaseRegion>());
-            }
+            testCaseOutput(classId, testId).get(stdout).add(start, output.getWritePosition());
+        }
 
-            Map<Long, TestCaseRegion> testCaseRegions = index.get(classId);
-            if (!testCaseRegions.containsKey(testId)) {
-                TestCaseRegion region = new TestCaseRegion();
-                testCaseRegions.put(testId, region);
+        private TestCaseOutput testCaseOutput(long classId, long testId) {
+            Map<Long, TestCaseOutput> testCases = index.get(classId);
+            if (testCases == null) {
+                testCases = new LinkedHashMap<Long, TestCaseOutput>();
+                index.put(classId, testCases);
             }
-
-            TestCaseRegion region = testCaseRegions.get(testId);
-
-            Region streamRegion = isStdout ? region.stdOutRegion : region.stdErrRegion;
-
-            int total = output.getWritePosition();
-            if (streamRegion.start < 0) {
-                streamRegion.start = total;
+            TestCaseOutput testCaseOutput = testCases.get(testId);
+            if (testCaseOutput == null) {
+                testCaseOutput = new TestCaseOutput();
+                testCases.put(testId, testCaseOutput);
             }
-            streamRegion.stop = total;
+            return testCaseOutput;
         }
 
         private void writeIndex() {
@@ -140,25 +197,21 @@ public class TestOutputStore {
                 throw new UncheckedIOException(e);
             }
 
-
             try {
+                indexOutput.writeInt(INDEX_VERSION, true);
                 indexOutput.writeInt(index.size(), true);
 
-                for (Map.Entry<Long, Map<Long, TestCaseRegion>> classEntry : index.entrySet()) {
+                for (Map.Entry<Long, Map<Long, TestCaseOutput>> classEntry : index.entrySet()) {
                     Long classId = classEntry.getKey();
-                    Map<Long, TestCaseRegion> regions = classEntry.getValue();
+                    Map<Long, TestCaseOutput> testCases = classEntry.getValue();
 
                     indexOutput.writeLong(classId, true);
-                    indexOutput.writeInt(regions.size(), true);
-
-                    for (Map.Entry<Long, TestCaseRegion> testCaseEntry : regions.entrySet()) {
-                        long id = testCaseEntry.getKey();
-                        TestCaseRegion region = testCaseEntry.getValue();
-                        indexOutput.writeLong(id, true);
-                        indexOutput.writeLong(region.stdOutRegion.start);
-                        indexOutput.writeLong(region.stdOutRegion.stop);
-                        indexOutput.writeLong(region.stdErrRegion.start);
-                        indexOutput.writeLong(region.stdErrRegion.stop);
+                    indexOutput.writeInt(testCases.size(), true);
+
+                    for (Map.Entry<Long, TestCaseOutput> testCaseEntry : testCases.entrySet()) {
+                        indexOutput.writeLong(testCaseEntry.getKey(), true);
+                        testCaseEntry.getValue().stdOut.write(indexOutput);
+                        testCaseEntry.getValue().stdErr.write(indexOutput);
                     }
                 }
             } finally {
@@ -171,55 +224,16 @@ public class TestOutputStore {
         return new Writer();
     }
 
-    private static class Index {
-        final ImmutableMap<Long, Index> children;
-        final Region stdOut;
-        final Region stdErr;
-
-        private Index(Region stdOut, Region stdErr) {
-            this.children = ImmutableMap.of();
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
-        }
-
-        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr) {
-            this.children = children;
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
-        }
-    }
-
-    private static class IndexBuilder {
-        final Region stdOut = new Region();
-        final Region stdErr = new Region();
-
-        private final ImmutableMap.Builder<Long, Index> children = ImmutableMap.builder();
-
-        void add(long key, Index index) {
-            if (stdOut.start < 0) {
-                stdOut.start = index.stdOut.start;
-            }
-            if (stdErr.start < 0) {
-                stdErr.start = index.stdErr.start;
-            }
-            if (index.stdOut.stop > stdOut.stop) {
-                stdOut.stop = index.stdOut.stop;
-            }
-            if (index.stdErr.stop > stdErr.stop) {
-                stdErr.stop = index.stdErr.stop;
-            }
-
-            children.put(key, index);
-        }
-
-        Index build() {
-            return new Index(children.build(), stdOut, stdErr);
-        }
-    }
-
+    /**
+     * Reads the output of the tests. The index is read once when the reader is created, and is used to read only the parts of the
+     * outputs file that hold the requested output. Where possible, the outputs file is memory mapped rather than read into buffers.
+     * Can be used by multiple threads concurrently.
+     */
     public class Reader implements Closeable {
-        private final Index index;
+        private final Map<Long, Map<Long, TestCaseOutput>> index;
         private final RandomAccessFile dataFile;
+        private final FileChannel dataChannel;
+        private final ByteBuffer mappedData;
 
         public Reader() {
             File indexFile = getIndexFile();
@@ -230,41 +244,13 @@ public class TestOutputStore {
                     throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
                 }
 
-                Input input;
-                try {
-                    input = new Input(new FileInputStream(indexFile));
-                } catch (FileNotFoundException e) {
-                    throw new UncheckedIOException(e);
-                }
+                index = readIndex(indexFile);
 
-                IndexBuilder rootBuilder = null;
                 try {
-                    int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
-
-                    for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
-                        long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
-
-                        int numEntries = input.readInt(true);
-                        for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
-                            long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
-                        }
-
-                        rootBuilder.add(classId, classBuilder.build());
-                    }
-                } finally {
-                    input.close();
-                }
-
-                index = rootBuilder.build();
-
-                try {
-                    dataFile = new RandomAccessFile(getOutputsFile(), "r");
-                } catch (FileNotFoundException e) {
+                    dataFile = new RandomAccessFile(outputsFile, "r");
+                    dataChannel = dataFile.getChannel();
+                    mappedData = canMap(dataChannel.size()) ? dataChannel.map(FileChannel.MapMode.READ_ONLY, 0, dataChannel.size()) : null;
+                } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 }
             } else { // no outputs file
@@ -274,9 +260,51 @@ public class TestOutputStore {
 
                 index = null;
                 dataFile = null;
+                dataChannel = null;
+                mappedData = null;
             }
         }
 
+        private Map<Long, Map<Long, TestCaseOutput>> readIndex(File indexFile) {
+            Input input;
+            try {
+                input = new Input(new FileInputStream(indexFile));
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            try {
+                int version = input.readInt(true);
+                if (version != INDEX_VERSION) {
+                    throw new IllegalArgumentException(String.format("Unexpected test outputs index file version %d found in %s.", version, indexFile));
+                }
+                int numClasses = input.readInt(true);
+                Map<Long, Map<Long, TestCaseOutput>> index = new HashMap<Long, Map<Long, TestCaseOutput>>(numClasses * 2);
+
+                for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
+                    long classId = input.readLong(true);
+                    int numEntries = input.readInt(true);
+                    Map<Long, TestCaseOutput> testCases = new LinkedHashMap<Long, TestCaseOutput>(numEntries * 2);
+                    for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
+                        long testId = input.readLong(true);
+                        Extents stdOut = Extents.read(input);
+                        Extents stdErr = Extents.read(input);
+                        testCases.put(testId, new TestCaseOutput(stdOut, stdErr));
+                    }
+                    index.put(classId, testCases);
+                }
+                return index;
+            } finally {
+                input.close();
+            }
+        }
+
+        private boolean canMap(long size) {
+            // A mapped file is only unmapped when the buffer is garbage collected, and Windows does not allow a mapped file to be deleted,
+            // which would prevent the results directory from being cleaned
+            return size > 0 && size <= Integer.MAX_VALUE && !OperatingSystem.current().isWindows();
+        }
+
         @Override
         public void close() throws IOException {
             if (dataFile != null) {
@@ -289,97 +317,158 @@ public class TestOutputStore {
                 return false;
             }
 
-            Index classIndex = index.children.get(classId);
-            if (classIndex == null) {
+            Map<Long, TestCaseOutput> testCases = index.get(classId);
+            if (testCases == null) {
                 return false;
-            } else {
-                Region region = destination == TestOutputEvent.Destination.StdOut ? classIndex.stdOut : classIndex.stdErr;
-                return region.start >= 0;
             }
+            boolean stdout = destination == TestOutputEvent.Destination.StdOut;
+            for (TestCaseOutput testCaseOutput : testCases.values()) {
+                if (!testCaseOutput.get(stdout).isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
         }
 
         public void writeAllOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            doRead(classId, 0, true, destination, writer);
+            if (dataFile == null) {
+                return;
+            }
+
+            Map<Long, TestCaseOutput> testCases = index.get(classId);
+            if (testCases == null) {
+                return;
+            }
+
+            // Read the output of all tests of the class in the order it was written
+            boolean stdout = destination == TestOutputEvent.Destination.StdOut;
+            TreeMap<Long, Long> extents = new TreeMap<Long, Long>();
+            for (TestCaseOutput testCaseOutput : testCases.values()) {
+                Extents testExtents = testCaseOutput.get(stdout);
+                for (int i = 0; i < testExtents.size(); i++) {
+                    extents.put(testExtents.start(i), testExtents.end(i));
+                }
+            }
+            long start = -1;
+            long end = -1;
+            for (Map.Entry<Long, Long> extent : extents.entrySet()) {
+                if (extent.getKey() != end) {
+                    readExtent(start, end, writer);
+                    start = extent.getKey();
+                }
+                end = extent.getValue();
+            }
+            readExtent(start, end, writer);
         }
 
         public void writeNonTestOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            doRead(classId, 0, false, destination, writer);
+            writeTestOutput(classId, 0, destination, writer);
         }
 
         public void writeTestOutput(long classId, long testId, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            doRead(classId, testId, false, destination, writer);
-        }
-
-        private void doRead(long classId, long testId, boolean allClassOutput, TestOutputEvent.Destination destination, java.io.Writer writer) {
             if (dataFile == null) {
                 return;
             }
 
-            Index targetIndex = index.children.get(classId);
-            if (targetIndex != null && testId != 0) {
-                targetIndex = targetIndex.children.get(testId);
-            }
-
-            if (targetIndex == null) {
+            Map<Long, TestCaseOutput> testCases = index.get(classId);
+            TestCaseOutput testCaseOutput = testCases == null ? null : testCases.get(testId);
+            if (testCaseOutput == null) {
                 return;
             }
 
-            boolean stdout = destination == TestOutputEvent.Destination.StdOut;
-            Region region = stdout ? targetIndex.stdOut : targetIndex.stdErr;
+            Extents extents = testCaseOutput.get(destination == TestOutputEvent.Destination.StdOut);
+            for (int i = 0; i < extents.size(); i++) {
+                readExtent(extents.start(i), extents.end(i), writer);
+            }
+        }
 
-            if (region.start < 0) {
+        private void readExtent(long start, long end, java.io.Writer writer) {
+            long length = end - start;
+            if (length <= 0) {
                 return;
             }
 
-            boolean ignoreClassLevel = !allClassOutput && testId != 0;
-            boolean ignoreTestLevel = !allClassOutput && testId == 0;
+            InputStream inputStream;
+            if (mappedData != null) {
+                ByteBuffer buffer = mappedData.duplicate();
+                buffer.position((int) start);
+                buffer.limit((int) end);
+                inputStream = new ByteBufferInputStream(buffer);
+            } else {
+                inputStream = new FileChannelInputStream(dataChannel, start, end);
+            }
 
             try {
-                dataFile.seek(region.start);
-                long maxPos = region.stop - region.start;
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
-                while (decoder.getReadPosition() <= maxPos) {
-                    boolean readStdout = decoder.readBoolean();
-                    long readClassId = decoder.readSmallLong();
-                    long readTestId = decoder.readSmallLong();
+                KryoBackedDecoder decoder = new KryoBackedDecoder(inputStream, (int) Math.min(length, MAX_READ_BUFFER_SIZE));
+                while (decoder.getReadPosition() < length) {
+                    decoder.readBoolean();
+                    decoder.readSmallLong();
+                    decoder.readSmallLong();
                     int readLength = decoder.readSmallInt();
+                    byte[] stringBytes = new byte[readLength];
+                    decoder.readBytes(stringBytes);
+                    writer.write(new String(stringBytes, messageStorageCharset));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 
-                    boolean isClassLevel = readTestId == 0;
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
 
-                    if (stdout != readStdout || classId != readClassId) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
 
-                    if (ignoreClassLevel && isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
 
-                    if (ignoreTestLevel && !isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
 
-                    if (testId == 0 || testId == readTestId) {
-                        byte[] stringBytes = new byte[readLength];
-                        decoder.readBytes(stringBytes);
-                        String message;
-                        try {
-                            message = new String(stringBytes, messageStorageCharset.name());
-                        } catch (UnsupportedEncodingException e) {
-                            // shouldn't happen
-                            throw UncheckedException.throwAsUncheckedException(e);
-                        }
-
-                        writer.write(message);
-                    } else {
-                        decoder.skipBytes(readLength);
-                    }
-                }
-            } catch (IOException e1) {
-                throw new UncheckedIOException(e1);
+    /**
+     * Reads part of a file channel, without changing the position of the channel, so that multiple streams can read from the same
+     * channel concurrently.
+     */
+    private static class FileChannelInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        FileChannelInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            return read(buffer, 0, 1) < 0 ? -1 : buffer[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int count = channel.read(ByteBuffer.wrap(bytes, offset, (int) Math.min(length, end - position)), position);
+            if (count > 0) {
+                position += count;
             }
+            return count;
         }
     }
 
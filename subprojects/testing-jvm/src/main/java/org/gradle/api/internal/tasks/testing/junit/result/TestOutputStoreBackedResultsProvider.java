@@ -17,27 +17,40 @@
 package org.gradle.api.internal.tasks.testing.junit.result;
 
 import org.gradle.api.Action;
-import org.gradle.api.UncheckedIOException;
 
 import java.io.IOException;
 
+/**
+ * Provides the output of the tests from a {@link TestOutputStore}. The store is opened on first use and kept open until this provider is closed,
+ * and is shared by all threads that generate reports from this provider.
+ */
 abstract public class TestOutputStoreBackedResultsProvider implements TestResultsProvider {
     private final TestOutputStore outputStore;
+    private TestOutputStore.Reader reader;
 
     public TestOutputStoreBackedResultsProvider(TestOutputStore outputStore) {
         this.outputStore = outputStore;
     }
 
     protected void withReader(Action<TestOutputStore.Reader> action) {
-        try {
-            TestOutputStore.Reader reader = outputStore.reader();
+        action.execute(getReader());
+    }
+
+    private synchronized TestOutputStore.Reader getReader() {
+        if (reader == null) {
+            reader = outputStore.reader();
+        }
+        return reader;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (reader != null) {
             try {
-                action.execute(reader);
-            } finally {
                 reader.close();
+            } finally {
+                reader = null;
             }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
         }
     }
 }
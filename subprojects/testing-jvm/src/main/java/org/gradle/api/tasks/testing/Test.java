@@ -16,27 +16,47 @@
 
 package org.gradle.api.tasks.testing;
 
+import com.google.common.hash.HashCode;
 import groovy.lang.Closure;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.Incubating;
+import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.JavaVersion;
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.ClosureBackedAction;
 import org.gradle.api.internal.ConventionTask;
+import org.gradle.api.internal.changedetection.state.FileSnapshotter;
 import org.gradle.api.internal.classpath.ModuleRegistry;
+import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.CachingClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.cache.GeneralCompileCaches;
+import org.gradle.api.internal.tasks.compile.incremental.jar.CachingJarSnapshotter;
 import org.gradle.api.internal.tasks.options.Option;
 import org.gradle.api.internal.tasks.testing.DefaultTestTaskReports;
 import org.gradle.api.internal.tasks.testing.NoMatchingTestsReporter;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
 import org.gradle.api.internal.tasks.testing.detection.TestExecuter;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
+import org.gradle.api.internal.tasks.testing.history.AffectedTestClassSpec;
+import org.gradle.api.internal.tasks.testing.history.FailedOrChangedTestClassSpec;
+import org.gradle.api.internal.tasks.testing.history.TestClassFileHasher;
+import org.gradle.api.internal.tasks.testing.history.TestClassHistory;
+import org.gradle.api.internal.tasks.testing.history.TestClasspathSnapshot;
+import org.gradle.api.internal.tasks.testing.history.TestClasspathSnapshotter;
+import org.gradle.api.internal.tasks.testing.history.TestHistory;
+import org.gradle.api.internal.tasks.testing.history.TestHistoryCacheFactory;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
 import org.gradle.api.internal.tasks.testing.junit.report.DefaultTestReport;
 import org.gradle.api.internal.tasks.testing.junit.report.TestReporter;
@@ -58,6 +78,7 @@ import org.gradle.api.internal.tasks.testing.results.StateTrackingTestResultProc
 import org.gradle.api.internal.tasks.testing.results.TestListenerAdapter;
 import org.gradle.api.internal.tasks.testing.results.TestListenerInternal;
 import org.gradle.api.internal.tasks.testing.testng.TestNGTestFramework;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerProcessPool;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.reporting.DirectoryReport;
 import org.gradle.api.reporting.Reporting;
@@ -77,8 +98,11 @@ import org.gradle.api.tasks.VerificationTask;
 import org.gradle.api.tasks.testing.logging.TestLogging;
 import org.gradle.api.tasks.testing.logging.TestLoggingContainer;
 import org.gradle.api.tasks.util.PatternFilterable;
+import org.gradle.cache.PersistentStateCache;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.classloader.ClassLoaderFactory;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.jvm.UnsupportedJavaRuntimeException;
@@ -99,6 +123,7 @@ import org.gradle.util.ConfigureUtil;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -171,6 +196,13 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
     private boolean scanForTestClasses = true;
     private long forkEvery;
     private int maxParallelForks = 1;
+    private boolean balanceForks;
+    private boolean failedTestsFirst;
+    private boolean reuseForks;
+    private int shardIndex;
+    private int shardCount = 1;
+    private boolean affectedTestsOnly;
+    private boolean inProcess;
     private TestReporter testReporter;
     private final TestTaskReports reports;
 
@@ -571,6 +603,10 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
 
     @TaskAction
     public void executeTests() {
+        if (getShardIndex() >= getShardCount()) {
+            throw new InvalidUserDataException(String.format("Cannot execute shard with index %d as there are only %d shards.", getShardIndex(), getShardCount()));
+        }
+
         LogLevel currentLevel = determineCurrentLogLevel();
         TestLogging levelLogging = testLogging.get(currentLevel);
         TestExceptionFormatter exceptionFormatter = getExceptionFormatter(levelLogging);
@@ -581,6 +617,28 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
             addTestListener(new NoMatchingTestsReporter("No tests found for given includes: " + getFilter().getIncludePatterns()));
         }
 
+        // The history is only kept for the features that use it
+        PersistentStateCache<TestHistory> testHistoryCache = null;
+        TestHistory previousHistory = TestHistory.EMPTY;
+        if (isFailedTestsFirst() || isAffectedTestsOnly() || (isBalanceForks() && getMaxParallelForks() > 1)) {
+            testHistoryCache = getServices().get(TestHistoryCacheFactory.class).create(getPath());
+            TestHistory storedHistory = testHistoryCache.get();
+            if (storedHistory != null) {
+                previousHistory = storedHistory;
+            }
+        }
+        TestClassFileHasher classFileHasher = new TestClassFileHasher(getTestClassesDir(), getServices().get(FileSnapshotter.class));
+        Spec<TestClassRunInfo> prioritizedClasses = isFailedTestsFirst() ? new FailedOrChangedTestClassSpec(previousHistory, classFileHasher) : null;
+
+        PersistentStateCache<TestClasspathSnapshot> classpathSnapshotCache = null;
+        TestClasspathSnapshot classpathSnapshot = null;
+        Spec<TestClassRunInfo> selectedClasses = null;
+        if (isAffectedTestsOnly()) {
+            classpathSnapshotCache = getServices().get(TestHistoryCacheFactory.class).createClasspathSnapshotCache(getPath());
+            classpathSnapshot = createClasspathSnapshotter().snapshot(getClasspath());
+            selectedClasses = selectAffectedTestClasses(previousHistory, classpathSnapshotCache.get(), classpathSnapshot);
+        }
+
         File binaryResultsDir = getBinResultsDir();
         getProject().delete(binaryResultsDir);
         getProject().mkdir(binaryResultsDir);
@@ -602,7 +660,9 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         TestResultProcessor resultProcessor = new StateTrackingTestResultProcessor(testListenerInternalBroadcaster.getSource());
 
         if (testExecuter == null) {
-            testExecuter = new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory(), getModuleRegistry(), getServices().get(BuildOperationWorkerRegistry.class));
+            testExecuter = new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory(), getModuleRegistry(), getServices().get(BuildOperationWorkerRegistry.class),
+                getServices().get(ExecutorFactory.class), getServices().get(TestClassDetectionCache.class), getServices().get(TestWorkerProcessPool.class),
+                getServices().get(ClassLoaderFactory.class), previousHistory.getDurations(), prioritizedClasses, selectedClasses);
         }
 
         JavaVersion javaVersion = getServices().get(JvmVersionDetector.class).getJavaVersion(getExecutable());
@@ -621,6 +681,13 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
 
         new TestResultSerializer(binaryResultsDir).write(results.values());
+        if (testHistoryCache != null) {
+            testHistoryCache.set(recordTestHistory(previousHistory, results.values(), classFileHasher));
+        }
+        if (classpathSnapshotCache != null && !testCountLogger.hadFailures() && getFilter().getIncludePatterns().isEmpty()) {
+            // Only a complete and successful run is a baseline for the next run, otherwise the changes since the previous baseline are still pending
+            classpathSnapshotCache.set(classpathSnapshot);
+        }
 
         TestResultsProvider testResultsProvider = new InMemoryTestResultsProvider(results.values(), testOutputStore);
 
@@ -655,6 +722,39 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
     }
 
+    private TestClasspathSnapshotter createClasspathSnapshotter() {
+        FileSnapshotter hasher = getServices().get(FileSnapshotter.class);
+        GeneralCompileCaches compileCaches = getServices().get(GeneralCompileCaches.class);
+        ClassDependenciesAnalyzer analyzer = new CachingClassDependenciesAnalyzer(new DefaultClassDependenciesAnalyzer(), hasher, compileCaches.getClassAnalysisCache());
+        return new TestClasspathSnapshotter(getServices().get(FileOperations.class), hasher, analyzer,
+            new CachingJarSnapshotter(hasher, analyzer, compileCaches.getJarSnapshotCache()));
+    }
+
+    @Nullable
+    private Spec<TestClassRunInfo> selectAffectedTestClasses(TestHistory previousHistory, @Nullable TestClasspathSnapshot previousSnapshot, TestClasspathSnapshot snapshot) {
+        if (previousSnapshot == null) {
+            getLogger().info("Executing all test classes of {} as there is no previous successful run.", this);
+            return null;
+        }
+        Set<String> affectedClasses = snapshot.getAffectedClassesSince(previousSnapshot);
+        if (affectedClasses == null) {
+            getLogger().info("Executing all test classes of {} as the changes to the classpath may affect all classes.", this);
+            return null;
+        }
+        getLogger().info("Executing the test classes of {} affected by changes to {} classes since the previous successful run.", this, affectedClasses.size());
+        return new AffectedTestClassSpec(previousHistory, affectedClasses);
+    }
+
+    private TestHistory recordTestHistory(TestHistory previousHistory, Collection<TestClassResult> results, TestClassFileHasher classFileHasher) {
+        Map<String, TestClassHistory> executedTestClasses = new HashMap<String, TestClassHistory>(results.size());
+        for (TestClassResult result : results) {
+            // Class files are only hashed to find the changed test classes to execute first
+            HashCode classFileHash = isFailedTestsFirst() ? classFileHasher.hash(result.getClassName()) : null;
+            executedTestClasses.put(result.getClassName(), new TestClassHistory(result.getDuration(), result.getFailuresCount() > 0, classFileHash));
+        }
+        return previousHistory.withTestClasses(executedTestClasses, classFileHasher);
+    }
+
     /**
      * Registers a test listener with this task. Consider also the following handy methods for quicker hooking into test execution: {@link #beforeTest(groovy.lang.Closure)}, {@link
      * #afterTest(groovy.lang.Closure)}, {@link #beforeSuite(groovy.lang.Closure)}, {@link #afterSuite(groovy.lang.Closure)} <p> This listener will NOT be notified of tests executed by other tasks. To
@@ -1103,6 +1203,194 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         this.maxParallelForks = maxParallelForks;
     }
 
+    /**
+     * Specifies whether test classes are balanced across the forked test processes using the durations of the test classes in previous runs.
+     * When {@code true}, the longest running test classes are executed first, and a forked test process is given the next test class only when it has finished
+     * the test classes it was given before. This reduces the time the last test process keeps running after the others have finished. When {@code false}, the test
+     * classes are assigned to the forked test processes in turn. The default value is {@code false}.
+     *
+     * <p>This only has an effect when {@link #getMaxParallelForks()} is greater than 1 and JUnit is used.</p>
+     *
+     * @since 3.2
+     */
+    @Incubating
+    @Internal
+    public boolean isBalanceForks() {
+        return balanceForks;
+    }
+
+    /**
+     * Sets whether test classes are balanced across the forked test processes using the durations of the test classes in previous runs.
+     *
+     * @since 3.2
+     */
+    @Incubating
+    public void setBalanceForks(boolean balanceForks) {
+        this.balanceForks = balanceForks;
+    }
+
+    /**
+     * Specifies whether the test classes that failed in the previous run, and the test classes that are new or have changed since the previous run, are
+     * executed before all other test classes. This gives feedback about test failures as early as possible. The default value is {@code false}.
+     *
+     * @since 3.2
+     */
+    @Incubating
+    @Internal
+    public boolean isFailedTestsFirst() {
+        return failedTestsFirst;
+    }
+
+    /**
+     * Sets whether the test classes that failed in the previous run, and the test classes that are new or have changed since the previous run, are
+     * executed before all other test classes.
+     *
+     * @since 3.2
+     */
+    @Incubating
+    public void setFailedTestsFirst(boolean failedTestsFirst) {
+        this.failedTestsFirst = failedTestsFirst;
+    }
+
+    /**
+     * Specifies whether the forked test processes are kept running after this task has finished, so that later test tasks in the same build
+     * can execute their tests in them instead of starting new test processes. A test process is only reused by a test task with the same
+     * Java executable, JVM arguments, environment and working directory. The default value is {@code false}.
+     *
+     * <p>The tests of each task are loaded in a separate ClassLoader, and the system properties are restored after each task. The test classes
+     * are not on the system classpath of a reused test process. Test processes are not reused when {@link #getForkEvery()} is set or when
+     * debugging.</p>
+     *
+     * @since 3.2
+     */
+    @Incubating
+    @Internal
+    public boolean isReuseForks() {
+        return reuseForks;
+    }
+
+    /**
+     * Sets whether the forked test processes are kept running after this task has finished, so that later test tasks in the same build
+     * can execute their tests in them.
+     *
+     * @since 3.2
+     */
+    @Incubating
+    public void setReuseForks(boolean reuseForks) {
+        this.reuseForks = reuseForks;
+    }
+
+    /**
+     * Returns the index of the shard of test classes that this task executes, from 0 to {@link #getShardCount()} - 1. The default value is 0.
+     *
+     * @see #getShardCount()
+     * @since 3.2
+     */
+    @Incubating
+    @Input
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    /**
+     * Sets the index of the shard of test classes that this task executes, from 0 to {@link #getShardCount()} - 1.
+     *
+     * @since 3.2
+     */
+    @Incubating
+    public void setShardIndex(int shardIndex) {
+        if (shardIndex < 0) {
+            throw new IllegalArgumentException("Cannot set shardIndex to a value less than 0.");
+        }
+        this.shardIndex = shardIndex;
+    }
+
+    /**
+     * Returns the number of shards that the test classes are split into. When greater than 1, this task executes only the test classes of the
+     * shard given by {@link #getShardIndex()}, so that the test classes can be executed by multiple test tasks or on multiple machines, each
+     * executing a different shard. Each test class is part of exactly one shard. The default value is 1 (no sharding).
+     *
+     * @since 3.2
+     */
+    @Incubating
+    @Input
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Sets the number of shards that the test classes are split into. Set to 1 to disable sharding.
+     *
+     * @since 3.2
+     */
+    @Incubating
+    public void setShardCount(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Cannot set shardCount to a value less than 1.");
+        }
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Specifies whether this task executes only the test classes that may be affected by the changes to its classpath since the last successful run.
+     * A test class is affected when it, or a class it depends on directly or transitively, has changed, been added or been removed. Test classes that
+     * are new or failed in the previous run are always executed. The default value is {@code false}.
+     *
+     * <p>The dependencies between classes are found by analyzing the class files, in the same way as for incremental Java compilation. All test classes
+     * are executed when there is no previous successful run, when a resource or the set of jars on the classpath has changed, or when a changed class
+     * contains constants that may have been inlined into other classes. Dependencies that are not visible in the class files, such as classes
+     * loaded by name through reflection, are not detected. A run is only considered successful when all tests pass and no test filter is used.</p>
+     *
+     * @since 3.2
+     */
+    @Incubating
+    @Input
+    public boolean isAffectedTestsOnly() {
+        return affectedTestsOnly;
+    }
+
+    /**
+     * Sets whether this task executes only the test classes that may be affected by the changes to its classpath since the last successful run.
+     *
+     * @since 3.2
+     */
+    @Incubating
+    public void setAffectedTestsOnly(boolean affectedTestsOnly) {
+        this.affectedTestsOnly = affectedTestsOnly;
+    }
+
+    /**
+     * Specifies whether the tests are executed in the build process instead of in forked test processes. This avoids the cost of starting a test
+     * process, which can take much longer than the tests of a small module. The default value is {@code false}.
+     *
+     * <p>The tests are loaded in a new ClassLoader that sees only the test classpath and the Java API. The system properties of this task are set while
+     * the tests execute, and the system properties and security manager are restored afterwards. All other settings of the test process, such as the
+     * Java executable, JVM arguments, environment, working directory and debug settings, are ignored, as are {@link #getMaxParallelForks()} and
+     * {@link #getForkEvery()}. Only one test task executes tests in the build process at a time. Tests that change other global state of the JVM,
+     * or that leave threads running, can affect the build process and the tests of other tasks.</p>
+     *
+     * <p>The standard output, system properties and security manager cannot be changed for one task only. So when tasks may run in parallel, the tests
+     * are executed in forked test processes instead. While the tests execute, calls to {@code System.exit()} are refused with a
+     * {@link SecurityException}, so that a test cannot stop the build process.</p>
+     *
+     * @since 3.2
+     */
+    @Incubating
+    @Input
+    public boolean isInProcess() {
+        return inProcess;
+    }
+
+    /**
+     * Sets whether the tests are executed in the build process instead of in forked test processes.
+     *
+     * @since 3.2
+     */
+    @Incubating
+    public void setInProcess(boolean inProcess) {
+        this.inProcess = inProcess;
+    }
+
     /**
      * Returns the classes files to scan for test classes.
      *
@@ -16,6 +16,11 @@
 
 package org.gradle.jvm.test.internal.services;
 
+import org.gradle.StartParameter;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
+import org.gradle.api.internal.tasks.testing.history.DefaultTestHistoryCacheFactory;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerProcessPool;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
 import org.gradle.jvm.test.internal.JUnitTestSuiteBinaryRenderer;
@@ -33,12 +38,17 @@ public class JvmTestingServices implements PluginServiceRegistry {
 
     @Override
     public void registerBuildServices(ServiceRegistration registration) {
-
+        registration.addProvider(new Object() {
+            TestWorkerProcessPool createTestWorkerProcessPool(ExecutorFactory executorFactory, StartParameter startParameter) {
+                return new TestWorkerProcessPool(executorFactory, startParameter.getMaxWorkerCount());
+            }
+        });
     }
 
     @Override
     public void registerGradleServices(ServiceRegistration registration) {
-
+        registration.add(DefaultTestHistoryCacheFactory.class);
+        registration.add(TestClassDetectionCache.class);
     }
 
     @Override
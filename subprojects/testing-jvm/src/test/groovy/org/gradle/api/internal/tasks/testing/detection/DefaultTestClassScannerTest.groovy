@@ -20,7 +20,9 @@ package org.gradle.api.internal.tasks.testing.detection
 import org.gradle.api.file.FileTree
 import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.junit.Test
 import spock.lang.Specification
 
@@ -52,4 +54,35 @@ public class DefaultTestClassScannerTest extends Specification {
 
         0 * _._
     }
+
+    def "detects test classes concurrently and passes them to the processor on the scanning thread"() {
+        def executorFactory = new DefaultExecutorFactory()
+        def scanner = new DefaultTestClassScanner(files, detector, processor, executorFactory)
+        def scanningThread = Thread.currentThread()
+        def detectionProcessor = null
+        def received = []
+
+        given:
+        files.visit(_) >> { FileVisitor visitor ->
+            (1..100).each { i -> visitor.visitFile({ new File("Class${i}.class") } as FileVisitDetails) }
+        }
+        detector.startDetection(_) >> { TestClassProcessor processor -> detectionProcessor = processor }
+        detector.processTestClass(_) >> { File file ->
+            detectionProcessor.processTestClass(new DefaultTestClassRunInfo(file.name - ".class"))
+            true
+        }
+        processor.processTestClass(_) >> { DefaultTestClassRunInfo testClass ->
+            assert Thread.currentThread() == scanningThread
+            received << testClass.testClassName
+        }
+
+        when:
+        scanner.run()
+
+        then:
+        received.sort() == (1..100).collect { "Class${it}" }.sort()
+
+        cleanup:
+        executorFactory.stop()
+    }
 }
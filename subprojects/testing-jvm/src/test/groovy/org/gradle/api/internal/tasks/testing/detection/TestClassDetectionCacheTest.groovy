@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import com.google.common.hash.HashCode
+import org.gradle.api.Transformer
+import org.gradle.api.internal.changedetection.state.FileSnapshotter
+import org.gradle.api.internal.changedetection.state.TaskHistoryStore
+import org.gradle.testfixtures.internal.InMemoryIndexedCache
+import spock.lang.Specification
+
+class TestClassDetectionCacheTest extends Specification {
+    def hashes = [:]
+    def hasher = Stub(FileSnapshotter) {
+        hash(_ as File) >> { File file -> hashes[file] }
+    }
+    def cacheAccess = Stub(TaskHistoryStore) {
+        createCache("testClassDetection", String, _) >> new InMemoryIndexedCache<String, TestClassFileDetails>(new TestClassFileDetailsSerializer())
+    }
+    def cache = new TestClassDetectionCache(cacheAccess, hasher)
+    def reader = Mock(Transformer)
+
+    def "reads class file once for the same content and detector type"() {
+        def details = new TestClassFileDetails("org/Test", "java/lang/Object", true, false)
+        def classFile = new File("Test.class")
+        def otherClassFile = new File("Other.class")
+        hashes[classFile] = HashCode.fromInt(1)
+        hashes[otherClassFile] = HashCode.fromInt(1)
+
+        when:
+        def first = cache.get("junit", classFile, reader)
+
+        then:
+        1 * reader.transform(classFile) >> details
+        first == details
+
+        when:
+        def second = cache.get("junit", otherClassFile, reader)
+
+        then:
+        0 * reader._
+        second.className == "org/Test"
+        second.superClassName == "java/lang/Object"
+        second.test
+        !second.abstract
+    }
+
+    def "reads class file again when content or detector type differ"() {
+        def classFile = new File("Test.class")
+        hashes[classFile] = HashCode.fromInt(1)
+
+        when:
+        cache.get("junit", classFile, reader)
+        cache.get("testng", classFile, reader)
+        hashes[classFile] = HashCode.fromInt(2)
+        cache.get("junit", classFile, reader)
+
+        then:
+        3 * reader.transform(classFile) >> new TestClassFileDetails("org/Test", null, false, false)
+    }
+}
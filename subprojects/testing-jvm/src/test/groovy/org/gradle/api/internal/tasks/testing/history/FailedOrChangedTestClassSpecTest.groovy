@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.history
+
+import com.google.common.hash.HashCode
+import org.gradle.api.internal.hash.Hasher
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class FailedOrChangedTestClassSpecTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def hasher = Stub(Hasher) {
+        hash(_ as File) >> { File file -> HashCode.fromInt(file.text.hashCode()) }
+    }
+    def classFileHasher = new TestClassFileHasher(tmpDir.testDirectory, hasher)
+
+    def "selects new, failed and changed test classes"() {
+        given:
+        tmpDir.file("org/Passed.class").text = "passed"
+        tmpDir.file("org/Failed.class").text = "failed"
+        tmpDir.file("org/Changed.class").text = "changed"
+        tmpDir.file("org/New.class").text = "new"
+        def history = new TestHistory([
+            "org.Passed": new TestClassHistory(10, false, classFileHasher.hash("org.Passed")),
+            "org.Failed": new TestClassHistory(10, true, classFileHasher.hash("org.Failed")),
+            "org.Changed": new TestClassHistory(10, false, HashCode.fromInt(0)),
+            "org.Removed": new TestClassHistory(10, false, HashCode.fromInt(0))
+        ])
+        def spec = new FailedOrChangedTestClassSpec(history, classFileHasher)
+
+        expect:
+        !spec.isSatisfiedBy(new DefaultTestClassRunInfo("org.Passed"))
+        spec.isSatisfiedBy(new DefaultTestClassRunInfo("org.Failed"))
+        spec.isSatisfiedBy(new DefaultTestClassRunInfo("org.Changed"))
+        spec.isSatisfiedBy(new DefaultTestClassRunInfo("org.New"))
+        spec.isSatisfiedBy(new DefaultTestClassRunInfo("org.Removed"))
+    }
+
+    def "keeps the outcome of test classes that were not executed while their class file exists"() {
+        given:
+        tmpDir.file("a.class").text = "a"
+        tmpDir.file("b.class").text = "b"
+        def passed = new TestClassHistory(10, false, null)
+        def failed = new TestClassHistory(20, true, null)
+        def history = new TestHistory([a: failed, b: passed, removed: passed])
+
+        when:
+        def updated = history.withTestClasses([a: passed], classFileHasher)
+
+        then:
+        updated.testClasses == [a: passed, b: passed]
+        updated.durations == [a: 10L, b: 10L]
+    }
+}
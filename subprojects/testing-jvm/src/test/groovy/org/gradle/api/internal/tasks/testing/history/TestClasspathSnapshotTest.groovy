@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.history
+
+import com.google.common.hash.HashCode
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData
+import org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDependentsSet
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependencyToAll
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import spock.lang.Specification
+
+import static org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDependentsSet.dependents
+
+class TestClasspathSnapshotTest extends Specification {
+    def dependencies = [
+        "org.Util": dependents("org.Service", "org.UtilTest"),
+        "org.Service": dependents("org.Service\$1", "org.ServiceTest"),
+        "org.Service\$1": dependents("org.Service"),
+        "org.Other": dependents("org.OtherTest")
+    ]
+
+    def "selects changed classes and their transitive dependents"() {
+        def previous = snapshot(["org.Util": 1, "org.Service": 1, "org.Other": 1], dependencies)
+        def current = snapshot(["org.Util": 2, "org.Service": 1, "org.Other": 1], dependencies)
+
+        expect:
+        current.getAffectedClassesSince(previous) == ["org.Util", "org.Service", "org.Service\$1", "org.UtilTest", "org.ServiceTest"] as Set
+        current.getAffectedClassesSince(current).empty
+    }
+
+    def "selects dependents of changed nested classes and of removed classes"() {
+        def previous = snapshot(["org.Service\$1": 1, "org.Other": 1], dependencies)
+        def current = snapshot(["org.Service\$1": 2], [:])
+
+        expect:
+        current.getAffectedClassesSince(previous) == ["org.Service", "org.Service\$1", "org.ServiceTest", "org.Other", "org.OtherTest"] as Set
+    }
+
+    def "affects all classes when a class that all classes depend on changes"() {
+        def previous = snapshot(["org.Constants": 1, "org.Util": 1], ["org.Constants": new DependencyToAll(), "org.Util": new DefaultDependentsSet(true, [])])
+        def constantsChanged = snapshot(["org.Constants": 2, "org.Util": 1], [:])
+        def dependentChanged = snapshot(["org.Constants": 1, "org.Util": 2], [:])
+
+        expect:
+        constantsChanged.getAffectedClassesSince(previous) == null
+        dependentChanged.getAffectedClassesSince(previous) == null
+    }
+
+    def "affects all classes when resources or jars change"() {
+        def previous = snapshot([a: 1], [:], [res: 1], [lib: 1], [lib: 1])
+
+        expect:
+        snapshot([a: 1], [:], [res: 2], [lib: 1], [lib: 1]).getAffectedClassesSince(previous) == null
+        snapshot([a: 1], [:], [res: 1], [lib: 2], [lib: 1]).getAffectedClassesSince(previous) == null
+        snapshot([a: 1], [:], [res: 1], [:], [:]).getAffectedClassesSince(previous) == null
+        snapshot([a: 2], [:], [res: 1], [lib: 2], [lib: 2]).getAffectedClassesSince(previous) == ["a"] as Set
+    }
+
+    def "selects affected, new and failed test classes"() {
+        def history = new TestHistory([
+            "org.UtilTest": new TestClassHistory(10, false, null),
+            "org.OtherTest": new TestClassHistory(10, false, null),
+            "org.FailedTest": new TestClassHistory(10, true, null)
+        ])
+        def spec = new AffectedTestClassSpec(history, ["org.Util", "org.UtilTest"] as Set)
+
+        expect:
+        spec.isSatisfiedBy(new DefaultTestClassRunInfo("org.UtilTest"))
+        spec.isSatisfiedBy(new DefaultTestClassRunInfo("org.FailedTest"))
+        spec.isSatisfiedBy(new DefaultTestClassRunInfo("org.NewTest"))
+        !spec.isSatisfiedBy(new DefaultTestClassRunInfo("org.OtherTest"))
+    }
+
+    private static TestClasspathSnapshot snapshot(Map<String, Integer> classes, Map<String, DependentsSet> dependents, Map<String, Integer> resources = [:],
+                                                  Map<String, Integer> jars = [:], Map<String, Integer> jarClasses = [:]) {
+        new TestClasspathSnapshot(hashes(classes), new ClassSetAnalysisData(dependents), hashes(resources), hashes(jars), hashes(jarClasses))
+    }
+
+    private static Map<String, HashCode> hashes(Map<String, Integer> values) {
+        values.collectEntries { key, value -> [key, HashCode.fromInt(value)] }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.tasks.testing.junit.result
 
+import com.esotericsoftware.kryo.io.Output
 import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
 import org.gradle.api.internal.tasks.testing.TestDescriptorInternal
 import org.gradle.api.tasks.testing.TestOutputEvent
@@ -145,6 +146,55 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "reads output that is larger than the read buffer"() {
+        def large = "x" * 10000
+        def unicode = "\u00e9\u4e2d" * 3000
+
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, large))
+        writer.onOutput(2, 1, output(StdOut, "[other]"))
+        writer.onOutput(1, 1, output(StdOut, unicode))
+        writer.onOutput(1, 2, output(StdOut, large))
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == large + unicode
+        collectAllOutput(reader, 1, StdOut) == large + unicode + large
+        collectAllOutput(reader, 2, StdOut) == "[other]"
+
+        cleanup:
+        reader.close()
+    }
+
+    def "reader can be used by multiple threads concurrently"() {
+        when:
+        def writer = output.writer()
+        (1..20).each { classId ->
+            (1..50).each { testId ->
+                writer.onOutput(classId, testId, output(StdOut, "[out-${classId}-${testId}]"))
+            }
+        }
+        writer.close()
+        def reader = output.reader()
+        def results = Collections.synchronizedMap([:])
+        def threads = (1..20).collect { classId ->
+            Thread.start {
+                10.times {
+                    results[classId] = collectAllOutput(reader, classId, StdOut)
+                }
+            }
+        }
+        threads*.join()
+
+        then:
+        (1..20).every { classId -> results[classId] == (1..50).collect { "[out-${classId}-${it}]" }.join("") }
+
+        cleanup:
+        reader.close()
+    }
+
     def "can open empty reader"() {
         // neither file
         expect:
@@ -169,6 +219,24 @@ class TestOutputStoreSpec extends WorkspaceTest {
         thrown(IllegalStateException)
     }
 
+    def "exception if index file has no version"() {
+        given:
+        output.outputsFile.createNewFile()
+        def indexOutput = new Output(new FileOutputStream(output.indexFile))
+        indexOutput.writeInt(1, true)
+        indexOutput.writeLong(1, true)
+        indexOutput.writeInt(1, true)
+        indexOutput.writeLong(1, true)
+        4.times { indexOutput.writeLong(0) }
+        indexOutput.close()
+
+        when:
+        output.reader()
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
     String collectAllOutput(TestOutputStore.Reader reader, long classId, TestOutputEvent.Destination destination) {
         def writer = new StringWriter()
         reader.writeAllOutput(classId, destination, writer)